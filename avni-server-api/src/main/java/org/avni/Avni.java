@@ -7,6 +7,7 @@ import org.avni.application.FormMapping;
 import org.avni.domain.*;
 import org.avni.domain.individualRelationship.IndividualRelationGenderMapping;
 import org.avni.domain.individualRelationship.IndividualRelationshipType;
+import org.avni.framework.jpa.CHSJpaRepository;
 import org.avni.importer.batch.JobService;
 import org.avni.service.EntityApprovalStatusService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.ResourceProcessor;
@@ -23,6 +25,7 @@ import org.springframework.hateoas.ResourceProcessor;
 import java.util.stream.Collectors;
 
 @SpringBootApplication
+@EnableJpaRepositories(repositoryBaseClass = CHSJpaRepository.class)
 public class Avni {
     private final JobService jobService;
 
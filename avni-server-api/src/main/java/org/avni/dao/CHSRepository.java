@@ -44,6 +44,48 @@ public interface CHSRepository<T extends CHSEntity> {
         return spec;
     }
 
+    /**
+     * Entities modified between lastModifiedDateTime and now, in the sync order. With a continuation token they are
+     * read after its position instead (see {@link #lastModifiedAfter(SyncParameters)}).
+     */
+    default Specification<T> syncAuditSpecification(SyncParameters syncParameters) {
+        if (syncParameters.hasContinuationToken()) {
+            return lastModifiedAfter(syncParameters);
+        }
+        Date lastModifiedDateTime = syncParameters.getLastModifiedDateTime().toDate();
+        Date now = syncParameters.getNow().toDate();
+        return (Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.between(root.get("lastModifiedDateTime"), cb.literal(lastModifiedDateTime), cb.literal(now)));
+            query.orderBy(cb.asc(root.get("lastModifiedDateTime")), cb.asc(root.get("id")));
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Entities modified till now, after the entity (lastModifiedDateTime, lastId) in the sync order. Used to resume
+     * sync from where the previous page ended without an OFFSET. Without lastId, the entities modified after
+     * lastModifiedDateTime.
+     */
+    default Specification<T> lastModifiedAfter(SyncParameters syncParameters) {
+        Date lastModifiedDateTime = syncParameters.getLastModifiedDateTime().toDate();
+        Date now = syncParameters.getNow().toDate();
+        Long lastId = syncParameters.getLastId();
+        return (Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.between(root.get("lastModifiedDateTime"), cb.literal(lastModifiedDateTime), cb.literal(now)));
+            if (lastId == null) {
+                predicates.add(cb.greaterThan(root.get("lastModifiedDateTime"), cb.literal(lastModifiedDateTime)));
+            } else {
+                predicates.add(cb.or(
+                        cb.greaterThan(root.get("lastModifiedDateTime"), cb.literal(lastModifiedDateTime)),
+                        cb.and(cb.equal(root.get("lastModifiedDateTime"), cb.literal(lastModifiedDateTime)), cb.greaterThan(root.get("id"), lastId))));
+            }
+            query.orderBy(cb.asc(root.get("lastModifiedDateTime")), cb.asc(root.get("id")));
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
     default Specification withConceptValues(Map<Concept, String> concepts) {
         Specification<T> spec = (Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) -> {
             List<Predicate> predicates = new ArrayList<>();
@@ -22,10 +22,9 @@ public interface ChecklistItemRepository extends TransactionalDataRepository<Che
     Set<ChecklistItem> findByChecklistProgramEnrolmentIndividual(Individual individual);
 
     @Override
-    default Page<ChecklistItem> getSyncResults(SyncParameters syncParameters) {
-        return findAll(syncAuditSpecification(syncParameters)
-                        .and(syncStrategySpecification(syncParameters)),
-                syncParameters.getPageable());
+    default Specification<ChecklistItem> getSyncSpecification(SyncParameters syncParameters) {
+        return syncAuditSpecification(syncParameters)
+                .and(syncStrategySpecification(syncParameters));
     }
 
     default Specification<ChecklistItem> syncStrategySpecification(SyncParameters syncParameters) {
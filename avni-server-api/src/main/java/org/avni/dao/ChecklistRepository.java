@@ -26,10 +26,9 @@ public interface ChecklistRepository extends TransactionalDataRepository<Checkli
     Checklist findFirstByChecklistDetail(ChecklistDetail checklistDetail);
 
     @Override
-    default Page<Checklist> getSyncResults(SyncParameters syncParameters) {
-        return findAll(syncAuditSpecification(syncParameters)
-                        .and(syncStrategySpecification(syncParameters)),
-                syncParameters.getPageable());
+    default Specification<Checklist> getSyncSpecification(SyncParameters syncParameters) {
+        return syncAuditSpecification(syncParameters)
+                .and(syncStrategySpecification(syncParameters));
     }
 
     default Specification<Checklist> syncStrategySpecification(SyncParameters syncParameters) {
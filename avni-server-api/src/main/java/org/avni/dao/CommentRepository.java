@@ -3,7 +3,6 @@ package org.avni.dao;
 import java.util.ArrayList;
 
 import org.avni.domain.*;
-import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,10 +19,9 @@ public interface CommentRepository extends TransactionalDataRepository<Comment>,
     List<Comment> findByIsVoidedFalseAndCommentThreadIdOrderByLastModifiedDateTimeAscIdAsc(Long threadId);
 
     @Override
-    default Page<Comment> getSyncResults(SyncParameters syncParameters) {
-        return findAll(syncAuditSpecification(syncParameters)
-                        .and(syncStrategySpecification(syncParameters)),
-                syncParameters.getPageable());
+    default Specification<Comment> getSyncSpecification(SyncParameters syncParameters) {
+        return syncAuditSpecification(syncParameters)
+                .and(syncStrategySpecification(syncParameters));
     }
 
     default Specification<Comment> syncStrategySpecification(SyncParameters syncParameters) {
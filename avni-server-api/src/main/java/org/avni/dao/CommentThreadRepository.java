@@ -3,7 +3,6 @@ package org.avni.dao;
 import java.util.ArrayList;
 
 import org.avni.domain.*;
-import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,10 +17,9 @@ import java.util.List;
 public interface CommentThreadRepository extends TransactionalDataRepository<CommentThread>, FindByLastModifiedDateTime<CommentThread>, OperatingIndividualScopeAwareRepository<CommentThread> {
 
     @Override
-    default Page<CommentThread> getSyncResults(SyncParameters syncParameters) {
-        return findAll(syncAuditSpecification(syncParameters)
-                        .and(syncStrategySpecification(syncParameters)),
-                syncParameters.getPageable());
+    default Specification<CommentThread> getSyncSpecification(SyncParameters syncParameters) {
+        return syncAuditSpecification(syncParameters)
+                .and(syncStrategySpecification(syncParameters));
     }
 
     default Specification<CommentThread> syncStrategySpecification(SyncParameters syncParameters) {
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -31,5 +32,7 @@ public interface ConceptAnswerRepository extends ReferenceDataRepository<Concept
 
     List<ConceptAnswer> findByAnswerConcept(Concept answerConcept);
 
+    List<ConceptAnswer> findByAnswerConceptIn(Collection<Concept> answerConcepts);
+
     Page<ConceptAnswer> findByConceptAndIsVoidedFalse(Concept concept, Pageable pageable);
 }
@@ -4,9 +4,11 @@ import org.avni.domain.Concept;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +28,9 @@ public interface ConceptRepository extends ReferenceDataRepository<Concept>, Fin
     List<Concept> getAllConceptByUuidIn(List<String> uuid);
     List<Concept> getAllConceptByNameIn(List<String> names);
 
+    @Query("select distinct c from Concept c left join fetch c.conceptAnswers ca left join fetch ca.answerConcept where c.uuid in :uuids")
+    List<Concept> findAllWithAnswersByUuidIn(@Param("uuids") Collection<String> uuids);
+
     @Query(value = "SELECT DISTINCT c.uuid, c.name\n" +
             "            FROM concept c\n" +
             "                     INNER JOIN (\n" +
@@ -29,11 +29,10 @@ public interface EncounterRepository extends TransactionalDataRepository<Encount
             long catchmentId, Date lastModifiedDateTime, Date now, Pageable pageable);
 
     @Override
-    default Page<Encounter> getSyncResults(SyncParameters syncParameters) {
-        return findAll(syncAuditSpecification(syncParameters)
-                        .and(syncTypeIdSpecification(syncParameters.getTypeId()))
-                        .and(syncStrategySpecification(syncParameters)),
-                syncParameters.getPageable());
+    default Specification<Encounter> getSyncSpecification(SyncParameters syncParameters) {
+        return syncAuditSpecification(syncParameters)
+                .and(syncTypeIdSpecification(syncParameters.getTypeId()))
+                .and(syncStrategySpecification(syncParameters));
     }
 
     default Specification<Encounter> syncTypeIdSpecification(Long typeId) {
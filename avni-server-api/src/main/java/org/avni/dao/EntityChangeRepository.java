@@ -0,0 +1,185 @@
+package org.avni.dao;
+
+import org.avni.domain.CHSEntity;
+import org.joda.time.DateTime;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Answers "has anything changed since the device last synced" for all metadata entities in one round trip. Each entity
+ * becomes an EXISTS probe and the probes are combined with UNION ALL, so the database returns only the names of
+ * entities that have changed. Organisation filtering is done by row level security, same as for the JPA repositories.
+ */
+@Component
+public class EntityChangeRepository {
+    private static final Map<String, ChangeProbe> changeProbes = new HashMap<>();
+
+    static {
+        changeProbes.put("ChecklistDetail", new ChangeProbe("checklist_detail"));
+        changeProbes.put("Rule", new ChangeProbe("rule"));
+        changeProbes.put("RuleDependency", new ChangeProbe("rule_dependency"));
+        changeProbes.put("Form", new ChangeProbe("form"));
+        changeProbes.put("FormMapping", new ChangeProbe("form_mapping"));
+        changeProbes.put("EncounterType", new ChangeProbe("encounter_type"));
+        changeProbes.put("Program", new ChangeProbe("program"));
+        changeProbes.put("ProgramOutcome", new ChangeProbe("program_outcome"));
+        changeProbes.put("Gender", new ChangeProbe("gender"));
+        changeProbes.put("IndividualRelation", new ChangeProbe("individual_relation"));
+        changeProbes.put("IndividualRelationGenderMapping", new ChangeProbe("individual_relation_gender_mapping"));
+        changeProbes.put("IndividualRelationshipType", new ChangeProbe("individual_relationship_type"));
+        changeProbes.put("Concept", new ChangeProbe("concept"));
+        changeProbes.put("ProgramConfig", new ChangeProbe("program_organisation_config"));
+        changeProbes.put("Video", new ChangeProbe("video"));
+        changeProbes.put("SubjectType", new ChangeProbe("subject_type"));
+        changeProbes.put("ChecklistItemDetail", new ChangeProbe("checklist_item_detail"));
+        changeProbes.put("FormElementGroup", new ChangeProbe("form_element_group"));
+        changeProbes.put("FormElement", new ChangeProbe("form_element"));
+        changeProbes.put("ConceptAnswer", new ChangeProbe("concept_answer"));
+        changeProbes.put("IdentifierSource", new ChangeProbe("identifier_source"));
+        changeProbes.put("OrganisationConfig", new ChangeProbe("organisation_config"));
+        changeProbes.put("PlatformTranslation", new ChangeProbe("platform_translation", "platform = 'Android'"));
+        changeProbes.put("Translation", new ChangeProbe("translation"));
+        changeProbes.put("Groups", new ChangeProbe("groups"));
+        changeProbes.put("MyGroups", new ChangeProbe("user_group", "user_id = :userId", false));
+        changeProbes.put("GroupPrivileges", new ChangeProbe("group_privilege"));
+        changeProbes.put("GroupRole", new ChangeProbe("group_role"));
+        changeProbes.put("ReportCard", new ChangeProbe("report_card"));
+        changeProbes.put("Dashboard", new ChangeProbe("dashboard"));
+        changeProbes.put("DashboardSection", new ChangeProbe("dashboard"));
+        changeProbes.put("DashboardSectionCardMapping", new ChangeProbe("dashboard"));
+        changeProbes.put("ApprovalStatus", new ChangeProbe("approval_status"));
+        changeProbes.put("GroupDashboard", new ChangeProbe("group_dashboard"));
+        changeProbes.put("EntityApprovalStatus", new ChangeProbe("entity_approval_status", null, false));
+        changeProbes.put("News", new ChangeProbe("news", "published_date is not null"));
+        changeProbes.put("Documentation", new ChangeProbe("documentation"));
+        changeProbes.put("DocumentationItem", new ChangeProbe("documentation_item"));
+        changeProbes.put("UserInfo", new ChangeProbe("users"));
+        changeProbes.put("Privilege", new ChangeProbe("privilege"));
+        changeProbes.put("StandardReportCardType", new ChangeProbe("standard_report_card_type"));
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public EntityChangeRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static boolean canDetectChange(String entityName) {
+        return changeProbes.containsKey(entityName);
+    }
+
+    /**
+     * Entities whose latest modification is the same for everyone in the organisation, i.e. it does not depend on
+     * the user syncing and it changes only when metadata is edited. These can be answered from a watermark.
+     */
+    public static boolean isOrganisationWide(String entityName) {
+        ChangeProbe changeProbe = changeProbes.get(entityName);
+        return changeProbe != null && changeProbe.organisationWide;
+    }
+
+    /**
+     * @param lastModifiedDateTimes entity name to the time the device last loaded it. Only entities for which
+     *                              {@link #canDetectChange(String)} is true are allowed. Entities without a time are
+     *                              treated as unchanged, same as the repository exists queries.
+     * @return names of the entities that have been modified after the corresponding time
+     */
+    public Set<String> getChangedEntityNames(Map<String, DateTime> lastModifiedDateTimes, Long userId) {
+        if (lastModifiedDateTimes.isEmpty()) {
+            return new HashSet<>();
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("userId", userId);
+        String query = buildQuery(lastModifiedDateTimes, parameters);
+        if (query.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(query, parameters, String.class));
+    }
+
+    static String buildQuery(Map<String, DateTime> lastModifiedDateTimes, Map<String, Object> parameters) {
+        StringJoiner query = new StringJoiner("\nunion all\n");
+        int index = 0;
+        for (Map.Entry<String, DateTime> entry : lastModifiedDateTimes.entrySet()) {
+            String entityName = entry.getKey();
+            if (entry.getValue() == null) {
+                continue;
+            }
+            ChangeProbe probe = changeProbes.get(entityName);
+            if (probe == null) {
+                throw new IllegalArgumentException(String.format("Change detection is not supported for %s", entityName));
+            }
+            String parameterName = "lastModifiedDateTime" + index++;
+            parameters.put(parameterName, CHSEntity.toDate(entry.getValue()));
+            query.add(String.format("select '%s' where exists (select 1 from %s where %slast_modified_date_time > :%s)",
+                    entityName, probe.tableName, probe.conditionPrefix(), parameterName));
+        }
+        return query.toString();
+    }
+
+    /**
+     * @return latest last_modified_date_time of each organisation wide entity, null for entities that have no rows
+     */
+    public Map<String, DateTime> getLastModifiedDateTimes() {
+        Map<String, DateTime> lastModifiedDateTimes = new HashMap<>();
+        jdbcTemplate.query(buildLastModifiedDateTimesQuery(), (RowCallbackHandler) resultSet -> {
+            Timestamp lastModifiedDateTime = resultSet.getTimestamp("last_modified_date_time");
+            lastModifiedDateTimes.put(resultSet.getString("entity_name"), lastModifiedDateTime == null ? null : new DateTime(lastModifiedDateTime));
+        });
+        return lastModifiedDateTimes;
+    }
+
+    /**
+     * @return ids of the organisation, its ancestors, whose metadata it sees, and its descendants, whose users it sees
+     */
+    public Set<Long> getRelatedOrganisationIds(Long organisationId) {
+        return new HashSet<>(jdbcTemplate.queryForList("with recursive ancestors(id, parent_organisation_id) as (" +
+                "    select id, parent_organisation_id from organisation where id = :organisationId" +
+                "    union all" +
+                "    select o.id, o.parent_organisation_id from organisation o join ancestors a on o.id = a.parent_organisation_id)," +
+                "  descendants(id) as (" +
+                "    select id from organisation where id = :organisationId" +
+                "    union all" +
+                "    select o.id from organisation o join descendants d on o.parent_organisation_id = d.id) " +
+                "select id from ancestors union select id from descendants",
+                Collections.singletonMap("organisationId", organisationId), Long.class));
+    }
+
+    static String buildLastModifiedDateTimesQuery() {
+        StringJoiner query = new StringJoiner("\nunion all\n");
+        changeProbes.forEach((entityName, probe) -> {
+            if (probe.organisationWide) {
+                query.add(String.format("select '%s' as entity_name, (select max(last_modified_date_time) from %s%s) as last_modified_date_time",
+                        entityName, probe.tableName, probe.condition == null ? "" : " where " + probe.condition));
+            }
+        });
+        return query.toString();
+    }
+
+    private static class ChangeProbe {
+        private final String tableName;
+        private final String condition;
+        private final boolean organisationWide;
+
+        ChangeProbe(String tableName) {
+            this(tableName, null);
+        }
+
+        ChangeProbe(String tableName, String condition) {
+            this(tableName, condition, true);
+        }
+
+        ChangeProbe(String tableName, String condition, boolean organisationWide) {
+            this.tableName = tableName;
+            this.condition = condition;
+            this.organisationWide = organisationWide;
+        }
+
+        String conditionPrefix() {
+            return condition == null ? "" : condition + " and ";
+        }
+    }
+}
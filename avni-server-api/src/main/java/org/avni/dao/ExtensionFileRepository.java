@@ -0,0 +1,14 @@
+package org.avni.dao;
+
+import org.avni.domain.ExtensionFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RepositoryRestResource(collectionResourceRel = "extensionFile", path = "extensionFile", exported = false)
+public interface ExtensionFileRepository extends JpaRepository<ExtensionFile, Long> {
+    List<ExtensionFile> findAllByOrganisationId(Long organisationId);
+}
@@ -63,7 +63,8 @@ public interface GroupSubjectRepository extends TransactionalDataRepository<Grou
             "and g.isVoided = false " +
             "and m.isVoided = false " +
             "and g.registrationDate between :startDateTime and :endDateTime " +
-            "and (coalesce(:locationIds, null) is null OR g.addressLevel.id in :locationIds)")
+            "and (coalesce(:locationIds, null) is null OR g.addressLevel.id in :locationIds) " +
+            "order by gs.id")
     Stream<GroupSubject> findGroupSubjects(Long subjectTypeId, List<Long> locationIds, LocalDate startDateTime, LocalDate endDateTime);
 
 
@@ -110,10 +111,9 @@ public interface GroupSubjectRepository extends TransactionalDataRepository<Grou
     }
 
     @Override
-    default Page<GroupSubject> getSyncResults(SyncParameters syncParameters) {
-        return findAll(syncAuditSpecification(syncParameters)
-                        .and(syncStrategySpecification(syncParameters)),
-                syncParameters.getPageable());
+    default Specification<GroupSubject> getSyncSpecification(SyncParameters syncParameters) {
+        return syncAuditSpecification(syncParameters)
+                .and(syncStrategySpecification(syncParameters));
     }
 
     @Override
@@ -30,11 +30,10 @@ public interface IndividualRepository extends TransactionalDataRepository<Indivi
     }
 
     @Override
-    default Page<Individual> getSyncResults(SyncParameters syncParameters) {
-        return findAll(syncAuditSpecification(syncParameters)
-                        .and(syncTypeIdSpecification(syncParameters.getTypeId()))
-                        .and(syncStrategySpecification(syncParameters)),
-                syncParameters.getPageable());
+    default Specification<Individual> getSyncSpecification(SyncParameters syncParameters) {
+        return syncAuditSpecification(syncParameters)
+                .and(syncTypeIdSpecification(syncParameters.getTypeId()))
+                .and(syncStrategySpecification(syncParameters));
     }
 
     @Override
@@ -102,7 +101,8 @@ public interface IndividualRepository extends TransactionalDataRepository<Indivi
             "where ind.isVoided = false " +
             "and ind.subjectType.id = :subjectTypeId " +
             "and ind.registrationDate between :startDateTime and :endDateTime " +
-            "and (coalesce(:locationIds,NULL) is null OR ind.addressLevel.id in :locationIds)")
+            "and (coalesce(:locationIds,NULL) is null OR ind.addressLevel.id in :locationIds) " +
+            "order by ind.id")
     Stream<Individual> findIndividuals(Long subjectTypeId, List<Long> locationIds, LocalDate startDateTime, LocalDate endDateTime);
 
     //group by is added for distinct ind records
@@ -113,7 +113,8 @@ public interface IndividualRepository extends TransactionalDataRepository<Indivi
             "and i.isVoided = false " +
             "and coalesce(enc.encounterDateTime, enc.cancelDateTime) between :startDateTime and :endDateTime " +
             "and (coalesce(:locationIds, null) is null OR i.addressLevel.id in :locationIds)" +
-            "group by i.id")
+            "group by i.id " +
+            "order by i.id")
     Stream<Individual> findEncounters(List<Long> locationIds, DateTime startDateTime, DateTime endDateTime, Long encounterTypeId);
 
 
@@ -0,0 +1,76 @@
+package org.avni.dao;
+
+import org.avni.domain.AddressLevel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Inserts new address levels, with their parent mappings, in JDBC batches. The ids are taken from the sequence before
+ * the insert, so that the lineage of a location, which ends with its own id, is known when it is inserted, instead of
+ * being saved a second time after the insert. Organisation filtering is done by row level security, same as for the
+ * JPA repositories.
+ */
+@Component
+public class LocationBulkRepository {
+    private static final int BATCH_SIZE = 1000;
+    private final JdbcTemplate jdbcTemplate;
+
+    public LocationBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Long> nextAddressLevelIds(int count) {
+        return jdbcTemplate.queryForList("select nextval('address_level_id_seq') from generate_series(1, ?)", Long.class, count);
+    }
+
+    /**
+     * Each row gets its own last modified time, a millisecond apart in the order given, so that sync does not miss any
+     * of them at a page boundary.
+     *
+     * @param locations with ids and lineage, each after its parent when the parent is among them
+     */
+    public void insert(List<AddressLevel> locations, Long userId) {
+        jdbcTemplate.batchUpdate("insert into address_level (id, uuid, title, type_id, parent_id, lineage, legacy_id, " +
+                        "is_voided, organisation_id, version, created_by_id, created_date_time, last_modified_by_id, last_modified_date_time) " +
+                        "values (?, ?, ?, ?, ?, cast(? as ltree), ?, ?, ?, 0, ?, current_timestamp, ?, current_timestamp(3) + ? * interval '1 millisecond')",
+                positions(locations), BATCH_SIZE, (statement, position) -> {
+                    AddressLevel location = locations.get(position);
+                    statement.setLong(1, location.getId());
+                    statement.setString(2, location.getUuid());
+                    statement.setString(3, location.getTitle());
+                    statement.setLong(4, location.getType().getId());
+                    statement.setObject(5, location.getParentId(), Types.BIGINT);
+                    statement.setString(6, location.getLineage());
+                    statement.setString(7, location.getLegacyId());
+                    statement.setBoolean(8, location.isVoided());
+                    statement.setLong(9, location.getOrganisationId());
+                    statement.setLong(10, userId);
+                    statement.setLong(11, userId);
+                    statement.setInt(12, position);
+                });
+        List<AddressLevel> locationsWithParent = locations.stream().filter(location -> location.getParent() != null).collect(Collectors.toList());
+        jdbcTemplate.batchUpdate("insert into location_location_mapping (uuid, location_id, parent_location_id, " +
+                        "is_voided, organisation_id, version, created_by_id, created_date_time, last_modified_by_id, last_modified_date_time) " +
+                        "values (?, ?, ?, ?, ?, 0, ?, current_timestamp, ?, current_timestamp(3) + ? * interval '1 millisecond')",
+                positions(locationsWithParent), BATCH_SIZE, (statement, position) -> {
+                    AddressLevel location = locationsWithParent.get(position);
+                    statement.setString(1, location.getParentLocationMapping().getUuid());
+                    statement.setLong(2, location.getId());
+                    statement.setLong(3, location.getParentId());
+                    statement.setBoolean(4, location.getParentLocationMapping().isVoided());
+                    statement.setLong(5, location.getOrganisationId());
+                    statement.setLong(6, userId);
+                    statement.setLong(7, userId);
+                    statement.setInt(8, position);
+                });
+    }
+
+    private static List<Integer> positions(List<?> rows) {
+        return IntStream.range(0, rows.size()).boxed().collect(Collectors.toList());
+    }
+}
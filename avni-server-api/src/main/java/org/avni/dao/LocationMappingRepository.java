@@ -2,34 +2,34 @@ package org.avni.dao;
 
 import java.util.Date;
 
-import org.avni.domain.CHSEntity;
 import org.avni.domain.AddressLevel;
 import org.avni.domain.ParentLocationMapping;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
 import java.util.List;
 
 @Repository
 @RepositoryRestResource(collectionResourceRel = "locationMapping", path = "locationMapping", exported = false)
 public interface LocationMappingRepository extends ReferenceDataRepository<ParentLocationMapping>, FindByLastModifiedDateTime<ParentLocationMapping>, OperatingIndividualScopeAwareRepository<ParentLocationMapping> {
-    Page<ParentLocationMapping> findByParentLocationIdInAndLastModifiedDateTimeIsBetweenOrderByLastModifiedDateTimeAscIdAsc(
-            List<Long> addressLevelIds,
-            Date lastModifiedDateTime,
-            Date now,
-            Pageable pageable);
-
     boolean existsByLastModifiedDateTimeGreaterThanAndParentLocationIdIn(
             @Param("lastModifiedDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date lastModifiedDateTime,
             @Param("addressIds") List<Long> addressIds);
 
     @Override
-    default Page<ParentLocationMapping> getSyncResults(SyncParameters syncParameters) {
-        return findByParentLocationIdInAndLastModifiedDateTimeIsBetweenOrderByLastModifiedDateTimeAscIdAsc(syncParameters.getAddressLevels(), CHSEntity.toDate(syncParameters.getLastModifiedDateTime()), CHSEntity.toDate(syncParameters.getNow()), syncParameters.getPageable());
+    default Specification<ParentLocationMapping> getSyncSpecification(SyncParameters syncParameters) {
+        List<Long> addressLevels = syncParameters.getAddressLevels();
+        return syncAuditSpecification(syncParameters)
+                .and((Root<ParentLocationMapping> root, CriteriaQuery<?> query, CriteriaBuilder cb) ->
+                        addressLevels.isEmpty() ? cb.disjunction() : root.get("parentLocation").get("id").in(addressLevels));
     }
 
     @Override
@@ -46,4 +46,18 @@ public interface LocationMappingRepository extends ReferenceDataRepository<Paren
     }
 
     List<ParentLocationMapping> findAllByLocation(AddressLevel location);
+
+    /**
+     * Each updated mapping gets its own last modified time, a millisecond apart, so that sync does not miss any of them
+     * at a page boundary.
+     */
+    @Modifying
+    @Query(value = "update location_location_mapping set " +
+            "parent_location_id = :parentLocationId, " +
+            "last_modified_by_id = :lastModifiedById, " +
+            "last_modified_date_time = current_timestamp(3) + mapping.rank * interval '1 millisecond' " +
+            "from (select id, row_number() over (order by id) as rank from location_location_mapping " +
+            "      where location_id = :locationId) mapping " +
+            "where location_location_mapping.id = mapping.id", nativeQuery = true)
+    int updateParentLocation(@Param("locationId") Long locationId, @Param("parentLocationId") Long parentLocationId, @Param("lastModifiedById") Long lastModifiedById);
 }
@@ -12,6 +12,8 @@ import org.avni.domain.Catchment;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
@@ -21,6 +23,9 @@ import org.springframework.stereotype.Repository;
 import javax.validation.constraints.NotNull;
 import org.joda.time.DateTime;
 import java.util.Collection;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -30,10 +35,9 @@ import java.util.stream.Collectors;
 public interface LocationRepository extends ReferenceDataRepository<AddressLevel>, FindByLastModifiedDateTime<AddressLevel>, OperatingIndividualScopeAwareRepository<AddressLevel> {
 
     @Query(value = "select al.id, al.uuid, title, type_id as typeId, alt.name as typeString, al.parent_id as parentId, " +
-            "cast(lineage as text) as lineage, title_lineage as titleLineage, alt.level " +
+            "cast(lineage as text) as lineage, al.title_lineage as titleLineage, alt.level " +
             "from address_level al " +
             "left join address_level_type alt on alt.id = al.type_id " +
-            "left join title_lineage_locations_view tll on tll.lowestpoint_id = al.id " +
             "where al.id in (:ids)",
             nativeQuery = true)
     List<LocationProjection> findByIdIn(Long[] ids);
@@ -48,19 +52,12 @@ public interface LocationRepository extends ReferenceDataRepository<AddressLevel
             Date lastModifiedDateTime,
             List<Long> addressIds);
 
-    Page<AddressLevel> findByIdInAndLastModifiedDateTimeIsBetweenOrderByLastModifiedDateTimeAscIdAsc(
-            List<Long> addressLevelIds,
-            Date lastModifiedDateTime,
-            Date now,
-            Pageable pageable);
-
     AddressLevel findByTitleAndCatchmentsUuid(String title, String uuid);
 
     @Query(value = "select al.id, al.uuid, title, type_id as typeId, alt.name as typeString, al.parent_id as parentId, " +
-            "cast(lineage as text) as lineage, title_lineage as titleLineage, alt.level " +
+            "cast(lineage as text) as lineage, al.title_lineage as titleLineage, alt.level " +
             "from address_level al " +
             "left join address_level_type alt on alt.id = al.type_id " +
-            "left join title_lineage_locations_view tll on tll.lowestpoint_id = al.id " +
             "where (:title is null or lower(al.title) like lower(concat('%', :title,'%'))) " +
             "and al.is_voided = false order by al.title ",
             nativeQuery = true)
@@ -79,8 +76,11 @@ public interface LocationRepository extends ReferenceDataRepository<AddressLevel
     boolean existsByLastModifiedDateTimeAfterAndTypeIn(Date lastModifiedDateTime, Collection<@NotNull AddressLevelType> type);
 
     @Override
-    default Page<AddressLevel> getSyncResults(SyncParameters syncParameters) {
-        return findByIdInAndLastModifiedDateTimeIsBetweenOrderByLastModifiedDateTimeAscIdAsc(syncParameters.getAddressLevels(), syncParameters.getLastModifiedDateTime().toDate(), syncParameters.getNow().toDate(), syncParameters.getPageable());
+    default Specification<AddressLevel> getSyncSpecification(SyncParameters syncParameters) {
+        List<Long> addressLevels = syncParameters.getAddressLevels();
+        return syncAuditSpecification(syncParameters)
+                .and((Root<AddressLevel> root, CriteriaQuery<?> query, CriteriaBuilder cb) ->
+                        addressLevels.isEmpty() ? cb.disjunction() : root.get("id").in(addressLevels));
     }
 
     @Override
@@ -127,7 +127,7 @@ public interface LocationRepository extends ReferenceDataRepository<AddressLevel
     @Query("select a.title from AddressLevel a where a.isVoided = false")
     List<String> getAllNames();
 
-    @Query(value = "select lowestpoint_id from title_lineage_locations_view where lower(title_lineage) = lower(:locationTitleLineage)", nativeQuery = true)
+    @Query(value = "select id from address_level where lower(title_lineage) = lower(:locationTitleLineage)", nativeQuery = true)
     Long getAddressIdByLineage(String locationTitleLineage);
 
     default Optional<AddressLevel> findByTitleLineageIgnoreCase(String locationTitleLineage) {
@@ -146,29 +146,52 @@ public interface LocationRepository extends ReferenceDataRepository<AddressLevel
     @Query(value="select id from address_level where lineage ~ cast(:lquery as lquery)", nativeQuery = true)
     List<Long> getAllChildrenLocationsIds(@Param("lquery") String lquery);
 
-    @Query(value="select * from virtual_catchment_address_mapping_table where catchment_id = :catchmentId", nativeQuery = true)
+    /**
+     * Same rows as virtual_catchment_address_mapping_table has for the catchment (without id), but found through the
+     * lineage index from the addresses of the catchment, instead of splitting the lineage of every address level.
+     */
+    @Query(value = "select distinct al.id as addresslevel_id, cam.catchment_id from catchment_address_mapping cam " +
+            "join address_level catchment_address on catchment_address.id = cam.addresslevel_id " +
+            "join address_level al on al.lineage <@ catchment_address.lineage " +
+            "where cam.catchment_id = :catchmentId", nativeQuery = true)
     List<VirtualCatchmentProjection> getVirtualCatchmentsForCatchmentId(@Param("catchmentId") Long catchmentId);
 
+    /**
+     * Moves the descendants of the address level with the lineage under the new lineage, keeping their path below it,
+     * in one statement through the lineage index. The title lineage of the moved rows is updated by the triggers on
+     * address_level. Each moved row gets its own last modified time, a millisecond apart, so that sync does not miss
+     * any of them at a page boundary.
+     *
+     * @return number of descendants moved
+     */
+    @Modifying
+    @Query(value = "update address_level set " +
+            "lineage = cast(:newLineage as ltree) || subpath(address_level.lineage, nlevel(cast(:lineage as ltree))), " +
+            "last_modified_by_id = :lastModifiedById, " +
+            "last_modified_date_time = current_timestamp(3) + descendant.rank * interval '1 millisecond' " +
+            "from (select id, row_number() over (order by id) as rank from address_level " +
+            "      where lineage <@ cast(:lineage as ltree) and lineage <> cast(:lineage as ltree)) descendant " +
+            "where address_level.id = descendant.id", nativeQuery = true)
+    int moveDescendants(@Param("lineage") String lineage, @Param("newLineage") String newLineage, @Param("lastModifiedById") Long lastModifiedById);
+
     @Query(value="select * from virtual_catchment_address_mapping_table where addresslevel_id in (:addressLevelIds)", nativeQuery = true)
     List<VirtualCatchmentProjection> getVirtualCatchmentsForAddressLevelIds(@Param("addressLevelIds") List<Long> addressLevelIds);
 
-    @Query(value = "select title_lineage from title_lineage_locations_function(:addressId)", nativeQuery = true)
+    @Query(value = "select title_lineage from address_level where id = :addressId", nativeQuery = true)
     String getTitleLineageById(Long addressId);
 
     @Query(value = "select al.id, al.uuid, title, type_id as typeId, alt.name as typeString, al.parent_id as parentId, " +
-            "cast(lineage as text) as lineage, title_lineage as titleLineage, alt.level " +
+            "cast(lineage as text) as lineage, al.title_lineage as titleLineage, alt.level " +
             "from address_level al " +
             "left join address_level_type alt on alt.id = al.type_id " +
-            "left join title_lineage_locations_view tll on tll.lowestpoint_id = al.id " +
             "where al.is_voided = false",
             nativeQuery = true)
     Page<LocationProjection> findNonVoidedLocations(Pageable pageable);
 
     @Query(value = "select al.id, al.uuid, title, type_id as typeId, alt.name as typeString, al.parent_id as parentId, " +
-            "cast(lineage as text) as lineage, title_lineage as titleLineage, alt.level " +
+            "cast(lineage as text) as lineage, al.title_lineage as titleLineage, alt.level " +
             "from address_level al " +
             "left join address_level_type alt on alt.id = al.type_id " +
-            "left join title_lineage_locations_view tll on tll.lowestpoint_id = al.id " +
             "where al.is_voided = false " +
             "and al.type_id = :typeId " +
             "order by al.title ",
@@ -176,22 +199,26 @@ public interface LocationRepository extends ReferenceDataRepository<AddressLevel
     List<LocationProjection> findNonVoidedLocationsByTypeId(Long typeId);
 
     @Query(value = "select al.id, al.uuid, title, type_id as typeId, alt.name as typeString, al.parent_id as parentId, " +
-            "cast(lineage as text) as lineage, title_lineage as titleLineage, alt.level " +
+            "cast(lineage as text) as lineage, al.title_lineage as titleLineage, alt.level " +
             "from address_level al " +
             "left join address_level_type alt on alt.id = al.type_id " +
-            "left join title_lineage_locations_view tll on tll.lowestpoint_id = al.id " +
             "where al.is_voided = false ",
             nativeQuery = true)
     List<LocationProjection> findAllNonVoided();
 
     @Query(value = "select al.id, al.uuid, title, type_id as typeId, alt.name as typeString, al.parent_id as parentId, " +
-            "cast(lineage as text) as lineage, title_lineage as titleLineage, alt.level " +
+            "cast(lineage as text) as lineage, al.title_lineage as titleLineage, alt.level " +
             "from address_level al " +
             "left join address_level_type alt on alt.id = al.type_id " +
-            "left join title_lineage_locations_view tll on tll.lowestpoint_id = al.id " +
             "where al.is_voided = false " +
             "and al.uuid = :uuid ",
             nativeQuery = true)
     LocationProjection findNonVoidedLocationsByUuid(String uuid);
 
+    @Query(value = "select al.id, al.title, alt.name as typeString, cast(al.lineage as text) as lineage " +
+            "from address_level al " +
+            "join address_level_type alt on alt.id = al.type_id",
+            nativeQuery = true)
+    List<LocationProjection> findAllWithTypeAndLineage();
+
 }
@@ -2,15 +2,32 @@ package org.avni.dao;
 
 import org.avni.domain.CHSEntity;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.repository.NoRepositoryBean;
 
-import org.joda.time.DateTime;
-import java.util.List;
-import java.util.Date;
-
 @NoRepositoryBean
 public interface OperatingIndividualScopeAwareRepository<T extends CHSEntity> extends JpaSpecificationExecutor<T> {
-    Page<T> getSyncResults(SyncParameters syncParameters);
+    Specification<T> getSyncSpecification(SyncParameters syncParameters);
+
+    default Page<T> getSyncResults(SyncParameters syncParameters) {
+        return findAll(getSyncSpecification(syncParameters), syncParameters.getPageable());
+    }
+
+    /**
+     * Same entities in the same order as {@link #getSyncResults(SyncParameters)}, but without the count query. Meant to
+     * be used with {@link SyncParameters#getLastId()} so that every page is read from the start of the pageable.
+     */
+    default Slice<T> getSyncResultsAsSlice(SyncParameters syncParameters) {
+        return findAllAsSlice(getSyncSpecification(syncParameters), syncParameters.getPageable());
+    }
+
+    /**
+     * Implemented by {@link org.avni.framework.jpa.CHSJpaRepository}
+     */
+    Slice<T> findAllAsSlice(Specification<T> spec, Pageable pageable);
+
     boolean isEntityChangedForCatchment(SyncParameters syncParameters);
 }
@@ -29,13 +29,17 @@ public interface ProgramEnrolmentRepository extends TransactionalDataRepository<
     @Query("select pe.program from ProgramEnrolment pe join pe.program join pe.program.operationalPrograms where pe.individual.id = :individualId and pe.programExitDateTime is null and pe.isVoided = false")
     List<Program> findActiveEnrolmentsByIndividualId(Long individualId);
 
+    @Query("select pe.individual.id, pe.program from ProgramEnrolment pe join pe.program join pe.program.operationalPrograms where pe.individual.id in :individualIds and pe.programExitDateTime is null and pe.isVoided = false")
+    List<Object[]> findActiveEnrolmentsByIndividualIdIn(List<Long> individualIds);
+
     @Query("select enl from ProgramEnrolment enl " +
             "join enl.individual i " +
             "where enl.program.id = :programId " +
             "and enl.isVoided = false " +
             "and i.isVoided = false " +
             "and coalesce(enl.enrolmentDateTime, enl.programExitDateTime) between :startDateTime and :endDateTime " +
-            "and (coalesce(:locationIds, null) is null OR i.addressLevel.id in :locationIds)")
+            "and (coalesce(:locationIds, null) is null OR i.addressLevel.id in :locationIds) " +
+            "order by enl.id")
     Stream<ProgramEnrolment> findEnrolments(Long programId, List<Long> locationIds, DateTime startDateTime, DateTime endDateTime);
 
     //group by is added for distinct enl records
@@ -49,7 +53,8 @@ public interface ProgramEnrolmentRepository extends TransactionalDataRepository<
             "and i.isVoided = false " +
             "and coalesce(enc.encounterDateTime, enc.cancelDateTime) between :startDateTime and :endDateTime " +
             "and (coalesce(:locationIds, null) is null OR i.addressLevel.id in :locationIds) " +
-            "group by enl.id")
+            "group by enl.id " +
+            "order by enl.id")
     Stream<ProgramEnrolment> findProgramEncounters(List<Long> locationIds, DateTime startDateTime, DateTime endDateTime, Long encounterTypeId, Long programId);
 
 
@@ -81,11 +86,10 @@ public interface ProgramEnrolmentRepository extends TransactionalDataRepository<
     }
 
     @Override
-    default Page<ProgramEnrolment> getSyncResults(SyncParameters syncParameters) {
-        return findAll(syncAuditSpecification(syncParameters)
-                        .and(syncTypeIdSpecification(syncParameters.getTypeId()))
-                        .and(syncStrategySpecification(syncParameters)),
-                syncParameters.getPageable());
+    default Specification<ProgramEnrolment> getSyncSpecification(SyncParameters syncParameters) {
+        return syncAuditSpecification(syncParameters)
+                .and(syncTypeIdSpecification(syncParameters.getTypeId()))
+                .and(syncStrategySpecification(syncParameters));
     }
 
     @Override
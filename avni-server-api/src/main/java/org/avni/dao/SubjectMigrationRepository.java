@@ -3,7 +3,6 @@ package org.avni.dao;
 import java.util.ArrayList;
 
 import org.avni.domain.*;
-import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Repository;
 
@@ -49,10 +48,9 @@ public interface SubjectMigrationRepository extends TransactionalDataRepository<
     }
 
     @Override
-    default Page<SubjectMigration> getSyncResults(SyncParameters syncParameters) {
-        return findAll(syncAuditSpecification(syncParameters)
-                        .and(syncStrategySpecification(syncParameters)),
-                syncParameters.getPageable());
+    default Specification<SubjectMigration> getSyncSpecification(SyncParameters syncParameters) {
+        return syncAuditSpecification(syncParameters)
+                .and(syncStrategySpecification(syncParameters));
     }
 
 }
@@ -0,0 +1,49 @@
+package org.avni.dao;
+
+import org.avni.domain.CHSEntity;
+import org.avni.util.BadRequestError;
+import org.joda.time.DateTime;
+
+/**
+ * Position of the last entity sent to the device, in the (lastModifiedDateTime, id) order used by sync. Written as
+ * "&lt;lastModifiedDateTime millis&gt;-&lt;id&gt;". An empty token starts after the lastModifiedDateTime of the request,
+ * and has no id.
+ */
+public class SyncContinuationToken {
+    private final DateTime lastModifiedDateTime;
+    private final Long lastId;
+
+    private SyncContinuationToken(DateTime lastModifiedDateTime, Long lastId) {
+        this.lastModifiedDateTime = lastModifiedDateTime;
+        this.lastId = lastId;
+    }
+
+    public static SyncContinuationToken parse(String token, DateTime lastModifiedDateTime) {
+        if (token.isEmpty()) {
+            return new SyncContinuationToken(lastModifiedDateTime, null);
+        }
+        String[] parts = token.split("-");
+        try {
+            if (parts.length != 2) throw new NumberFormatException();
+            return new SyncContinuationToken(new DateTime(Long.parseLong(parts[0])), Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            throw new BadRequestError("Invalid continuationToken '%s'", token);
+        }
+    }
+
+    public static SyncContinuationToken of(CHSEntity entity) {
+        return new SyncContinuationToken(entity.getLastModifiedDateTime(), entity.getId());
+    }
+
+    public static String after(CHSEntity entity) {
+        return String.format("%d-%d", entity.getLastModifiedDateTime().getMillis(), entity.getId());
+    }
+
+    public DateTime getLastModifiedDateTime() {
+        return lastModifiedDateTime;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+}
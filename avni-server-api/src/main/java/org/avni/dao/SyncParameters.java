@@ -19,6 +19,7 @@ public class SyncParameters {
     private SubjectType subjectType;
     private JsonObject syncSettings;
     private SyncEntityName syncEntityName;
+    private SyncContinuationToken continuationToken;
 
     public SyncParameters(DateTime lastModifiedDateTime,
                           DateTime now, Long typeId,
@@ -27,6 +28,17 @@ public class SyncParameters {
                           SubjectType subjectType,
                           JsonObject syncSettings,
                           SyncEntityName syncEntityName) {
+        this(lastModifiedDateTime, now, typeId, pageable, addressLevels, subjectType, syncSettings, syncEntityName, null);
+    }
+
+    public SyncParameters(DateTime lastModifiedDateTime,
+                          DateTime now, Long typeId,
+                          Pageable pageable,
+                          List<Long> addressLevels,
+                          SubjectType subjectType,
+                          JsonObject syncSettings,
+                          SyncEntityName syncEntityName,
+                          SyncContinuationToken continuationToken) {
         this.lastModifiedDateTime = lastModifiedDateTime;
         this.now = now;
         this.typeId = typeId;
@@ -35,6 +47,7 @@ public class SyncParameters {
         this.subjectType = subjectType;
         this.syncSettings = syncSettings;
         this.syncEntityName = syncEntityName;
+        this.continuationToken = continuationToken;
     }
 
     public DateTime getLastModifiedDateTime() {
@@ -65,6 +78,22 @@ public class SyncParameters {
         return syncSettings;
     }
 
+    /**
+     * Whether the entities are read after a position (see {@link CHSRepository#lastModifiedAfter}) rather than by page
+     * number.
+     */
+    public boolean hasContinuationToken() {
+        return continuationToken != null;
+    }
+
+    /**
+     * Id of the last entity the device received, which was modified at lastModifiedDateTime. When present, sync resumes
+     * after this entity, otherwise after lastModifiedDateTime.
+     */
+    public Long getLastId() {
+        return continuationToken == null ? null : continuationToken.getLastId();
+    }
+
     public boolean isParentOrSelfIndividual() {
         return Arrays.asList(SyncEntityName.Individual, SyncEntityName.Comment, SyncEntityName.CommentThread).contains(syncEntityName);
     }
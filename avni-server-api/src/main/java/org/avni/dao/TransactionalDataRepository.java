@@ -24,17 +24,6 @@ public interface TransactionalDataRepository<T extends CHSEntity> extends CHSRep
         return findById(id).orElse(null);
     }
 
-    default Specification<T> syncAuditSpecification(SyncParameters syncParameters) {
-        Date lastModifiedDateTime = syncParameters.getLastModifiedDateTime().toDate();
-        Date now = syncParameters.getNow().toDate();
-        return (Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            predicates.add(cb.between(root.get("lastModifiedDateTime"), cb.literal(lastModifiedDateTime), cb.literal(now)));
-            query.orderBy(cb.asc(root.get("lastModifiedDateTime")), cb.asc(root.get("id")));
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-    }
-
     default Specification<T> syncEntityChangedAuditSpecification(SyncParameters syncParameters) {
         Date lastModifiedDateTime = syncParameters.getLastModifiedDateTime().toDate();
         return (Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) -> {
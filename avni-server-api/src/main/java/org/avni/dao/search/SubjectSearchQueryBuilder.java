@@ -3,11 +3,11 @@ package org.avni.dao.search;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.avni.application.OrganisationConfigSettingKeys;
-import org.avni.dao.ConceptRepository;
 import org.avni.dao.SubjectTypeRepository;
 import org.avni.domain.ConceptDataType;
 import org.avni.domain.SubjectType;
 import org.avni.framework.ApplicationContextProvider;
+import org.avni.service.ConceptCache;
 import org.avni.service.OrganisationConfigService;
 import org.avni.util.ObjectMapperSingleton;
 import org.avni.util.S;
@@ -27,12 +27,12 @@ public class SubjectSearchQueryBuilder {
             "                i.profile_picture as \"profilePicture\",\n" +
             "                cast(concat_ws(' ',i.first_name,i.last_name)as text) as \"fullName\",\n" +
             "                i.uuid as \"uuid\",\n" +
-            "                cast(tllv.title_lineage as text) as \"addressLevel\",\n" +
+            "                cast(al.title_lineage as text) as \"addressLevel\",\n" +
             "                st.name as \"subjectTypeName\",\n" +
             "                gender.name as \"gender\",\n" +
             "                i.date_of_birth as \"dateOfBirth\" $CUSTOM_FIELDS\n" +
             "from individual i\n" +
-            "         left outer join title_lineage_locations_view tllv on i.address_id = tllv.lowestpoint_id\n" +
+            "         left outer join address_level al on i.address_id = al.id\n" +
             "         left outer join gender on i.gender_id = gender.id\n" +
             "         left outer join subject_type st on i.subject_type_id = st.id\n";
     private static final String ENCOUNTER_JOIN = "left outer join encounter e\n" +
@@ -46,7 +46,7 @@ public class SubjectSearchQueryBuilder {
             "                            pe.is_voided is false";
 
     private String offsetLimitClause = "offset :offset limit :limit";
-    private String orderByClause = "\norder by i.id desc\n";
+    private String orderByClause = "\norder by a.\"id\" desc\n";
 
 
     private Set<String> whereClauses = new HashSet<>();
@@ -77,11 +77,11 @@ public class SubjectSearchQueryBuilder {
             finalQuery = "select count(*) from (" + query.toString() + ") a";
             removePaginationFilters();
         } else {
-            finalQuery = query.append("\n")
-                    .append(orderByClause)
-                    .append("\n")
-                    .append(offsetLimitClause)
-                    .toString();
+            // The total is counted over the same rows as the page, instead of running the query again for it
+            finalQuery = "select a.*, count(*) over () as \"totalElements\" from (" + query.toString() + ") a\n" +
+                    orderByClause +
+                    "\n" +
+                    offsetLimitClause;
         }
         String customFieldString = customFields.isEmpty() ? "" : ",\n".concat(String.join(",\n", customFields));
         String queryWithCustomFields = finalQuery.replace(" $CUSTOM_FIELDS", customFieldString);
@@ -138,17 +138,17 @@ public class SubjectSearchQueryBuilder {
 
             Map<String, String> columnsMap = new HashMap<String, String>() {
                 {
-                    put("ID", "i.id");
-                    put("FULLNAME", "concat_ws(' ',i.first_name,i.last_name)");
-                    put("SUBJECTTYPE", "st.name");
-                    put("GENDER", "gender.name");
-                    put("DATEOFBIRTH", "i.date_of_birth");
-                    put("TITLE_LINEAGE", "tllv.title_lineage");
+                    put("ID", "a.\"id\"");
+                    put("FULLNAME", "a.\"fullName\"");
+                    put("SUBJECTTYPE", "a.\"subjectTypeName\"");
+                    put("GENDER", "a.\"gender\"");
+                    put("DATEOFBIRTH", "a.\"dateOfBirth\"");
+                    put("TITLE_LINEAGE", "a.\"addressLevel\"");
 
                 }
             };
 
-            this.orderByClause = "order by " + columnsMap.get(sortColumn.toUpperCase()) + " " + sortOrder + ", i.id desc";
+            this.orderByClause = "order by " + columnsMap.get(sortColumn.toUpperCase()) + " " + sortOrder + ", a.\"id\" desc";
         }
 
 
@@ -164,11 +164,11 @@ public class SubjectSearchQueryBuilder {
             return this;
         }
         List<CustomSearchFields> searchFieldsForSubject = getSearchFields(subjectType, customSearchFields);
-        ConceptRepository conceptRepository = ApplicationContextProvider.getContext().getBean(ConceptRepository.class);
+        ConceptCache conceptCache = ApplicationContextProvider.getContext().getBean(ConceptCache.class);
         searchFieldsForSubject.forEach(sf -> {
             List<SearchResultConcepts> searchResultConcepts = sf.getSearchResultConcepts();
             searchResultConcepts.forEach(c -> {
-                org.avni.domain.Concept concept = conceptRepository.findByUuid(c.getUuid());
+                org.avni.domain.Concept concept = conceptCache.findByUuid(c.getUuid());
                 if (concept.isCoded()) {
                     customFields.add(String.format("multi_select_coded(i.observations -> '%s') as \"%s\"", concept.getUuid(), concept.getName()));
                 } else if (concept.getDataType().equals(ConceptDataType.Date.toString())) {
@@ -198,10 +198,12 @@ public class SubjectSearchQueryBuilder {
                 String token = "%" + tokens[i] + "%";
                 String parameter = "subjectSearchToken" + i;
                 addParameter(parameter, token);
-                clauses.add("    (i.first_name ilike :" + parameter + "\n" +
-                        "        or i.last_name ilike :" + parameter + "\n" +
-                        "        or i.first_name ilike :" + parameter + "\n" +
-                        "        or i.last_name like :" + parameter + ")");
+                // A union of the matches of each column, so that each one is found through its trigram index
+                clauses.add("    i.id in (select ni.id from individual ni\n" +
+                        "             where ni.first_name ilike :" + parameter + " or ni.last_name ilike :" + parameter + "\n" +
+                        "             union\n" +
+                        "             select ia.individual_id from identifier_assignment ia\n" +
+                        "             where ia.identifier ilike :" + parameter + " and ia.is_voided is false)");
             }
             whereClause.append(String.join(" and ", clauses));
             whereClause.append(")");
@@ -288,9 +290,10 @@ public class SubjectSearchQueryBuilder {
         if (searchString == null || searchString.isEmpty()) return this;
         String searchValue = "%" + searchString + "%";
         parameters.put("searchAll", searchValue);
-        whereClauses.add("(cast(i.observations as text) ilike :searchAll\n" +
-                " or cast(penr.observations as text) ilike :searchAll)");
-        joinClauses.add(PROGRAM_ENROLMENT_JOIN);
+        whereClauses.add("i.id in (select si.id from individual si where cast(si.observations as text) ilike :searchAll\n" +
+                "         union\n" +
+                "         select spenr.individual_id from program_enrolment spenr\n" +
+                "         where cast(spenr.observations as text) ilike :searchAll and spenr.is_voided is false)");
         return this;
     }
 
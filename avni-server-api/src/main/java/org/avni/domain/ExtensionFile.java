@@ -0,0 +1,60 @@
+package org.avni.domain;
+
+import org.joda.time.DateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import java.util.Date;
+
+/**
+ * An entry of the manifest of the extension files of an organisation, kept in step with the files uploaded to the
+ * storage so that they can be listed without listing the storage.
+ */
+@Entity
+@Table(name = "extension_file")
+public class ExtensionFile extends OrganisationAwareEntity {
+    @Column
+    private String name;
+
+    @Column
+    private Long size;
+
+    @Column
+    private String hash;
+
+    @Column
+    private Date fileModifiedDateTime;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public DateTime getFileModifiedDateTime() {
+        return new DateTime(fileModifiedDateTime);
+    }
+
+    public void setFileModifiedDateTime(DateTime fileModifiedDateTime) {
+        this.fileModifiedDateTime = fileModifiedDateTime.toDate();
+    }
+}
@@ -164,21 +164,6 @@ public class GroupPrivilege extends OrganisationAwareEntity {
         return subjectType != null && checklistDetail != null;
     }
 
-    public boolean matches(String privilegeName, SubjectType subjectType, Program program, EncounterType encounterType, ChecklistDetail checklistDetail) {
-        return this.getPrivilege().getName().equals(privilegeName)
-                && itemsMatch(subjectType, this.getSubjectType()) && itemsMatch(program, this.getProgram())
-                && (itemsMatch(encounterType, this.getEncounterType())
-                || itemsMatch(encounterType, this.getProgramEncounterType()))
-                && itemsMatch(checklistDetail, this.getChecklistDetail());
-    }
-
-    private boolean itemsMatch(CHSBaseEntity o1, CHSBaseEntity o2) {
-        if (o1 == null && o2 == null) return true;
-        if (o1 == null && o2 != null) return false;
-        if (o2 == null) return false;
-        return o1.getId() == o2.getId();
-    }
-
     public String getTypeUUID() {
         if (isEncounterPrivilege()) {
             return getEncounterTypeUuid();
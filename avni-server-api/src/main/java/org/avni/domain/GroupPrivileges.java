@@ -1,24 +1,48 @@
 package org.avni.domain;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * The privileges of a user, indexed by the privilege name and the ids of the subject type, program, encounter type and
+ * checklist detail they are for, so that a check does not go through all the privileges. Holds no entities, so it can
+ * be kept across requests.
+ */
 public class GroupPrivileges {
-    private boolean hasAllPrivileges;
-    private List<GroupPrivilege> privileges;
+    private final boolean hasAllPrivileges;
+    private final Set<List<Object>> privilegeKeys;
 
     public GroupPrivileges(boolean hasAllPrivileges, List<GroupPrivilege> privileges) {
         this.hasAllPrivileges = hasAllPrivileges;
-        this.privileges = privileges;
+        Set<List<Object>> privilegeKeys = new HashSet<>();
+        // A privilege matches a check for its encounter type and for its program encounter type
+        privileges.forEach(groupPrivilege -> {
+            privilegeKeys.add(privilegeKey(groupPrivilege.getPrivilege().getName(), groupPrivilege.getSubjectType(), groupPrivilege.getProgram(),
+                    groupPrivilege.getEncounterType(), groupPrivilege.getChecklistDetail()));
+            privilegeKeys.add(privilegeKey(groupPrivilege.getPrivilege().getName(), groupPrivilege.getSubjectType(), groupPrivilege.getProgram(),
+                    groupPrivilege.getProgramEncounterType(), groupPrivilege.getChecklistDetail()));
+        });
+        this.privilegeKeys = Collections.unmodifiableSet(privilegeKeys);
     }
 
     public GroupPrivileges() {
         this.hasAllPrivileges = true;
-        this.privileges = new ArrayList<>();
+        this.privilegeKeys = Collections.emptySet();
     }
 
     public boolean hasPrivilege(String privilegeName, SubjectType subjectType, Program program, EncounterType encounterType, ChecklistDetail checklistDetail) {
-        return this.hasAllPrivileges || privileges.stream().anyMatch(groupPrivilege -> groupPrivilege.matches(privilegeName, subjectType, program, encounterType, checklistDetail));
+        return this.hasAllPrivileges || privilegeKeys.contains(privilegeKey(privilegeName, subjectType, program, encounterType, checklistDetail));
+    }
+
+    private static List<Object> privilegeKey(String privilegeName, SubjectType subjectType, Program program, EncounterType encounterType, ChecklistDetail checklistDetail) {
+        return Arrays.asList(privilegeName, idOf(subjectType), idOf(program), idOf(encounterType), idOf(checklistDetail));
+    }
+
+    private static Long idOf(CHSBaseEntity entity) {
+        return entity == null ? null : entity.getId();
     }
 
     public boolean hasViewPrivilege(ChecklistItem checklistItem) {
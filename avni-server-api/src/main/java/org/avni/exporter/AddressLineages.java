@@ -0,0 +1,59 @@
+package org.avni.exporter;
+
+import org.avni.application.projections.LocationProjection;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The title of each location type in the lineage of every address level, read once per export, so that the address
+ * columns of a row are filled from the lineage of its address instead of loading its parents one by one. Holds no
+ * entities, so it can be used from any thread.
+ */
+class AddressLineages {
+    private final Map<Long, Location> locations = new HashMap<>();
+
+    private static class Location {
+        private final String typeName;
+        private final String title;
+        private final long[] lineage;
+
+        Location(String typeName, String title, long[] lineage) {
+            this.typeName = typeName;
+            this.title = title;
+            this.lineage = lineage;
+        }
+    }
+
+    AddressLineages(List<LocationProjection> locationProjections) {
+        for (LocationProjection location : locationProjections) {
+            locations.put(location.getId(), new Location(location.getTypeString(), location.getTitle(), parseLineage(location.getId(), location.getLineage())));
+        }
+    }
+
+    /**
+     * Titles of the address level and the levels above it by their type name, or null when the address level was not
+     * there when the export started
+     */
+    Map<String, String> getTitlesByTypeName(Long addressLevelId) {
+        Location location = locations.get(addressLevelId);
+        if (location == null) return null;
+        Map<String, String> titlesByTypeName = new HashMap<>();
+        for (long id : location.lineage) {
+            Location locationInLineage = locations.get(id);
+            if (locationInLineage != null) titlesByTypeName.put(locationInLineage.typeName, locationInLineage.title);
+        }
+        return titlesByTypeName;
+    }
+
+    private static long[] parseLineage(Long id, String lineage) {
+        if (lineage == null || lineage.isEmpty()) return new long[]{id};
+        String[] ids = lineage.split("\\.");
+        long[] lineageIds = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            lineageIds[i] = Long.parseLong(ids[i]);
+        }
+        return lineageIds;
+    }
+}
@@ -22,9 +22,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.persistence.EntityManager;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -34,6 +36,7 @@ import static java.lang.String.format;
 @EnableBatchProcessing
 public class ExportBatchConfiguration {
     private final int CHUNK_SIZE = 100;
+    private final int PARTITIONS_PER_WORKER = 4;
     private JobBuilderFactory jobBuilderFactory;
     private StepBuilderFactory stepBuilderFactory;
     private ProgramEnrolmentRepository programEnrolmentRepository;
@@ -46,6 +49,8 @@ public class ExportBatchConfiguration {
     private EncounterTypeRepository encounterTypeRepository;
     private ProgramRepository programRepository;
     private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final int parallelism;
 
     @Autowired
     public ExportBatchConfiguration(JobBuilderFactory jobBuilderFactory,
@@ -59,7 +64,9 @@ public class ExportBatchConfiguration {
                                     SubjectTypeRepository subjectTypeRepository,
                                     EncounterTypeRepository encounterTypeRepository,
                                     ProgramRepository programRepository,
-                                    EntityManager entityManager) {
+                                    EntityManager entityManager,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${avni.export.parallelism}") int parallelism) {
         this.jobBuilderFactory = jobBuilderFactory;
         this.stepBuilderFactory = stepBuilderFactory;
         this.programEnrolmentRepository = programEnrolmentRepository;
@@ -72,6 +79,8 @@ public class ExportBatchConfiguration {
         this.encounterTypeRepository = encounterTypeRepository;
         this.programRepository = programRepository;
         this.entityManager = entityManager;
+        this.transactionManager = transactionManager;
+        this.parallelism = parallelism;
     }
 
     @Bean
@@ -113,25 +122,32 @@ public class ExportBatchConfiguration {
         sorts.put("id", Sort.Direction.ASC);
         List<Long> selectedAddressIds = getLocations(addressIds);
         List<Long> addressParam = selectedAddressIds.isEmpty() ? null : selectedAddressIds;
-        Stream stream;
+        Function<List<Long>, Stream> streamOfAddresses;
         switch (ReportType.valueOf(reportType)) {
             case Registration:
-                stream = getRegistrationStream(subjectTypeUUID, addressParam, new LocalDate(startDate), new LocalDate(endDate));
+                streamOfAddresses = addresses -> getRegistrationStream(subjectTypeUUID, addresses, new LocalDate(startDate), new LocalDate(endDate));
                 break;
             case Enrolment:
-                stream = getEnrolmentStream(programUUID, addressParam, new DateTime(startDate), new DateTime(endDate));
+                streamOfAddresses = addresses -> getEnrolmentStream(programUUID, addresses, new DateTime(startDate), new DateTime(endDate));
                 break;
             case Encounter:
-                stream = getEncounterStream(programUUID, encounterTypeUUID, addressParam, new DateTime(startDate), new DateTime(endDate));
+                streamOfAddresses = addresses -> getEncounterStream(programUUID, encounterTypeUUID, addresses, new DateTime(startDate), new DateTime(endDate));
                 break;
             case GroupSubject:
-                stream = getGroupSubjectStream(subjectTypeUUID, addressParam, new LocalDate(startDate), new LocalDate(endDate), sorts);
+                streamOfAddresses = addresses -> getGroupSubjectStream(subjectTypeUUID, addresses, new LocalDate(startDate), new LocalDate(endDate), sorts);
                 break;
             default:
                 throw new RuntimeException(format("Unknown report type: '%s'", reportType));
         }
 
-        LongitudinalExportTasklet encounterTasklet = new LongitudinalExportTaskletImpl(CHUNK_SIZE, entityManager, exportCSVFieldExtractor, exportProcessor, exportS3Service, uuid, stream);
+        LongitudinalExportTasklet encounterTasklet;
+        // Subjects registered without an address are only reached by an export of all addresses, which is not partitioned
+        if (parallelism > 1 && addressParam != null && addressParam.size() > 1) {
+            List<List<Long>> addressPartitions = PartitionedLongitudinalExportTasklet.partition(addressParam, parallelism * PARTITIONS_PER_WORKER);
+            encounterTasklet = new PartitionedLongitudinalExportTasklet(CHUNK_SIZE, parallelism, entityManager, transactionManager, exportCSVFieldExtractor, exportProcessor, exportS3Service, uuid, addressPartitions, streamOfAddresses);
+        } else {
+            encounterTasklet = new LongitudinalExportTaskletImpl(CHUNK_SIZE, entityManager, exportCSVFieldExtractor, exportProcessor, exportS3Service, uuid, streamOfAddresses.apply(addressParam));
+        }
         listener.setItemReaderCleaner(encounterTasklet);
         return encounterTasklet;
     }
@@ -165,14 +181,23 @@ public class ExportBatchConfiguration {
         List<Long> locationIds = addressIds.isEmpty() ? Collections.emptyList() : Arrays.stream(addressIds.split(",")).map(Long::valueOf).collect(Collectors.toList());
         List<AddressLevel> selectedAddressLevels = locationRepository.findAllById(locationIds);
         List<AddressLevel> allAddressLevels = locationRepository.findAllByIsVoidedFalse();
+        return getAddressIds(selectedAddressLevels, allAddressLevels);
+    }
+
+    /**
+     * The selected addresses can overlap (a district and one of its villages), an address is returned once so that it
+     * is not exported in two partitions.
+     */
+    static List<Long> getAddressIds(List<AddressLevel> selectedAddressLevels, List<AddressLevel> allAddressLevels) {
         return selectedAddressLevels
                 .stream()
                 .flatMap(al -> findLowestAddresses(al, allAddressLevels))
                 .map(CHSBaseEntity::getId)
+                .distinct()
                 .collect(Collectors.toList());
     }
 
-    private Stream<AddressLevel> findLowestAddresses(AddressLevel selectedAddress, List<AddressLevel> allAddresses) {
+    private static Stream<AddressLevel> findLowestAddresses(AddressLevel selectedAddress, List<AddressLevel> allAddresses) {
         return allAddresses
                 .stream()
                 .filter(al -> al.getLineage().startsWith(selectedAddress.getLineage()));
@@ -5,6 +5,7 @@ import org.avni.application.FormElementType;
 import org.avni.application.FormType;
 import org.avni.dao.EncounterRepository;
 import org.avni.dao.EncounterTypeRepository;
+import org.avni.dao.LocationRepository;
 import org.avni.dao.ProgramEncounterRepository;
 import org.avni.dao.SubjectTypeRepository;
 import org.avni.domain.*;
@@ -24,7 +25,6 @@ import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 
@@ -32,8 +32,6 @@ import static java.lang.String.format;
 @StepScope
 public class ExportCSVFieldExtractor implements FieldExtractor<ExportItemRow>, FlatFileHeaderCallback {
 
-    private static final String selectedAnswerFieldValue = "1";
-    private static final String unSelectedAnswerFieldValue = "0";
     private StringBuilder headers = new StringBuilder();
     @Value("#{jobParameters['encounterTypeUUID']}")
     private String encounterTypeUUID;
@@ -61,23 +59,34 @@ public class ExportCSVFieldExtractor implements FieldExtractor<ExportItemRow>, F
     private LinkedHashMap<String, FormElement> programEncounterCancelMap = new LinkedHashMap<>();
     private LinkedHashMap<String, FormElement> encounterMap = new LinkedHashMap<>();
     private LinkedHashMap<String, FormElement> encounterCancelMap = new LinkedHashMap<>();
+    private ObservationColumns registrationColumns;
+    private ObservationColumns enrolmentColumns;
+    private ObservationColumns exitEnrolmentColumns;
+    private ObservationColumns encounterColumns;
+    private ObservationColumns encounterCancelColumns;
+    private DateTimeZone dateTimeZone;
+    private int columnCount;
+    private AddressLineages addressLineages;
     private List<String> addressLevelTypes = new ArrayList<>();
     private String encounterTypeName;
     private FormMappingService formMappingService;
     private AddressLevelService addressLevelService;
+    private LocationRepository locationRepository;
 
     public ExportCSVFieldExtractor(SubjectTypeRepository subjectTypeRepository,
                                    EncounterTypeRepository encounterTypeRepository,
                                    EncounterRepository encounterRepository,
                                    ProgramEncounterRepository programEncounterRepository,
                                    FormMappingService formMappingService,
-                                   AddressLevelService addressLevelService) {
+                                   AddressLevelService addressLevelService,
+                                   LocationRepository locationRepository) {
         this.subjectTypeRepository = subjectTypeRepository;
         this.encounterTypeRepository = encounterTypeRepository;
         this.encounterRepository = encounterRepository;
         this.programEncounterRepository = programEncounterRepository;
         this.formMappingService = formMappingService;
         this.addressLevelService = addressLevelService;
+        this.locationRepository = locationRepository;
     }
 
     @PostConstruct
@@ -119,6 +128,18 @@ public class ExportCSVFieldExtractor implements FieldExtractor<ExportItemRow>, F
                 break;
             }
         }
+        compileColumns();
+    }
+
+    private void compileColumns() {
+        this.dateTimeZone = DateTimeZone.forID(timeZone);
+        this.addressLineages = new AddressLineages(locationRepository.findAllWithTypeAndLineage());
+        this.registrationColumns = new ObservationColumns(registrationMap, dateTimeZone);
+        this.enrolmentColumns = new ObservationColumns(enrolmentMap, dateTimeZone);
+        this.exitEnrolmentColumns = new ObservationColumns(exitEnrolmentMap, dateTimeZone);
+        this.encounterColumns = new ObservationColumns(programUUID != null ? programEncounterMap : encounterMap, dateTimeZone);
+        this.encounterCancelColumns = new ObservationColumns(programUUID != null ? programEncounterCancelMap : encounterCancelMap, dateTimeZone);
+        this.columnCount = headers.length() == 0 ? 0 : headers.toString().split(",", -1).length;
     }
 
     private void addGroupSubjectHeaders(StringBuilder headers) {
@@ -204,7 +225,7 @@ public class ExportCSVFieldExtractor implements FieldExtractor<ExportItemRow>, F
 
     @Override
     public Object[] extract(ExportItemRow exportItemRow) {
-        List<Object> row = new ArrayList<>();
+        List<Object> row = new ArrayList<>(columnCount);
         if (reportType.equals(ReportType.GroupSubject.toString())) {
             addGroupSubjectFields(exportItemRow, row);
         } else {
@@ -224,7 +245,7 @@ public class ExportCSVFieldExtractor implements FieldExtractor<ExportItemRow>, F
             if (subjectType.isGroup()) {
                 row.add(getTotalMembers(individual));
             }
-            row.addAll(getObs(individual.getObservations(), registrationMap));
+            registrationColumns.write(individual.getObservations(), row);
             addAuditFields(individual, row);
             if (programUUID == null && reportType.equals(ReportType.Encounter.toString())) {
                 addGeneralEncounterRelatedFields(exportItemRow, row);
@@ -275,33 +296,33 @@ public class ExportCSVFieldExtractor implements FieldExtractor<ExportItemRow>, F
         row.add(programEnrolment.getId());
         row.add(programEnrolment.getUuid());
         row.add(getDateForTimeZone(programEnrolment.getEnrolmentDateTime()));
-        row.addAll(getObs(programEnrolment.getObservations(), enrolmentMap));
+        enrolmentColumns.write(programEnrolment.getObservations(), row);
         //Program Exit
         row.add(getDateForTimeZone(programEnrolment.getProgramExitDateTime()));
-        row.addAll(getObs(programEnrolment.getProgramExitObservations(), exitEnrolmentMap));
+        exitEnrolmentColumns.write(programEnrolment.getProgramExitObservations(), row);
         addAuditFields(programEnrolment, row);
     }
 
     private void addGeneralEncounterRelatedFields(ExportItemRow exportItemRow, List<Object> row) {
         //Encounter
-        exportItemRow.getEncounters().forEach(encounter -> addEncounter(row, encounter, encounterMap, encounterCancelMap));
+        exportItemRow.getEncounters().forEach(encounter -> addEncounter(row, encounter));
     }
 
     private void addProgramEncounterRelatedFields(ExportItemRow exportItemRow, List<Object> row) {
         //ProgramEncounter
-        exportItemRow.getProgramEncounters().forEach(programEncounter -> addEncounter(row, programEncounter, programEncounterMap, programEncounterCancelMap));
+        exportItemRow.getProgramEncounters().forEach(programEncounter -> addEncounter(row, programEncounter));
     }
 
-    private <T extends AbstractEncounter> void addEncounter(List<Object> row, T encounter, LinkedHashMap<String, FormElement> map, LinkedHashMap<String, FormElement> cancelMap) {
+    private <T extends AbstractEncounter> void addEncounter(List<Object> row, T encounter) {
         row.add(encounter.getId());
         row.add(encounter.getUuid());
         row.add(QuotedStringValue(encounter.getName()));
         row.add(getDateForTimeZone(encounter.getEarliestVisitDateTime()));
         row.add(getDateForTimeZone(encounter.getMaxVisitDateTime()));
         row.add(getDateForTimeZone(encounter.getEncounterDateTime()));
-        row.addAll(getObs(encounter.getObservations(), map));
+        encounterColumns.write(encounter.getObservations(), row);
         row.add(getDateForTimeZone(encounter.getCancelDateTime()));
-        row.addAll(getObs(encounter.getCancelObservations(), cancelMap));
+        encounterCancelColumns.write(encounter.getCancelObservations(), row);
         addAuditFields(encounter, row);
     }
 
@@ -335,74 +356,8 @@ public class ExportCSVFieldExtractor implements FieldExtractor<ExportItemRow>, F
         return "\"".concat(text).concat("\"");
     }
 
-    private List<Object> getObs(ObservationCollection observations, LinkedHashMap<String, FormElement> obsMap) {
-        List<Object> values = new ArrayList<>(obsMap.size());
-        obsMap.forEach((conceptUUID, formElement) -> {
-            if (ConceptDataType.isGroupQuestion(formElement.getConcept().getDataType())) return;
-            Object val;
-            if (formElement.getGroup() != null) {
-                Concept parentConcept = formElement.getGroup().getConcept();
-                Map<String, Object> nestedObservations = observations == null ? Collections.EMPTY_MAP : (Map<String, Object>) observations.getOrDefault(parentConcept.getUuid(), new HashMap<String, Object>());
-                val = nestedObservations.getOrDefault(conceptUUID, null);
-            } else {
-                val = observations == null ? null : observations.getOrDefault(conceptUUID, null);
-            }
-            String dataType = formElement.getConcept().getDataType();
-            if (dataType.equals(ConceptDataType.Coded.toString())) {
-                values.addAll(processCodedObs(formElement.getType(), val, formElement));
-            } else if(dataType.equals(ConceptDataType.DateTime.toString()) || dataType.equals(ConceptDataType.Date.toString())){
-                values.add(processDateObs(val));
-            } else if (ConceptDataType.isMedia(dataType)) {
-                values.add(processMediaObs(val));
-            } else {
-                values.add(QuotedStringValue(String.valueOf(Optional.ofNullable(val).orElse(""))));
-            }
-        });
-        return values;
-    }
-
-    private Object processDateObs(Object val) {
-        if(val == null) return "";
-        return getDateForTimeZone(new DateTime(String.valueOf(val)));
-    }
-
     private DateTime getDateForTimeZone(DateTime dateTime) {
-        return dateTime == null ? null : dateTime.withZone(DateTimeZone.forID(timeZone));
-    }
-
-    private List<Object> processCodedObs(String formType, Object val, FormElement formElement) {
-        List<Object> values = new ArrayList<>();
-        if (formType.equals(FormElementType.MultiSelect.toString())) {
-            List<Object> codedObs = getObservationValueList(val);
-            values.addAll(getAns(formElement.getConcept(), codedObs));
-        } else {
-            values.add(val == null ? "" : getAnsName(formElement.getConcept(), val));
-        }
-        return values;
-    }
-
-    private List<Object> getObservationValueList(Object val) {
-        return val == null ?
-                Collections.emptyList() :
-                val instanceof List ? (List<Object>) val : Collections.singletonList(val);
-    }
-
-    private String processMediaObs(Object val) {
-        List<String> imageURIs = getObservationValueList(val).stream().map(t -> (String) t).collect(Collectors.toList());
-        return QuotedStringValue(String.join(",", imageURIs));
-    }
-
-    private String getAnsName(Concept concept, Object val) {
-        return concept.getSortedAnswers()
-                .filter(ca -> ca.getAnswerConcept().getUuid().equals(val))
-                .map(ca -> QuotedStringValue(ca.getAnswerConcept().getName()))
-                .findFirst().orElse("");
-    }
-
-    private List<String> getAns(Concept concept, List<Object> val) {
-        return concept.getSortedAnswers()
-                .map(ca -> val.contains(ca.getAnswerConcept().getUuid()) ? selectedAnswerFieldValue : unSelectedAnswerFieldValue)
-                .collect(Collectors.toList());
+        return dateTime == null ? null : dateTime.withZone(dateTimeZone);
     }
 
     private void addAddressLevelColumns(StringBuilder sb) {
@@ -410,8 +365,9 @@ public class ExportCSVFieldExtractor implements FieldExtractor<ExportItemRow>, F
     }
 
     private void addAddressLevels(List<Object> row, AddressLevel addressLevel) {
-        Map<String, String> addressLevelMap = addressLevel != null ?
-                getAddressTypeAddressLevelMap(addressLevel, addressLevel.getParentLocationMapping()) : new HashMap<>();
+        Map<String, String> titlesByTypeName = addressLevel != null ? addressLineages.getTitlesByTypeName(addressLevel.getId()) : new HashMap<>();
+        Map<String, String> addressLevelMap = titlesByTypeName != null ?
+                titlesByTypeName : getAddressTypeAddressLevelMap(addressLevel, addressLevel.getParentLocationMapping());
         this.addressLevelTypes.forEach(level -> row.add(QuotedStringValue(addressLevelMap.getOrDefault(level, ""))));
     }
 
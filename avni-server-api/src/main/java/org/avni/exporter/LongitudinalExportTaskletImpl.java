@@ -75,15 +75,19 @@ public class LongitudinalExportTaskletImpl implements LongitudinalExportTasklet
         writer = new FlatFileItemWriter<>();
         File outputFile = exportS3Service.getLocalExportFile(uuid);
         writer.setResource(new FileSystemResource(outputFile));
-        DelimitedLineAggregator<ExportItemRow> delimitedLineAggregator = new DelimitedLineAggregator<>();
-        delimitedLineAggregator.setDelimiter(",");
-        delimitedLineAggregator.setFieldExtractor(exportCSVFieldExtractor);
-        writer.setLineAggregator(delimitedLineAggregator);
+        writer.setLineAggregator(createLineAggregator(exportCSVFieldExtractor));
         writer.setHeaderCallback(exportCSVFieldExtractor);
         writer.open(executionContext);
         logger.info(String.format("Writing to file:%s", outputFile.getAbsolutePath()));
     }
 
+    static DelimitedLineAggregator<ExportItemRow> createLineAggregator(ExportCSVFieldExtractor exportCSVFieldExtractor) {
+        DelimitedLineAggregator<ExportItemRow> delimitedLineAggregator = new DelimitedLineAggregator<>();
+        delimitedLineAggregator.setDelimiter(",");
+        delimitedLineAggregator.setFieldExtractor(exportCSVFieldExtractor);
+        return delimitedLineAggregator;
+    }
+
     private void writeToFile(List<ExportItemRow> rows) throws Exception {
         if (rows.size() == 0) return;
         writer.write(rows);
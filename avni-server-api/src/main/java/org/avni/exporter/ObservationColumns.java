@@ -0,0 +1,114 @@
+package org.avni.exporter;
+
+import org.avni.application.FormElement;
+import org.avni.application.FormElementType;
+import org.avni.domain.Concept;
+import org.avni.domain.ConceptAnswer;
+import org.avni.domain.ConceptDataType;
+import org.avni.domain.ObservationCollection;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The columns of the observations of a form in an export, worked out once per export from its form elements in the
+ * same order as their headers. Coded answers are looked up by uuid, instead of going through the sorted answers of the
+ * concept for every cell. Holds no entities, so it can be used from any thread.
+ */
+class ObservationColumns {
+    private static final String selectedAnswerFieldValue = "1";
+    private static final String unSelectedAnswerFieldValue = "0";
+    private final List<Column> columns = new ArrayList<>();
+
+    private interface CellWriter {
+        void write(Object value, List<Object> row);
+    }
+
+    private static class Column {
+        private final String conceptUUID;
+        private final String parentConceptUUID;
+        private final CellWriter cellWriter;
+
+        Column(String conceptUUID, String parentConceptUUID, CellWriter cellWriter) {
+            this.conceptUUID = conceptUUID;
+            this.parentConceptUUID = parentConceptUUID;
+            this.cellWriter = cellWriter;
+        }
+
+        void write(ObservationCollection observations, List<Object> row) {
+            cellWriter.write(getValue(observations), row);
+        }
+
+        private Object getValue(ObservationCollection observations) {
+            if (observations == null) return null;
+            if (parentConceptUUID == null) return observations.get(conceptUUID);
+            Object nestedObservations = observations.get(parentConceptUUID);
+            return nestedObservations == null ? null : ((Map<String, Object>) nestedObservations).get(conceptUUID);
+        }
+    }
+
+    ObservationColumns(LinkedHashMap<String, FormElement> formElements, DateTimeZone dateTimeZone) {
+        formElements.forEach((conceptUUID, formElement) -> {
+            Concept concept = formElement.getConcept();
+            String dataType = concept.getDataType();
+            if (ConceptDataType.isGroupQuestion(dataType)) return;
+            String parentConceptUUID = formElement.getGroup() == null ? null : formElement.getGroup().getConcept().getUuid();
+            columns.add(new Column(conceptUUID, parentConceptUUID, getCellWriter(formElement, dataType, dateTimeZone)));
+        });
+    }
+
+    void write(ObservationCollection observations, List<Object> row) {
+        for (Column column : columns) {
+            column.write(observations, row);
+        }
+    }
+
+    private static CellWriter getCellWriter(FormElement formElement, String dataType, DateTimeZone dateTimeZone) {
+        if (dataType.equals(ConceptDataType.Coded.toString())) {
+            List<ConceptAnswer> answers = formElement.getConcept().getSortedAnswers().collect(Collectors.toList());
+            return formElement.getType().equals(FormElementType.MultiSelect.toString()) ? multiSelectWriter(answers) : singleSelectWriter(answers);
+        }
+        if (dataType.equals(ConceptDataType.DateTime.toString()) || dataType.equals(ConceptDataType.Date.toString())) {
+            return (value, row) -> row.add(value == null ? "" : new DateTime(String.valueOf(value)).withZone(dateTimeZone));
+        }
+        if (ConceptDataType.isMedia(dataType)) {
+            return (value, row) -> row.add(quoted(String.join(",", (List<String>) (List) toList(value))));
+        }
+        return (value, row) -> row.add(quoted(value == null ? "" : String.valueOf(value)));
+    }
+
+    private static CellWriter singleSelectWriter(List<ConceptAnswer> answers) {
+        Map<String, String> answerNames = new HashMap<>();
+        answers.forEach(answer -> answerNames.putIfAbsent(answer.getAnswerConcept().getUuid(), quoted(answer.getAnswerConcept().getName())));
+        return (value, row) -> row.add(value == null ? "" : answerNames.getOrDefault(value, ""));
+    }
+
+    private static CellWriter multiSelectWriter(List<ConceptAnswer> answers) {
+        Map<String, List<Integer>> answerPositions = new HashMap<>();
+        for (int i = 0; i < answers.size(); i++) {
+            answerPositions.computeIfAbsent(answers.get(i).getAnswerConcept().getUuid(), uuid -> new ArrayList<>()).add(i);
+        }
+        int answerCount = answers.size();
+        return (value, row) -> {
+            Object[] cells = new Object[answerCount];
+            Arrays.fill(cells, unSelectedAnswerFieldValue);
+            for (Object selected : toList(value)) {
+                List<Integer> positions = answerPositions.get(selected);
+                if (positions != null) positions.forEach(position -> cells[position] = selectedAnswerFieldValue);
+            }
+            Collections.addAll(row, cells);
+        };
+    }
+
+    private static List<Object> toList(Object value) {
+        return value == null ?
+                Collections.emptyList() :
+                value instanceof List ? (List<Object>) value : Collections.singletonList(value);
+    }
+
+    private static String quoted(String text) {
+        return text == null || text.isEmpty() ? text : "\"".concat(text).concat("\"");
+    }
+}
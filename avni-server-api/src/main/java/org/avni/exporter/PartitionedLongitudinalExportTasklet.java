@@ -0,0 +1,223 @@
+package org.avni.exporter;
+
+import org.avni.domain.CHSBaseEntity;
+import org.avni.domain.UserContext;
+import org.avni.framework.security.UserContextHolder;
+import org.avni.service.ExportS3Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/**
+ * Exports the selected addresses in partitions, each read in its own transaction (and so its own session) by a fixed
+ * number of workers into a separate file. The files are then merged after the header by the id of the exported
+ * entity, which is the order the rows are read in (see {@link LongitudinalExportTaskletImpl}), so that the file is the
+ * same as when exported without partitions.
+ * <p>
+ * Each partition has a second file with the id and the length of each of its rows, so that the rows can be merged
+ * without parsing them; a row can have line breaks in its values.
+ */
+public class PartitionedLongitudinalExportTasklet implements LongitudinalExportTasklet {
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedLongitudinalExportTasklet.class);
+    private final int cacheClearSize;
+    private final int parallelism;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ExportCSVFieldExtractor exportCSVFieldExtractor;
+    private final ExportProcessor exportProcessor;
+    private final ExportS3Service exportS3Service;
+    private final String jobUuid;
+    private final List<List<Long>> addressPartitions;
+    private final Function<List<Long>, Stream> streamOfAddresses;
+    private final List<File> partitionFiles = new ArrayList<>();
+    private ExecutorService executorService;
+
+    public PartitionedLongitudinalExportTasklet(int cacheClearSize, int parallelism, EntityManager entityManager, PlatformTransactionManager transactionManager, ExportCSVFieldExtractor exportCSVFieldExtractor, ExportProcessor exportProcessor, ExportS3Service exportS3Service, String jobUuid, List<List<Long>> addressPartitions, Function<List<Long>, Stream> streamOfAddresses) {
+        this.cacheClearSize = cacheClearSize;
+        this.parallelism = parallelism;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.exportCSVFieldExtractor = exportCSVFieldExtractor;
+        this.exportProcessor = exportProcessor;
+        this.exportS3Service = exportS3Service;
+        this.jobUuid = jobUuid;
+        this.addressPartitions = addressPartitions;
+        this.streamOfAddresses = streamOfAddresses;
+    }
+
+    private static class Partition {
+        private final File rowsFile;
+        private final File indexFile;
+
+        Partition(File rowsFile, File indexFile) {
+            this.rowsFile = rowsFile;
+            this.indexFile = indexFile;
+        }
+    }
+
+    private static class PartitionReader implements Closeable {
+        private final DataInputStream rows;
+        private final DataInputStream index;
+        private long id;
+        private int length;
+
+        PartitionReader(Partition partition) throws IOException {
+            this.rows = new DataInputStream(new BufferedInputStream(new FileInputStream(partition.rowsFile)));
+            this.index = new DataInputStream(new BufferedInputStream(new FileInputStream(partition.indexFile)));
+        }
+
+        boolean next() throws IOException {
+            try {
+                id = index.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            length = index.readInt();
+            return true;
+        }
+
+        void copyRow(OutputStream outputStream) throws IOException {
+            byte[] row = new byte[length];
+            rows.readFully(row);
+            outputStream.write(row);
+        }
+
+        @Override
+        public void close() throws IOException {
+            rows.close();
+            index.close();
+        }
+    }
+
+    /**
+     * Splits the addresses into about partitionCount partitions of consecutive addresses, so that sibling addresses
+     * (which come together in lineage order) are mostly read by the same worker.
+     */
+    public static List<List<Long>> partition(List<Long> addressIds, int partitionCount) {
+        List<List<Long>> partitions = new ArrayList<>();
+        int partitionSize = Math.max(1, (addressIds.size() + partitionCount - 1) / partitionCount);
+        for (int from = 0; from < addressIds.size(); from += partitionSize) {
+            partitions.add(new ArrayList<>(addressIds.subList(from, Math.min(from + partitionSize, addressIds.size()))));
+        }
+        return partitions;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        UserContext userContext = UserContextHolder.getUserContext();
+        StepExecution stepExecution = chunkContext.getStepContext().getStepExecution();
+        executorService = Executors.newFixedThreadPool(parallelism);
+        List<Future<Partition>> results = new ArrayList<>();
+        for (int i = 0; i < addressPartitions.size(); i++) {
+            Partition partition = new Partition(exportS3Service.getLocalExportFile(format("%s.%d", jobUuid, i)),
+                    exportS3Service.getLocalExportFile(format("%s.%d.index", jobUuid, i)));
+            partitionFiles.add(partition.rowsFile);
+            partitionFiles.add(partition.indexFile);
+            List<Long> addressIds = addressPartitions.get(i);
+            results.add(executorService.submit(() -> exportPartition(stepExecution, userContext, addressIds, partition)));
+        }
+        logger.info(format("Exporting %d partitions with %d workers", addressPartitions.size(), parallelism));
+
+        List<Partition> partitions = new ArrayList<>();
+        for (Future<Partition> result : results) {
+            partitions.add(result.get());
+        }
+        File outputFile = exportS3Service.getLocalExportFile(jobUuid);
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            Writer headerWriter = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            exportCSVFieldExtractor.writeHeader(headerWriter);
+            headerWriter.write(System.lineSeparator());
+            headerWriter.flush();
+            merge(partitions, outputStream);
+        }
+        logger.info(format("Completed writing all partitions to file:%s", outputFile.getAbsolutePath()));
+        return RepeatStatus.FINISHED;
+    }
+
+    private void merge(List<Partition> partitions, OutputStream outputStream) throws IOException {
+        List<PartitionReader> readers = new ArrayList<>();
+        try {
+            PriorityQueue<PartitionReader> pending = new PriorityQueue<>(Comparator.comparingLong(reader -> reader.id));
+            for (Partition partition : partitions) {
+                PartitionReader reader = new PartitionReader(partition);
+                readers.add(reader);
+                if (reader.next()) pending.add(reader);
+            }
+            while (!pending.isEmpty()) {
+                PartitionReader reader = pending.poll();
+                reader.copyRow(outputStream);
+                if (reader.next()) pending.add(reader);
+            }
+        } finally {
+            for (PartitionReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private Partition exportPartition(StepExecution stepExecution, UserContext userContext, List<Long> addressIds, Partition partition) throws IOException {
+        // The extractor and processor are step scoped, the step has to be known in this thread to reach them
+        StepSynchronizationManager.register(stepExecution);
+        UserContextHolder.create(userContext);
+        DelimitedLineAggregator<ExportItemRow> lineAggregator = LongitudinalExportTaskletImpl.createLineAggregator(exportCSVFieldExtractor);
+        try (OutputStream rows = new BufferedOutputStream(new FileOutputStream(partition.rowsFile));
+             DataOutputStream index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(partition.indexFile)))) {
+            transactionTemplate.execute(status -> {
+                try (Stream stream = streamOfAddresses.apply(addressIds)) {
+                    Iterator iterator = stream.iterator();
+                    int read = 0;
+                    while (iterator.hasNext()) {
+                        Object entity = iterator.next();
+                        byte[] row = (lineAggregator.aggregate(exportProcessor.process(entity)) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+                        rows.write(row);
+                        index.writeLong(((CHSBaseEntity) entity).getId());
+                        index.writeInt(row.length);
+                        if (++read == cacheClearSize) {
+                            entityManager.clear();
+                            read = 0;
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+                return null;
+            });
+        } finally {
+            UserContextHolder.clear();
+            StepSynchronizationManager.close();
+        }
+        return partition;
+    }
+
+    @Override
+    public void clean() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+        for (File partitionFile : partitionFiles) {
+            if (partitionFile.exists() && !partitionFile.delete()) {
+                logger.error(format("Could not delete partition file:%s", partitionFile.getAbsolutePath()));
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.avni.framework.cache;
+
+/**
+ * Implemented by caches of data read from entities, so that they are invalidated whenever hibernate saves or deletes
+ * one of these entities (see {@link org.avni.framework.hibernate.UpdateOrganisationHibernateInterceptor})
+ */
+public interface EntityDependentCache extends StatisticsAwareCache {
+    boolean dependsOn(Object entity);
+
+    void invalidate();
+
+    /**
+     * Invalidates what depends on the saved or deleted entity. Caches that cannot tell drop everything.
+     */
+    default void invalidate(Object entity) {
+        invalidate();
+    }
+}
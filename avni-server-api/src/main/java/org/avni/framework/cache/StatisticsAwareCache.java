@@ -0,0 +1,8 @@
+package org.avni.framework.cache;
+
+/**
+ * Implemented by in-process caches so that their effectiveness can be checked at /cache/statistics
+ */
+public interface StatisticsAwareCache {
+    CacheStatistics getStatistics();
+}
@@ -0,0 +1,145 @@
+package org.avni.framework.cache;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Keeps loaded values in process for a time to live, shared by all requests. Nothing is kept when the time to live is
+ * 0. All entries are dropped when it is full, and on {@link #invalidate()}. {@link #invalidate(Predicate)} drops only
+ * the entries with a stale value.
+ * <p>
+ * A value loaded before an invalidation is not kept, so that a request that read the old data while another one was
+ * saving does not cache it after the save.
+ */
+public class TimeToLiveCache<K, V> {
+    private final long timeToLiveMillis;
+    private final int maxEntries;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong partialInvalidations = new AtomicLong();
+    private final CacheStatistics statistics;
+    private final Object pendingInvalidationsKey = new Object();
+
+    public TimeToLiveCache(String name, long timeToLiveSeconds, int maxEntries) {
+        this.statistics = new CacheStatistics(name);
+        this.timeToLiveMillis = timeToLiveSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long generation;
+        private final long loadedAt;
+
+        Entry(V value, long generation, long loadedAt) {
+            this.value = value;
+            this.generation = generation;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    public boolean isEnabled() {
+        return timeToLiveMillis > 0;
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        return get(key, loader, value -> true);
+    }
+
+    /**
+     * @param cacheable whether a loaded value is to be kept, a value that is not is loaded again the next time
+     */
+    public V get(K key, Supplier<V> loader, Predicate<V> cacheable) {
+        long currentGeneration = generation.get();
+        long currentPartialInvalidations = partialInvalidations.get();
+        long now = System.currentTimeMillis();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.generation == currentGeneration && now - entry.loadedAt < timeToLiveMillis) {
+            statistics.hit();
+            return entry.value;
+        }
+        statistics.miss();
+        V value = loader.get();
+        if (isEnabled() && cacheable.test(value) && generation.get() == currentGeneration
+                && partialInvalidations.get() == currentPartialInvalidations) {
+            if (entries.size() >= maxEntries) entries.clear();
+            entries.put(key, new Entry<>(value, currentGeneration, now));
+        }
+        return value;
+    }
+
+    /**
+     * Drops all entries now, and again once the current transaction completes. The second time is needed because a
+     * request that runs before the commit would otherwise cache the old data.
+     */
+    public void invalidate() {
+        invalidateNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !isInvalidatedInCurrentTransaction()) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TimeToLiveCache.this);
+                    invalidateNow();
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the entries with a stale value now, and again once the current transaction completes, same as
+     * {@link #invalidate()}. Values being loaded at the time are not kept, whatever their key.
+     */
+    public void invalidate(Predicate<V> stale) {
+        invalidateNow(stale);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            @SuppressWarnings("unchecked")
+            List<Predicate<V>> pendingInvalidations = (List<Predicate<V>>) TransactionSynchronizationManager.getResource(pendingInvalidationsKey);
+            if (pendingInvalidations == null) {
+                List<Predicate<V>> invalidations = new ArrayList<>();
+                TransactionSynchronizationManager.bindResource(pendingInvalidationsKey, invalidations);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(pendingInvalidationsKey);
+                        invalidations.forEach(TimeToLiveCache.this::invalidateNow);
+                    }
+                });
+                pendingInvalidations = invalidations;
+            }
+            pendingInvalidations.add(stale);
+        }
+    }
+
+    /**
+     * @return whether the current transaction has changed the cached data, which the cache does not see until it
+     * completes
+     */
+    public boolean isInvalidatedInCurrentTransaction() {
+        return TransactionSynchronizationManager.hasResource(this);
+    }
+
+    private void invalidateNow() {
+        generation.incrementAndGet();
+        entries.clear();
+        statistics.invalidated();
+    }
+
+    private void invalidateNow(Predicate<V> stale) {
+        partialInvalidations.incrementAndGet();
+        entries.values().removeIf(entry -> stale.test(entry.value));
+        statistics.invalidated();
+    }
+
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+}
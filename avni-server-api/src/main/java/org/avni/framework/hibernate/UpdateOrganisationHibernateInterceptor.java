@@ -2,32 +2,81 @@ package org.avni.framework.hibernate;
 
 import org.hibernate.CallbackException;
 import org.hibernate.EmptyInterceptor;
+import org.hibernate.collection.spi.PersistentCollection;
 import org.hibernate.type.Type;
 import org.joda.time.DateTime;
 import org.avni.domain.OrganisationAwareEntity;
 import org.avni.domain.User;
 import org.avni.domain.Organisation;
 import org.avni.domain.UserContext;
+import org.avni.framework.ApplicationContextProvider;
+import org.avni.framework.cache.EntityDependentCache;
 import org.avni.framework.security.UserContextHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 
 public class UpdateOrganisationHibernateInterceptor extends EmptyInterceptor {
     private static final Logger logger = LoggerFactory.getLogger(UpdateOrganisationHibernateInterceptor.class.getName());
+    private volatile Collection<EntityDependentCache> caches;
 
     @Override
     public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) throws CallbackException {
+        invalidateCaches(entity);
         return updateOrganisationId(entity, state, propertyNames);
     }
 
     @Override
     public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState, String[] propertyNames, Type[] types) {
         boolean somethingChanged = false;
+        invalidateCaches(entity);
         return updateOrganisationId(entity, currentState, propertyNames) || somethingChanged;
     }
 
+    @Override
+    public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        invalidateCaches(entity);
+    }
+
+    @Override
+    public void onCollectionRecreate(Object collection, Serializable key) throws CallbackException {
+        invalidateCachesOfOwner(collection);
+    }
+
+    @Override
+    public void onCollectionRemove(Object collection, Serializable key) throws CallbackException {
+        invalidateCachesOfOwner(collection);
+    }
+
+    @Override
+    public void onCollectionUpdate(Object collection, Serializable key) throws CallbackException {
+        invalidateCachesOfOwner(collection);
+    }
+
+    // Address levels of a catchment are a collection, changing only them does not always flush the catchment
+    private void invalidateCachesOfOwner(Object collection) {
+        if (collection instanceof PersistentCollection) {
+            invalidateCaches(((PersistentCollection) collection).getOwner());
+        }
+    }
+
+    private void invalidateCaches(Object entity) {
+        for (EntityDependentCache cache : getCaches()) {
+            if (cache.dependsOn(entity)) cache.invalidate(entity);
+        }
+    }
+
+    // Hibernate creates the interceptor, so the caches are looked up from the context the first time they are needed
+    private Collection<EntityDependentCache> getCaches() {
+        if (caches == null) {
+            caches = new ArrayList<>(ApplicationContextProvider.getContext().getBeansOfType(EntityDependentCache.class).values());
+        }
+        return caches;
+    }
+
     private int getIndexOf(String[] propertyNames, String propertyName) {
         for (int i = 0; i < propertyNames.length; i++) {
             if (propertyNames[i].equals(propertyName)) return i;
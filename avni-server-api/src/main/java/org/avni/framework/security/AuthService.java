@@ -31,13 +31,15 @@ public class AuthService {
     private UserRepository userRepository;
     private OrganisationRepository organisationRepository;
     private AccountAdminRepository accountAdminRepository;
+    private UserContextCache userContextCache;
 
     @Autowired
-    public AuthService(IAMAuthService iamAuthService, UserRepository userRepository, OrganisationRepository organisationRepository, AccountAdminRepository accountAdminRepository) {
+    public AuthService(IAMAuthService iamAuthService, UserRepository userRepository, OrganisationRepository organisationRepository, AccountAdminRepository accountAdminRepository, UserContextCache userContextCache) {
         this.iamAuthService = iamAuthService;
         this.userRepository = userRepository;
         this.organisationRepository = organisationRepository;
         this.accountAdminRepository = accountAdminRepository;
+        this.userContextCache = userContextCache;
     }
 
     public UserContext authenticateByUserName(String username, String organisationUUID) {
@@ -47,7 +49,10 @@ public class AuthService {
 
     public UserContext authenticateByToken(String authToken, String organisationUUID) {
         becomeSuperUser();
-        UserContext userContext = changeUser(iamAuthService.getUserFromToken(authToken), organisationUUID);
+        String tokenSubject = iamAuthService.getTokenSubject(authToken);
+        UserContext userContext = tokenSubject == null
+                ? changeUser(iamAuthService.getUserFromToken(authToken), organisationUUID)
+                : changeUser(userContextCache.get(tokenSubject, organisationUUID, () -> resolveUser(iamAuthService.getUserFromToken(authToken), organisationUUID)), organisationUUID);
         userContext.setAuthToken(authToken);
         return userContext;
     }
@@ -61,11 +66,9 @@ public class AuthService {
         throw new RuntimeException(String.format("Not found: User{id='%s'}", userId));
     }
 
-    private Authentication attemptAuthentication(User user, String organisationUUID) {
-        UserContext userContext = new UserContext();
-        UserContextHolder.create(userContext);
+    private UserContextCache.ResolvedUser resolveUser(User user, String organisationUUID) {
         if (user == null) {
-            return null;
+            return new UserContextCache.ResolvedUser(null, null);
         }
         List<AccountAdmin> accountAdmins = accountAdminRepository.findByUser_Id(user.getId());
         user.setAdmin(accountAdmins.size() > 0);
@@ -76,8 +79,17 @@ public class AuthService {
         } else if (user.getOrganisationId() != null) {
             organisation = organisationRepository.findOne(user.getOrganisationId());
         }
-        userContext.setUser(user);
-        userContext.setOrganisation(organisation);
+        return new UserContextCache.ResolvedUser(user, organisation);
+    }
+
+    private Authentication attemptAuthentication(UserContextCache.ResolvedUser resolvedUser, String organisationUUID) {
+        UserContext userContext = new UserContext();
+        UserContextHolder.create(userContext);
+        if (resolvedUser.getUser() == null) {
+            return null;
+        }
+        userContext.setUser(resolvedUser.getUser());
+        userContext.setOrganisation(resolvedUser.getOrganisation());
         userContext.setOrganisationUUID(organisationUUID);
 
         List<SimpleGrantedAuthority> authorities = ALL_AUTHORITIES.stream()
@@ -89,7 +101,11 @@ public class AuthService {
     }
 
     private UserContext changeUser(User user, String organisationUUID) {
-        SecurityContextHolder.getContext().setAuthentication(attemptAuthentication(user, organisationUUID));
+        return changeUser(resolveUser(user, organisationUUID), organisationUUID);
+    }
+
+    private UserContext changeUser(UserContextCache.ResolvedUser resolvedUser, String organisationUUID) {
+        SecurityContextHolder.getContext().setAuthentication(attemptAuthentication(resolvedUser, organisationUUID));
         return UserContextHolder.getUserContext();
     }
 
@@ -0,0 +1,63 @@
+package org.avni.framework.security;
+
+import org.avni.domain.*;
+import org.avni.framework.cache.CacheStatistics;
+import org.avni.framework.cache.EntityDependentCache;
+import org.avni.framework.cache.TimeToLiveCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps the user and organisation resolved for a token subject for a short while, so that the requests of a sync do
+ * not look up the user, account admin and organisation again. Dropped whenever any of these entities is saved (see
+ * {@link org.avni.framework.hibernate.UpdateOrganisationHibernateInterceptor}). The cached entities are detached and
+ * shared between requests, same as the user of a single request they must not be used to load lazy associations.
+ */
+@Component
+public class UserContextCache implements EntityDependentCache {
+    private static final int MAX_ENTRIES = 10000;
+    private final TimeToLiveCache<String, ResolvedUser> cache;
+
+    public UserContextCache(@Value("${avni.cache.userContext.timeToLiveSeconds}") long timeToLiveSeconds) {
+        this.cache = new TimeToLiveCache<>("UserContext", timeToLiveSeconds, MAX_ENTRIES);
+    }
+
+    public static class ResolvedUser {
+        private final User user;
+        private final Organisation organisation;
+
+        public ResolvedUser(User user, Organisation organisation) {
+            this.user = user;
+            this.organisation = organisation;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public Organisation getOrganisation() {
+            return organisation;
+        }
+    }
+
+    @Override
+    public boolean dependsOn(Object entity) {
+        return entity instanceof User || entity instanceof AccountAdmin || entity instanceof Organisation;
+    }
+
+    public ResolvedUser get(String tokenSubject, String organisationUUID, Supplier<ResolvedUser> resolver) {
+        return cache.get(tokenSubject + "/" + organisationUUID, resolver, resolvedUser -> resolvedUser.getUser() != null);
+    }
+
+    @Override
+    public void invalidate() {
+        cache.invalidate();
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return cache.getStatistics();
+    }
+}
@@ -7,48 +7,66 @@ import org.avni.domain.Organisation;
 import org.avni.domain.UserContext;
 import org.avni.framework.security.UserContextHolder;
 
-import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Map;
+import java.util.Objects;
 
-
+/**
+ * Sets the role of the organisation of the current user, and the application name to it, on the connection when it is
+ * checked out of the pool. The role set is remembered on the pooled connection, so consecutive requests of the same
+ * organisation do not set it again; requests without an organisation get both reset.
+ */
 public class SetOrganisationJdbcInterceptor extends JdbcInterceptor {
+    private static final String ROLE_ATTRIBUTE = SetOrganisationJdbcInterceptor.class.getName() + ".role";
+    private static final Object UNKNOWN_ROLE = new Object();
 
     @Override
     public void reset(ConnectionPool connectionPool, PooledConnection pooledConnection) {
-        UserContext userContext = UserContextHolder.getUserContext();
-        if (userContext == null) {
-            return;
-        }
-        Organisation organisation = userContext.getOrganisation();
-        if (userContext.getUser() != null && userContext.getUser().isAdmin() && userContext.getOrganisationUUID() == null) {
+        String dbUser = getDbUser(UserContextHolder.getUserContext());
+        Map<Object, Object> attributes = pooledConnection.getAttributes();
+        if (attributes.containsKey(ROLE_ATTRIBUTE) ? Objects.equals(attributes.get(ROLE_ATTRIBUTE), dbUser) : dbUser == null) {
             return;
         }
-        if (organisation == null) return;
-
-        String dbUser = organisation.getDbUser();
-        if ("".equals(dbUser)) return;
 
         try {
-            Statement statement = pooledConnection.getConnection().createStatement();
-            statement.execute("set role \"" + dbUser + "\";");
-            statement.execute("set application_name to \"" + dbUser + "\";");
+            Connection connection = pooledConnection.getConnection();
+            Statement statement = connection.createStatement();
+            if (dbUser == null) {
+                statement.execute("RESET ROLE");
+                statement.execute("RESET application_name");
+            } else {
+                statement.execute("set role \"" + dbUser + "\";");
+                statement.execute("set application_name to \"" + dbUser + "\";");
+            }
             statement.close();
+            // Within a transaction the role would be undone by a rollback, so it cannot be relied upon next time
+            attributes.put(ROLE_ATTRIBUTE, connection.getAutoCommit() ? dbUser : UNKNOWN_ROLE);
         } catch (SQLException exp) {
+            attributes.put(ROLE_ATTRIBUTE, UNKNOWN_ROLE);
             throw new RuntimeException(exp);
         }
     }
 
-    @Override
-    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-
-        if ("close".equals(method.getName())) {
-            Statement statement = ((Connection) proxy).createStatement();
-            statement.execute("RESET ROLE");
-            statement.close();
+    private String getDbUser(UserContext userContext) {
+        if (userContext == null) {
+            return null;
+        }
+        Organisation organisation = userContext.getOrganisation();
+        if (userContext.getUser() != null && userContext.getUser().isAdmin() && userContext.getOrganisationUUID() == null) {
+            return null;
         }
+        if (organisation == null) return null;
 
-        return super.invoke(proxy, method, args);
+        String dbUser = organisation.getDbUser();
+        if ("".equals(dbUser)) return null;
+        return dbUser;
+    }
+
+    @Override
+    public void disconnected(ConnectionPool parent, PooledConnection con, boolean finalizing) {
+        con.getAttributes().remove(ROLE_ATTRIBUTE);
+        super.disconnected(parent, con, finalizing);
     }
 }
@@ -1,25 +1,36 @@
 package org.avni.importer.batch.csv;
 
 import org.apache.commons.io.IOUtils;
+import org.avni.domain.UserContext;
+import org.avni.framework.security.UserContextHolder;
 import org.avni.importer.batch.csv.writer.CsvFileItemWriter;
 import org.avni.importer.batch.model.Row;
 import org.avni.service.S3Service;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.launch.support.SimpleJobLauncher;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.scope.context.JobSynchronizationManager;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.FlatFileParseException;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
 import org.springframework.batch.item.file.mapping.DefaultLineMapper;
 import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
 import org.springframework.batch.item.file.transform.FlatFileFormatException;
+import org.springframework.batch.item.support.SynchronizedItemStreamReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -31,6 +42,7 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @Configuration
@@ -41,14 +53,23 @@ public class BatchConfiguration {
     private final StepBuilderFactory stepBuilderFactory;
     private final JobRepository jobRepository;
     private final S3Service s3Service;
+    private final int chunkSize;
+    private final int threads;
+    // Rows of these uploads do not depend on the rows before them (unlike locations, whose parents come first), so
+    // their chunks can be written in parallel
+    private static final List<String> PARALLEL_TYPES = Arrays.asList("Subject", "ProgramEnrolment", "ProgramEncounter", "Encounter");
 
     @Autowired
     public BatchConfiguration(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory, JobRepository jobRepository,
-                              @Qualifier("BatchS3Service")  S3Service s3Service) {
+                              @Qualifier("BatchS3Service")  S3Service s3Service,
+                              @Value("${avni.import.chunkSize}") int chunkSize,
+                              @Value("${avni.import.threads}") int threads) {
         this.jobBuilderFactory = jobBuilderFactory;
         this.stepBuilderFactory = stepBuilderFactory;
         this.jobRepository = jobRepository;
         this.s3Service = s3Service;
+        this.chunkSize = chunkSize;
+        this.threads = threads;
     }
 
     @Bean
@@ -69,22 +90,83 @@ public class BatchConfiguration {
     }
 
     @Bean
-    public Job importJob(ErrorFileCreatorListener listener, Step importStep) {
+    public Job importJob(ErrorFileCreatorListener listener, Step importStep, Step parallelImportStep) {
+        JobExecutionDecider importMode = (jobExecution, stepExecution) -> new FlowExecutionStatus(isParallel(jobExecution) ? "PARALLEL" : "SERIAL");
+        Flow importFlow = new FlowBuilder<Flow>("importFlow")
+                .start(importMode)
+                .on("PARALLEL").to(parallelImportStep)
+                .from(importMode).on("*").to(importStep)
+                .end();
         return jobBuilderFactory.get("importJob")
                 .incrementer(new RunIdIncrementer())
                 .listener(listener)
-                .flow(importStep)
+                .start(importFlow)
                 .end()
                 .build();
     }
 
+    private boolean isParallel(JobExecution jobExecution) {
+        String type = jobExecution.getJobParameters().getString("type");
+        return threads > 1 && type != null && PARALLEL_TYPES.contains(type.split("---")[0]);
+    }
+
     @Bean
     public Step importStep(FlatFileItemReader<Row> csvFileItemReader,
                            CsvFileItemWriter csvFileItemWriter,
                            ErrorFileWriterListener errorFileWriterListener) {
-        return stepBuilderFactory.get("importStep")
-                .<Row, Row>chunk(1)
-                .reader(csvFileItemReader)
+        return importStepBuilder("importStep", csvFileItemReader, csvFileItemWriter, errorFileWriterListener).build();
+    }
+
+    /**
+     * Reads the rows in one thread and writes the chunks in several (see {@link #importTaskExecutor()}).
+     */
+    @Bean
+    public Step parallelImportStep(FlatFileItemReader<Row> csvFileItemReader,
+                                   CsvFileItemWriter csvFileItemWriter,
+                                   ErrorFileWriterListener errorFileWriterListener,
+                                   ThreadPoolTaskExecutor importTaskExecutor) {
+        SynchronizedItemStreamReader<Row> synchronizedReader = new SynchronizedItemStreamReader<>();
+        synchronizedReader.setDelegate(csvFileItemReader);
+        return importStepBuilder("parallelImportStep", synchronizedReader, csvFileItemWriter, errorFileWriterListener)
+                .taskExecutor(importTaskExecutor)
+                .throttleLimit(threads)
+                .build();
+    }
+
+    /**
+     * Threads writing the chunks of parallel imports. The job of the step, for the job scoped writer and cache, and
+     * the user of the job, for the organisation of the chunk's transaction, are made known to the writing threads.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(threads);
+        taskExecutor.setMaxPoolSize(threads);
+        taskExecutor.setThreadNamePrefix("import-");
+        taskExecutor.setTaskDecorator(runnable -> {
+            JobExecution jobExecution = JobSynchronizationManager.getContext().getJobExecution();
+            UserContext userContext = UserContextHolder.getUserContext();
+            return () -> {
+                JobSynchronizationManager.register(jobExecution);
+                UserContextHolder.create(userContext);
+                try {
+                    runnable.run();
+                } finally {
+                    UserContextHolder.clear();
+                    JobSynchronizationManager.close();
+                }
+            };
+        });
+        return taskExecutor;
+    }
+
+    private SimpleStepBuilder<Row, Row> importStepBuilder(String name,
+                                                          ItemReader<Row> reader,
+                                                          CsvFileItemWriter csvFileItemWriter,
+                                                          ErrorFileWriterListener errorFileWriterListener) {
+        return stepBuilderFactory.get(name)
+                .<Row, Row>chunk(chunkSize)
+                .reader(reader)
                 .writer(csvFileItemWriter)
                 .faultTolerant()
                 .skip(Exception.class)
@@ -92,8 +174,7 @@ public class BatchConfiguration {
                 .noSkip(FlatFileParseException.class)
                 .noSkip(FlatFileFormatException.class)
                 .skipPolicy((error, count) -> true)
-                .listener(errorFileWriterListener)
-                .build();
+                .listener(errorFileWriterListener);
     }
 
     @Bean
@@ -33,7 +33,7 @@ public class ErrorFileWriterListener {
         appendToErrorFile(item, t);
     }
 
-    public void appendToErrorFile(Row item, Throwable t) {
+    public synchronized void appendToErrorFile(Row item, Throwable t) {
         try {
             String stackTrace = Stream.of(t.getStackTrace())
                     .map(StackTraceElement::toString)
@@ -0,0 +1,98 @@
+package org.avni.importer.batch.csv.creator;
+
+import org.avni.application.projections.LocationProjection;
+import org.avni.dao.AddressLevelTypeRepository;
+import org.avni.dao.LocationRepository;
+import org.avni.domain.AddressLevelType;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Reference data that the writers look up for every row of an upload, read once per import job and shared by the
+ * threads of the job. Only names, ids and projections are kept: entities are loaded again by id in the transaction of
+ * the chunk being written, so that a row never holds an entity of another session.
+ */
+@Component
+@JobScope
+public class ImportReferenceDataCache {
+    private final AddressLevelTypeRepository addressLevelTypeRepository;
+    private final LocationRepository locationRepository;
+    private final Map<String, Optional<Long>> subjectTypeIds = new ConcurrentHashMap<>();
+    private final Map<String, Optional<Long>> genderIds = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> conceptIdsOfHeaders = new ConcurrentHashMap<>();
+    private List<String> locationTypeNames;
+    private Set<String> allLocationTypeNames;
+    private List<LocationProjection> locations;
+    private Map<String, List<LocationProjection>> locationsByTitleAndType;
+
+    public ImportReferenceDataCache(AddressLevelTypeRepository addressLevelTypeRepository, LocationRepository locationRepository) {
+        this.addressLevelTypeRepository = addressLevelTypeRepository;
+        this.locationRepository = locationRepository;
+    }
+
+    /**
+     * Names of the location types that are not voided, from the highest level to the lowest
+     */
+    public synchronized List<String> getLocationTypeNames() {
+        if (locationTypeNames == null) {
+            locationTypeNames = addressLevelTypeRepository.findAllByIsVoidedFalse().stream()
+                    .sorted(Comparator.comparingDouble(AddressLevelType::getLevel).reversed())
+                    .map(AddressLevelType::getName)
+                    .collect(Collectors.toList());
+        }
+        return locationTypeNames;
+    }
+
+    /**
+     * Names of all the location types, including the voided ones
+     */
+    public synchronized Set<String> getAllLocationTypeNames() {
+        if (allLocationTypeNames == null) {
+            allLocationTypeNames = addressLevelTypeRepository.findAll().stream().map(AddressLevelType::getName).collect(Collectors.toSet());
+        }
+        return allLocationTypeNames;
+    }
+
+    public synchronized List<LocationProjection> getLocations() {
+        if (locations == null) {
+            locations = locationRepository.findAllNonVoided();
+            locationsByTitleAndType = locations.stream().collect(Collectors.groupingBy(location -> titleAndType(location.getTitle(), location.getTypeString())));
+        }
+        return locations;
+    }
+
+    /**
+     * Locations not voided with the title (ignoring case) and type name given
+     */
+    public List<LocationProjection> getLocations(String title, String typeName) {
+        getLocations();
+        return locationsByTitleAndType.getOrDefault(titleAndType(title, typeName), Collections.emptyList());
+    }
+
+    private static String titleAndType(String title, String typeName) {
+        return title.toLowerCase() + "\u0000" + typeName;
+    }
+
+    public Long getSubjectTypeId(String name, Function<String, Long> idOfName) {
+        if (name == null) return null;
+        return subjectTypeIds.computeIfAbsent(name.toLowerCase(), key -> Optional.ofNullable(idOfName.apply(name))).orElse(null);
+    }
+
+    public Long getGenderId(String name, Function<String, Long> idOfName) {
+        if (name == null) return null;
+        return genderIds.computeIfAbsent(name.toLowerCase(), key -> Optional.ofNullable(idOfName.apply(name))).orElse(null);
+    }
+
+    /**
+     * Ids of the concepts of the columns of a file, as worked out by conceptIds for the first row of the file
+     */
+    public Set<Long> getConceptIdsOfHeaders(String headersKey, Supplier<Set<Long>> conceptIds) {
+        return conceptIdsOfHeaders.computeIfAbsent(headersKey, key -> conceptIds.get());
+    }
+}
@@ -4,16 +4,15 @@ import org.avni.application.Form;
 import org.avni.application.FormElement;
 import org.avni.application.FormElementType;
 import org.avni.application.FormType;
-import org.avni.dao.AddressLevelTypeRepository;
 import org.avni.dao.ConceptRepository;
 import org.avni.dao.application.FormElementRepository;
 import org.avni.dao.application.FormRepository;
-import org.avni.domain.AddressLevelType;
 import org.avni.domain.Concept;
 import org.avni.domain.ConceptDataType;
 import org.avni.domain.ObservationCollection;
 import org.avni.importer.batch.csv.writer.header.Headers;
 import org.avni.importer.batch.model.Row;
+import org.avni.service.ConceptCache;
 import org.avni.service.IndividualService;
 import org.avni.service.LocationService;
 import org.avni.service.ObservationService;
@@ -43,55 +42,61 @@ public class ObservationCreator {
 
     private static final String PHONE_NUMBER_PATTERN = "^[0-9]{10}";
     private static Logger logger = LoggerFactory.getLogger(ObservationCreator.class);
-    private AddressLevelTypeRepository addressLevelTypeRepository;
     private ConceptRepository conceptRepository;
+    private ConceptCache conceptCache;
     private FormRepository formRepository;
     private ObservationService observationService;
     private S3Service s3Service;
     private IndividualService individualService;
     private LocationService locationService;
     private FormElementRepository formElementRepository;
+    private ImportReferenceDataCache importReferenceDataCache;
 
     @Autowired
-    public ObservationCreator(AddressLevelTypeRepository addressLevelTypeRepository,
-                              ConceptRepository conceptRepository,
+    public ObservationCreator(ConceptRepository conceptRepository,
+                              ConceptCache conceptCache,
                               FormRepository formRepository,
                               ObservationService observationService,
                               S3Service s3Service,
                               IndividualService individualService,
                               LocationService locationService,
-                              FormElementRepository formElementRepository) {
-        this.addressLevelTypeRepository = addressLevelTypeRepository;
+                              FormElementRepository formElementRepository,
+                              ImportReferenceDataCache importReferenceDataCache) {
         this.conceptRepository = conceptRepository;
+        this.conceptCache = conceptCache;
         this.formRepository = formRepository;
         this.observationService = observationService;
         this.s3Service = s3Service;
         this.individualService = individualService;
         this.locationService = locationService;
         this.formElementRepository = formElementRepository;
+        this.importReferenceDataCache = importReferenceDataCache;
     }
 
     public Set<Concept> getConceptHeaders(Headers fixedHeaders, String[] fileHeaders) {
-        List<AddressLevelType> locationTypes = addressLevelTypeRepository.findAll();
-        locationTypes.sort(Comparator.comparingDouble(AddressLevelType::getLevel).reversed());
+        // All the rows of a file have the same headers, the concepts are looked up by name for the first one only
+        String headersKey = fixedHeaders.getClass().getName() + ":" + String.join(",", fileHeaders);
+        Set<Long> conceptIds = importReferenceDataCache.getConceptIdsOfHeaders(headersKey, () -> {
+            Set<String> nonConceptHeaders = Stream.concat(
+                    importReferenceDataCache.getAllLocationTypeNames().stream(),
+                    Stream.of(fixedHeaders.getAllHeaders())).collect(Collectors.toSet());
 
-        Set<String> nonConceptHeaders = Stream.concat(
-                locationTypes.stream().map(AddressLevelType::getName),
-                Stream.of(fixedHeaders.getAllHeaders())).collect(Collectors.toSet());
-
-        return getConceptHeaders(fileHeaders, nonConceptHeaders)
-                .stream()
-                .map(name -> this.findConcept(name, false))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+            return getConceptHeaders(fileHeaders, nonConceptHeaders)
+                    .stream()
+                    .map(name -> this.findConcept(name, false))
+                    .filter(Objects::nonNull)
+                    .map(Concept::getId)
+                    .collect(Collectors.toSet());
+        });
+        return new HashSet<>(conceptRepository.findAllById(conceptIds));
     }
 
     private Concept findConcept(String name, boolean isChildQuestionGroup) {
-        Concept concept = conceptRepository.findByName(name);
+        Concept concept = conceptCache.findByName(name);
         if (concept == null && name.contains("|")) {
             String[] parentChildNameArray = name.split("\\|");
             String questionGroupConceptName = isChildQuestionGroup ? parentChildNameArray[1] : parentChildNameArray[0];
-            concept = conceptRepository.findByName(questionGroupConceptName);
+            concept = conceptCache.findByName(questionGroupConceptName);
         }
         return concept;
     }
@@ -133,8 +138,10 @@ public class ObservationCreator {
 
     private ObservationCollection constructObservations(Row row, Headers headers, List<String> errorMsgs, FormType formType, ObservationCollection oldObservations) throws Exception {
         List<ObservationRequest> observationRequests = new ArrayList<>();
+        List<FormElement> applicableFormElements = null;
         for (Concept concept : getConceptHeaders(headers, row.getHeaders())) {
-            FormElement formElement = getFormElementForObservationConcept(concept, formType);
+            if (applicableFormElements == null) applicableFormElements = getApplicableFormElements(formType);
+            FormElement formElement = getFormElementForObservationConcept(concept, applicableFormElements);
             String rowValue = getRowValue(formElement, row, null);
             if (!isNonEmptyQuestionGroup(formElement, row) && (rowValue == null || rowValue.trim().equals("")))
                 continue;
@@ -205,7 +212,7 @@ public class ObservationCreator {
         }).collect(Collectors.toList());
     }
 
-    private FormElement getFormElementForObservationConcept(Concept concept, FormType formType) throws Exception {
+    private List<FormElement> getApplicableFormElements(FormType formType) throws Exception {
         List<Form> applicableForms = formRepository.findByFormTypeAndIsVoidedFalse(formType);
         if (applicableForms.size() == 0)
             throw new Exception(String.format("No forms of type %s found", formType));
@@ -217,6 +224,11 @@ public class ObservationCreator {
                     return formElements;
                 })
                 .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    private FormElement getFormElementForObservationConcept(Concept concept, List<FormElement> applicableFormElements) throws Exception {
+        return applicableFormElements.stream()
                 .filter(fel -> fel.getConcept().equals(concept))
                 .findFirst()
                 .orElseThrow(() -> new Exception("No form element linked to concept found"));
@@ -1,7 +1,6 @@
 package org.avni.importer.batch.csv.creator;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.avni.application.Form;
 import org.avni.domain.Encounter;
 import org.avni.domain.Individual;
@@ -20,19 +19,26 @@ import org.avni.web.request.rules.RulesContractWrapper.ProgramEncounterContractW
 import org.avni.web.request.rules.RulesContractWrapper.ProgramEnrolmentContractWrapper;
 import org.avni.web.request.rules.constructWrappers.ProgramEncounterConstructionService;
 import org.avni.web.request.rules.constructWrappers.ProgramEnrolmentConstructionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
 public class RuleServerInvoker {
+    private static final Logger logger = LoggerFactory.getLogger(RuleServerInvoker.class);
 
     private RestClient restClient;
     private ProgramEnrolmentConstructionService programEnrolmentConstructionService;
     private ObservationService observationService;
     private ProgramEncounterConstructionService programEncounterConstructionService;
     private EntityApprovalStatusService entityApprovalStatusService;
+    private volatile boolean batchSupported = true;
 
     @Autowired
     public RuleServerInvoker(RestClient restClient,
@@ -47,12 +53,10 @@ public class RuleServerInvoker {
         this.entityApprovalStatusService = entityApprovalStatusService;
     }
 
-    private UploadRuleServerResponseContract invokeRuleServer(Row row, Form form, Object entity, List<String> allErrorMsgs) throws Exception {
-        ObjectMapper mapper = ObjectMapperSingleton.getObjectMapper();
-        mapper.registerModule(new JodaModule());
-        UploadRuleServerRequestContract contract = UploadRuleServerRequestContract.buildRuleServerContract(row, form, entity);
-        String ruleResponse = restClient.post("/api/upload", contract);
-        UploadRuleServerResponseContract uploadRuleServerResponseContract = mapper.readValue(ruleResponse, UploadRuleServerResponseContract.class);
+    /**
+     * Throws the errors of the row together with the errors of its rules, if there are any.
+     */
+    public UploadRuleServerResponseContract checkErrors(UploadRuleServerResponseContract uploadRuleServerResponseContract, List<String> allErrorMsgs) throws Exception {
         allErrorMsgs.addAll(uploadRuleServerResponseContract.getErrors());
         if (allErrorMsgs.size() > 0) {
             throw new Exception(String.join(", ", allErrorMsgs));
@@ -60,29 +64,53 @@ public class RuleServerInvoker {
         return uploadRuleServerResponseContract;
     }
 
-    public UploadRuleServerResponseContract getRuleServerResult(Row row, Form form, Individual individual, List<String> allErrorMsgs) throws Exception {
+    /**
+     * Evaluates the rules of many rows in one call to the rule server, which responds in the order of the requests.
+     * Errors are returned in the responses rather than thrown (see {@link #checkErrors}). Falls back to a call per row
+     * if the rule server does not have the batch endpoint.
+     */
+    public List<UploadRuleServerResponseContract> getRuleServerResults(List<UploadRuleServerRequestContract> contracts) throws Exception {
+        if (batchSupported && contracts.size() > 1) {
+            try {
+                String ruleResponse = restClient.post("/api/upload/batch", contracts);
+                List<UploadRuleServerResponseContract> responses = ObjectMapperSingleton.getObjectMapper().readValue(ruleResponse, new TypeReference<List<UploadRuleServerResponseContract>>() {});
+                if (responses.size() != contracts.size()) {
+                    throw new Exception(String.format("Rule server responded to %d of %d rows", responses.size(), contracts.size()));
+                }
+                return responses;
+            } catch (HttpClientErrorException e) {
+                if (e.getStatusCode() != HttpStatus.NOT_FOUND) throw e;
+                logger.info("Rule server does not support batches, evaluating rules one row at a time");
+                batchSupported = false;
+            }
+        }
+        List<UploadRuleServerResponseContract> responses = new ArrayList<>();
+        for (UploadRuleServerRequestContract contract : contracts) {
+            String ruleResponse = restClient.post("/api/upload", contract);
+            responses.add(ObjectMapperSingleton.getObjectMapper().readValue(ruleResponse, UploadRuleServerResponseContract.class));
+        }
+        return responses;
+    }
+
+    public UploadRuleServerRequestContract getRuleServerRequest(Row row, Form form, Individual individual) {
         IndividualContractWrapper entity = programEnrolmentConstructionService.constructBasicSubject(individual);
-        UploadRuleServerResponseContract ruleResponse = invokeRuleServer(row, form, entity, allErrorMsgs);
-        return ruleResponse;
+        return UploadRuleServerRequestContract.buildRuleServerContract(row, form, entity);
     }
 
-    public UploadRuleServerResponseContract getRuleServerResult(Row row, Form form, ProgramEnrolment programEnrolment, List<String> allErrorMsgs) throws Exception {
+    public UploadRuleServerRequestContract getRuleServerRequest(Row row, Form form, ProgramEnrolment programEnrolment) {
         ProgramEnrolmentContractWrapper entity = programEnrolmentConstructionService.constructProgramEnrolmentContract(programEnrolment);
-        UploadRuleServerResponseContract ruleResponse = invokeRuleServer(row, form, entity, allErrorMsgs);
-        return ruleResponse;
+        return UploadRuleServerRequestContract.buildRuleServerContract(row, form, entity);
     }
 
-    public UploadRuleServerResponseContract getRuleServerResult(Row row, Form form, ProgramEncounter programEncounter, List<String> allErrorMsgs) throws Exception {
+    public UploadRuleServerRequestContract getRuleServerRequest(Row row, Form form, ProgramEncounter programEncounter) {
         ProgramEncounterContractWrapper entity = programEncounterConstructionService.constructProgramEncounterContractWrapper(programEncounter);
         entity.setProgramEnrolment(programEncounterConstructionService.constructEnrolments(programEncounter.getProgramEnrolment(), programEncounter.getUuid()));
-        UploadRuleServerResponseContract ruleResponse = invokeRuleServer(row, form, entity, allErrorMsgs);
-        return ruleResponse;
+        return UploadRuleServerRequestContract.buildRuleServerContract(row, form, entity);
     }
 
-    public UploadRuleServerResponseContract getRuleServerResult(Row row, Form form, Encounter encounter, List<String> allErrorMsgs) throws Exception {
+    public UploadRuleServerRequestContract getRuleServerRequest(Row row, Form form, Encounter encounter) {
         EncounterContractWrapper entity = EncounterContractWrapper.fromEncounter(encounter, observationService, entityApprovalStatusService);
         entity.setSubject(programEnrolmentConstructionService.getSubjectInfo(encounter.getIndividual()));
-        UploadRuleServerResponseContract ruleResponse = invokeRuleServer(row, form, entity, allErrorMsgs);
-        return ruleResponse;
+        return UploadRuleServerRequestContract.buildRuleServerContract(row, form, entity);
     }
 }
@@ -1,29 +1,35 @@
 package org.avni.importer.batch.csv.creator;
 
 import org.avni.dao.OperationalSubjectTypeRepository;
+import org.avni.dao.SubjectTypeRepository;
 import org.avni.domain.OperationalSubjectType;
 import org.avni.domain.SubjectType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-
 @Component
 public class SubjectTypeCreator {
 
     private OperationalSubjectTypeRepository operationalSubjectTypeRepository;
+    private SubjectTypeRepository subjectTypeRepository;
+    private ImportReferenceDataCache importReferenceDataCache;
 
     @Autowired
-    public SubjectTypeCreator(OperationalSubjectTypeRepository operationalSubjectTypeRepository) {
+    public SubjectTypeCreator(OperationalSubjectTypeRepository operationalSubjectTypeRepository, SubjectTypeRepository subjectTypeRepository, ImportReferenceDataCache importReferenceDataCache) {
         this.operationalSubjectTypeRepository = operationalSubjectTypeRepository;
+        this.subjectTypeRepository = subjectTypeRepository;
+        this.importReferenceDataCache = importReferenceDataCache;
     }
 
     public SubjectType getSubjectType(String subjectTypeValue, String header) throws Exception {
-        OperationalSubjectType operationalSubjectType = operationalSubjectTypeRepository.findByNameIgnoreCase(subjectTypeValue);
-        if (operationalSubjectType == null) {
+        Long subjectTypeId = importReferenceDataCache.getSubjectTypeId(subjectTypeValue, name -> {
+            OperationalSubjectType operationalSubjectType = operationalSubjectTypeRepository.findByNameIgnoreCase(name);
+            return operationalSubjectType == null ? null : operationalSubjectType.getSubjectType().getId();
+        });
+        if (subjectTypeId == null) {
             throw new Exception(String.format("'%s' '%s' not found", header, subjectTypeValue));
         }
-        return operationalSubjectType.getSubjectType();
+        return subjectTypeRepository.findById(subjectTypeId).orElseThrow(() -> new Exception(String.format("'%s' '%s' not found", header, subjectTypeValue)));
     }
 
 }
@@ -8,6 +8,7 @@ import org.avni.dao.application.FormMappingRepository;
 import org.avni.domain.Encounter;
 import org.avni.domain.EntityApprovalStatus;
 import org.avni.domain.Individual;
+import org.avni.importer.batch.csv.contract.UploadRuleServerRequestContract;
 import org.avni.importer.batch.csv.contract.UploadRuleServerResponseContract;
 import org.avni.importer.batch.csv.creator.*;
 import org.avni.importer.batch.csv.writer.header.EncounterHeaders;
@@ -68,12 +69,29 @@ public class EncounterWriter implements ItemWriter<Row>, Serializable {
         this.entityApprovalStatusWriter = entityApprovalStatusWriter;
     }
 
+    /**
+     * Reads all the rows of the chunk before evaluating their rules in one call to the rule server.
+     */
     @Override
     public void write(List<? extends Row> rows) throws Exception {
-        for (Row row : rows) write(row);
+        List<PreparedRow<Encounter>> preparedRows = new ArrayList<>();
+        for (Row row : rows) preparedRows.add(prepare(row));
+        if (skipUploadValidations) {
+            for (PreparedRow<Encounter> preparedRow : preparedRows) saveWithoutRules(preparedRow);
+            return;
+        }
+        List<UploadRuleServerRequestContract> ruleRequests = new ArrayList<>();
+        for (PreparedRow<Encounter> preparedRow : preparedRows) {
+            ruleRequests.add(ruleServerInvoker.getRuleServerRequest(preparedRow.row, preparedRow.formMapping.getForm(), preparedRow.entity));
+        }
+        List<UploadRuleServerResponseContract> ruleResponses = ruleServerInvoker.getRuleServerResults(ruleRequests);
+        for (int i = 0; i < preparedRows.size(); i++) {
+            PreparedRow<Encounter> preparedRow = preparedRows.get(i);
+            save(preparedRow, ruleServerInvoker.checkErrors(ruleResponses.get(i), preparedRow.allErrorMsgs));
+        }
     }
 
-    private void write(Row row) throws Exception {
+    private PreparedRow<Encounter> prepare(Row row) throws Exception {
         Encounter encounter = getOrCreateEncounter(row);
 
         List<String> allErrorMsgs = new ArrayList<>();
@@ -86,19 +104,26 @@ public class EncounterWriter implements ItemWriter<Row>, Serializable {
         if (formMapping == null) {
             throw new Exception(String.format("No form found for the encounter type %s", encounter.getEncounterType().getName()));
         }
-        Encounter savedEncounter;
-        if (skipUploadValidations) {
-            encounter.setObservations(observationCreator.getObservations(row, headers, allErrorMsgs, FormType.Encounter, encounter.getObservations()));
-            savedEncounter = encounterService.save(encounter);
-        } else {
-            UploadRuleServerResponseContract ruleResponse = ruleServerInvoker.getRuleServerResult(row, formMapping.getForm(), encounter, allErrorMsgs);
-            encounter.setObservations(observationService.createObservations(ruleResponse.getObservations()));
-            decisionCreator.addEncounterDecisions(encounter.getObservations(), ruleResponse.getDecisions());
-            decisionCreator.addRegistrationDecisions(subject.getObservations(), ruleResponse.getDecisions());
-            savedEncounter = encounterService.save(encounter);
-            individualRepository.save(subject);
-            visitCreator.saveScheduledVisits(formMapping.getType(), subject.getUuid(), null, ruleResponse.getVisitSchedules(), savedEncounter.getUuid());
-        }
+        return new PreparedRow<>(row, encounter, formMapping, allErrorMsgs);
+    }
+
+    private void saveWithoutRules(PreparedRow<Encounter> preparedRow) throws Exception {
+        Encounter encounter = preparedRow.entity;
+        encounter.setObservations(observationCreator.getObservations(preparedRow.row, headers, preparedRow.allErrorMsgs, FormType.Encounter, encounter.getObservations()));
+        Encounter savedEncounter = encounterService.save(encounter);
+        entityApprovalStatusWriter.saveStatus(preparedRow.formMapping, savedEncounter.getId(), EntityApprovalStatus.EntityType.Encounter);
+    }
+
+    private void save(PreparedRow<Encounter> preparedRow, UploadRuleServerResponseContract ruleResponse) {
+        Encounter encounter = preparedRow.entity;
+        Individual subject = encounter.getIndividual();
+        FormMapping formMapping = preparedRow.formMapping;
+        encounter.setObservations(observationService.createObservations(ruleResponse.getObservations()));
+        decisionCreator.addEncounterDecisions(encounter.getObservations(), ruleResponse.getDecisions());
+        decisionCreator.addRegistrationDecisions(subject.getObservations(), ruleResponse.getDecisions());
+        Encounter savedEncounter = encounterService.save(encounter);
+        individualRepository.save(subject);
+        visitCreator.saveScheduledVisits(formMapping.getType(), subject.getUuid(), null, ruleResponse.getVisitSchedules(), savedEncounter.getUuid());
         entityApprovalStatusWriter.saveStatus(formMapping, savedEncounter.getId(), EntityApprovalStatus.EntityType.Encounter);
     }
 
@@ -59,6 +59,9 @@ public class LocationWriter implements ItemWriter<Row> {
 
     @Override
     public void write(List<? extends Row> rows) throws Exception {
+        if (LocationUploadMode.isRelaxedMode(locationUploadMode)) {
+            createMissingLocations(rows);
+        }
         for (Row row : rows) {
             List<String> allErrorMsgs = new ArrayList<>();
             checkIfHeaderHasLocationTypes(this.locationTypeNames, row.getHeaders(), allErrorMsgs);
@@ -106,6 +109,47 @@ public class LocationWriter implements ItemWriter<Row> {
         }
     }
 
+    /**
+     * Creates the locations of the rows that do not exist yet, in one bulk save for all the rows, so that writing each row
+     * then finds all its locations. A location shared by rows, like the district of many villages, is created once.
+     */
+    private void createMissingLocations(List<? extends Row> rows) throws BuilderException {
+        Map<List<String>, LocationContract> newLocations = new LinkedHashMap<>();
+        for (Row row : rows) {
+            AddressLevel parent = null;
+            LocationContract newParent = null;
+            for (String header : row.getHeaders()) {
+                if (!isValidLocation(header, row, this.locationTypeNames)) continue;
+                String title = row.get(header);
+                String parentUuid = newParent != null ? newParent.getUuid() : parent == null ? null : parent.getUuid();
+                List<String> key = Arrays.asList(parentUuid, title.toLowerCase());
+                LocationContract newLocation = newLocations.get(key);
+                if (newLocation == null && newParent == null) {
+                    AddressLevel location = locationRepository.findByParentAndTitleIgnoreCaseAndIsVoidedFalse(parent, title);
+                    if (location != null) {
+                        parent = location;
+                        continue;
+                    }
+                }
+                if (newLocation == null) {
+                    newLocation = new LocationContract();
+                    newLocation.setupUuidIfNeeded();
+                    newLocation.setName(title);
+                    newLocation.setType(header);
+                    newLocation.setLevel(newParent != null ? newParent.getLevel() - 1 : parent == null ? row.getHeaders().length : parent.getLevel() - 1);
+                    if (parentUuid != null) {
+                        newLocation.setParent(new LocationContract(parentUuid));
+                    }
+                    newLocations.put(key, newLocation);
+                }
+                newParent = newLocation;
+            }
+        }
+        if (!newLocations.isEmpty()) {
+            locationService.saveAllInBulk(new ArrayList<>(newLocations.values()));
+        }
+    }
+
     private void updateLocationProperties(Row row, List<String> allErrorMsgs, AddressLevel location, String header) throws Exception {
         location.setGpsCoordinates(locationCreator.getLocation(row, headers.gpsCoordinates, allErrorMsgs));
         location.setLocationProperties(observationCreator.getObservations(row, headers, allErrorMsgs, FormType.Location, location.getLocationProperties()));
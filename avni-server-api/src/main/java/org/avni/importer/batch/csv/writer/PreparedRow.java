@@ -0,0 +1,23 @@
+package org.avni.importer.batch.csv.writer;
+
+import org.avni.application.FormMapping;
+import org.avni.importer.batch.model.Row;
+
+import java.util.List;
+
+/**
+ * A row read into its entity, which is saved once the rules of all the rows of the chunk are evaluated.
+ */
+class PreparedRow<T> {
+    final Row row;
+    final T entity;
+    final FormMapping formMapping;
+    final List<String> allErrorMsgs;
+
+    PreparedRow(Row row, T entity, FormMapping formMapping, List<String> allErrorMsgs) {
+        this.row = row;
+        this.entity = entity;
+        this.formMapping = formMapping;
+        this.allErrorMsgs = allErrorMsgs;
+    }
+}
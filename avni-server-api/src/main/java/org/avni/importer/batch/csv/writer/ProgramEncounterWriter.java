@@ -9,6 +9,7 @@ import org.avni.domain.EntityApprovalStatus;
 import org.avni.domain.ProgramEncounter;
 import org.avni.domain.ProgramEnrolment;
 import org.avni.domain.SubjectType;
+import org.avni.importer.batch.csv.contract.UploadRuleServerRequestContract;
 import org.avni.importer.batch.csv.contract.UploadRuleServerResponseContract;
 import org.avni.importer.batch.csv.creator.*;
 import org.avni.importer.batch.csv.writer.header.ProgramEncounterHeaders;
@@ -72,12 +73,29 @@ public class ProgramEncounterWriter implements ItemWriter<Row>, Serializable {
         this.entityApprovalStatusWriter = entityApprovalStatusWriter;
     }
 
+    /**
+     * Reads all the rows of the chunk before evaluating their rules in one call to the rule server.
+     */
     @Override
     public void write(List<? extends Row> rows) throws Exception {
-        for (Row row : rows) write(row);
+        List<PreparedRow<ProgramEncounter>> preparedRows = new ArrayList<>();
+        for (Row row : rows) preparedRows.add(prepare(row));
+        if (skipUploadValidations) {
+            for (PreparedRow<ProgramEncounter> preparedRow : preparedRows) saveWithoutRules(preparedRow);
+            return;
+        }
+        List<UploadRuleServerRequestContract> ruleRequests = new ArrayList<>();
+        for (PreparedRow<ProgramEncounter> preparedRow : preparedRows) {
+            ruleRequests.add(ruleServerInvoker.getRuleServerRequest(preparedRow.row, preparedRow.formMapping.getForm(), preparedRow.entity));
+        }
+        List<UploadRuleServerResponseContract> ruleResponses = ruleServerInvoker.getRuleServerResults(ruleRequests);
+        for (int i = 0; i < preparedRows.size(); i++) {
+            PreparedRow<ProgramEncounter> preparedRow = preparedRows.get(i);
+            save(preparedRow, ruleServerInvoker.checkErrors(ruleResponses.get(i), preparedRow.allErrorMsgs));
+        }
     }
 
-    private void write(Row row) throws Exception {
+    private PreparedRow<ProgramEncounter> prepare(Row row) throws Exception {
         ProgramEncounter programEncounter = getOrCreateProgramEncounter(row);
         List<String> allErrorMsgs = new ArrayList<>();
         ProgramEnrolment programEnrolment = programEnrolmentCreator.getProgramEnrolment(row.get(headers.enrolmentId), headers.enrolmentId);
@@ -89,19 +107,26 @@ public class ProgramEncounterWriter implements ItemWriter<Row>, Serializable {
         if (formMapping == null) {
             throw new Exception(String.format("No form found for the encounter type %s", programEncounter.getEncounterType().getName()));
         }
-        ProgramEncounter savedEncounter;
-        if (skipUploadValidations) {
-            programEncounter.setObservations(observationCreator.getObservations(row, headers, allErrorMsgs, FormType.ProgramEncounter, programEncounter.getObservations()));
-            savedEncounter = programEncounterService.save(programEncounter);
-        } else {
-            UploadRuleServerResponseContract ruleResponse = ruleServerInvoker.getRuleServerResult(row, formMapping.getForm(), programEncounter, allErrorMsgs);
-            programEncounter.setObservations(observationService.createObservations(ruleResponse.getObservations()));
-            decisionCreator.addEncounterDecisions(programEncounter.getObservations(), ruleResponse.getDecisions());
-            decisionCreator.addEnrolmentDecisions(programEnrolment.getObservations(), ruleResponse.getDecisions());
-            savedEncounter = programEncounterService.save(programEncounter);
-            programEnrolmentRepository.save(programEnrolment);
-            visitCreator.saveScheduledVisits(formMapping.getType(), null, programEnrolment.getUuid(), ruleResponse.getVisitSchedules(), savedEncounter.getUuid());
-        }
+        return new PreparedRow<>(row, programEncounter, formMapping, allErrorMsgs);
+    }
+
+    private void saveWithoutRules(PreparedRow<ProgramEncounter> preparedRow) throws Exception {
+        ProgramEncounter programEncounter = preparedRow.entity;
+        programEncounter.setObservations(observationCreator.getObservations(preparedRow.row, headers, preparedRow.allErrorMsgs, FormType.ProgramEncounter, programEncounter.getObservations()));
+        ProgramEncounter savedEncounter = programEncounterService.save(programEncounter);
+        entityApprovalStatusWriter.saveStatus(preparedRow.formMapping, savedEncounter.getId(), EntityApprovalStatus.EntityType.ProgramEncounter);
+    }
+
+    private void save(PreparedRow<ProgramEncounter> preparedRow, UploadRuleServerResponseContract ruleResponse) throws Exception {
+        ProgramEncounter programEncounter = preparedRow.entity;
+        ProgramEnrolment programEnrolment = programEncounter.getProgramEnrolment();
+        FormMapping formMapping = preparedRow.formMapping;
+        programEncounter.setObservations(observationService.createObservations(ruleResponse.getObservations()));
+        decisionCreator.addEncounterDecisions(programEncounter.getObservations(), ruleResponse.getDecisions());
+        decisionCreator.addEnrolmentDecisions(programEnrolment.getObservations(), ruleResponse.getDecisions());
+        ProgramEncounter savedEncounter = programEncounterService.save(programEncounter);
+        programEnrolmentRepository.save(programEnrolment);
+        visitCreator.saveScheduledVisits(formMapping.getType(), null, programEnrolment.getUuid(), ruleResponse.getVisitSchedules(), savedEncounter.getUuid());
         entityApprovalStatusWriter.saveStatus(formMapping, savedEncounter.getId(), EntityApprovalStatus.EntityType.ProgramEncounter);
     }
 
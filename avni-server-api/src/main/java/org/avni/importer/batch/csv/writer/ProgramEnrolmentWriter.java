@@ -7,6 +7,7 @@ import org.avni.dao.application.FormMappingRepository;
 import org.avni.domain.EntityApprovalStatus;
 import org.avni.domain.Individual;
 import org.avni.domain.ProgramEnrolment;
+import org.avni.importer.batch.csv.contract.UploadRuleServerRequestContract;
 import org.avni.importer.batch.csv.contract.UploadRuleServerResponseContract;
 import org.avni.importer.batch.csv.creator.*;
 import org.avni.importer.batch.csv.writer.header.ProgramEnrolmentHeaders;
@@ -71,12 +72,29 @@ public class ProgramEnrolmentWriter implements ItemWriter<Row>, Serializable {
         this.dateCreator = new DateCreator();
     }
 
+    /**
+     * Reads all the rows of the chunk before evaluating their rules in one call to the rule server.
+     */
     @Override
     public void write(List<? extends Row> rows) throws Exception {
-        for (Row row : rows) write(row);
+        List<PreparedRow<ProgramEnrolment>> preparedRows = new ArrayList<>();
+        for (Row row : rows) preparedRows.add(prepare(row));
+        if (skipUploadValidations) {
+            for (PreparedRow<ProgramEnrolment> preparedRow : preparedRows) saveWithoutRules(preparedRow);
+            return;
+        }
+        List<UploadRuleServerRequestContract> ruleRequests = new ArrayList<>();
+        for (PreparedRow<ProgramEnrolment> preparedRow : preparedRows) {
+            ruleRequests.add(ruleServerInvoker.getRuleServerRequest(preparedRow.row, preparedRow.formMapping.getForm(), preparedRow.entity));
+        }
+        List<UploadRuleServerResponseContract> ruleResponses = ruleServerInvoker.getRuleServerResults(ruleRequests);
+        for (int i = 0; i < preparedRows.size(); i++) {
+            PreparedRow<ProgramEnrolment> preparedRow = preparedRows.get(i);
+            save(preparedRow, ruleServerInvoker.checkErrors(ruleResponses.get(i), preparedRow.allErrorMsgs));
+        }
     }
 
-    private void write(Row row) throws Exception {
+    private PreparedRow<ProgramEnrolment> prepare(Row row) throws Exception {
         ProgramEnrolment programEnrolment = getOrCreateProgramEnrolment(row);
 
         List<String> allErrorMsgs = new ArrayList<>();
@@ -103,17 +121,23 @@ public class ProgramEnrolmentWriter implements ItemWriter<Row>, Serializable {
         if (formMapping == null) {
             throw new Exception(String.format("No form found for the subject type '%s' and program '%s'", individual.getSubjectType().getName(), program.getName()));
         }
-        ProgramEnrolment savedEnrolment;
-        if (skipUploadValidations) {
-            programEnrolment.setObservations(observationCreator.getObservations(row, headers, allErrorMsgs, FormType.ProgramEnrolment, programEnrolment.getObservations()));
-            savedEnrolment = programEnrolmentService.save(programEnrolment);
-        } else {
-            UploadRuleServerResponseContract ruleResponse = ruleServerInvoker.getRuleServerResult(row, formMapping.getForm(), programEnrolment, allErrorMsgs);
-            programEnrolment.setObservations(observationService.createObservations(ruleResponse.getObservations()));
-            decisionCreator.addEnrolmentDecisions(programEnrolment.getObservations(), ruleResponse.getDecisions());
-            savedEnrolment = programEnrolmentService.save(programEnrolment);
-            visitCreator.saveScheduledVisits(formMapping.getType(), null, savedEnrolment.getUuid(), ruleResponse.getVisitSchedules(), null);
-        }
+        return new PreparedRow<>(row, programEnrolment, formMapping, allErrorMsgs);
+    }
+
+    private void saveWithoutRules(PreparedRow<ProgramEnrolment> preparedRow) throws Exception {
+        ProgramEnrolment programEnrolment = preparedRow.entity;
+        programEnrolment.setObservations(observationCreator.getObservations(preparedRow.row, headers, preparedRow.allErrorMsgs, FormType.ProgramEnrolment, programEnrolment.getObservations()));
+        ProgramEnrolment savedEnrolment = programEnrolmentService.save(programEnrolment);
+        entityApprovalStatusWriter.saveStatus(preparedRow.formMapping, savedEnrolment.getId(), EntityApprovalStatus.EntityType.ProgramEnrolment);
+    }
+
+    private void save(PreparedRow<ProgramEnrolment> preparedRow, UploadRuleServerResponseContract ruleResponse) throws Exception {
+        ProgramEnrolment programEnrolment = preparedRow.entity;
+        FormMapping formMapping = preparedRow.formMapping;
+        programEnrolment.setObservations(observationService.createObservations(ruleResponse.getObservations()));
+        decisionCreator.addEnrolmentDecisions(programEnrolment.getObservations(), ruleResponse.getDecisions());
+        ProgramEnrolment savedEnrolment = programEnrolmentService.save(programEnrolment);
+        visitCreator.saveScheduledVisits(formMapping.getType(), null, savedEnrolment.getUuid(), ruleResponse.getVisitSchedules(), null);
         entityApprovalStatusWriter.saveStatus(formMapping, savedEnrolment.getId(), EntityApprovalStatus.EntityType.ProgramEnrolment);
     }
 
@@ -4,12 +4,12 @@ import org.avni.application.FormMapping;
 import org.avni.application.FormType;
 import org.avni.application.Subject;
 import org.avni.application.projections.LocationProjection;
-import org.avni.dao.AddressLevelTypeRepository;
 import org.avni.dao.GenderRepository;
 import org.avni.dao.IndividualRepository;
 import org.avni.dao.LocationRepository;
 import org.avni.dao.application.FormMappingRepository;
 import org.avni.domain.*;
+import org.avni.importer.batch.csv.contract.UploadRuleServerRequestContract;
 import org.avni.importer.batch.csv.contract.UploadRuleServerResponseContract;
 import org.avni.importer.batch.csv.creator.*;
 import org.avni.importer.batch.csv.writer.header.SubjectHeaders;
@@ -24,17 +24,13 @@ import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.function.Supplier;
-import java.util.stream.Stream;
 
 
 @Component
 public class SubjectWriter implements ItemWriter<Row>, Serializable {
 
     private static final SubjectHeaders headers = new SubjectHeaders();
-    private final AddressLevelTypeRepository addressLevelTypeRepository;
     private final LocationRepository locationRepository;
     private final IndividualRepository individualRepository;
     private final GenderRepository genderRepository;
@@ -51,13 +47,13 @@ public class SubjectWriter implements ItemWriter<Row>, Serializable {
     private final AddressLevelService addressLevelService;
     private final S3Service s3Service;
     private final EntityApprovalStatusWriter entityApprovalStatusWriter;
+    private final ImportReferenceDataCache importReferenceDataCache;
 
     @Value("${avni.skipUploadValidations}")
     private boolean skipUploadValidations;
 
     @Autowired
-    public SubjectWriter(AddressLevelTypeRepository addressLevelTypeRepository,
-                         LocationRepository locationRepository,
+    public SubjectWriter(LocationRepository locationRepository,
                          IndividualRepository individualRepository,
                          GenderRepository genderRepository,
                          SubjectTypeCreator subjectTypeCreator,
@@ -68,8 +64,7 @@ public class SubjectWriter implements ItemWriter<Row>, Serializable {
                          VisitCreator visitCreator,
                          DecisionCreator decisionCreator,
                          ObservationCreator observationCreator, IndividualService individualService, EntityApprovalStatusWriter entityApprovalStatusWriter,
-                         AddressLevelService addressLevelService, S3Service s3Service) {
-        this.addressLevelTypeRepository = addressLevelTypeRepository;
+                         AddressLevelService addressLevelService, S3Service s3Service, ImportReferenceDataCache importReferenceDataCache) {
         this.locationRepository = locationRepository;
         this.individualRepository = individualRepository;
         this.genderRepository = genderRepository;
@@ -86,19 +81,32 @@ public class SubjectWriter implements ItemWriter<Row>, Serializable {
         this.entityApprovalStatusWriter = entityApprovalStatusWriter;
         this.locationCreator = new LocationCreator();
         this.s3Service = s3Service;
+        this.importReferenceDataCache = importReferenceDataCache;
     }
 
+    /**
+     * Reads all the rows of the chunk before evaluating their rules in one call to the rule server.
+     */
     @Override
     public void write(List<? extends Row> rows) throws Exception {
-        for (Row row : rows) write(row);
+        List<PreparedRow<Individual>> preparedRows = new ArrayList<>();
+        for (Row row : rows) preparedRows.add(prepare(row));
+        if (skipUploadValidations) {
+            for (PreparedRow<Individual> preparedRow : preparedRows) saveWithoutRules(preparedRow);
+            return;
+        }
+        List<UploadRuleServerRequestContract> ruleRequests = new ArrayList<>();
+        for (PreparedRow<Individual> preparedRow : preparedRows) {
+            ruleRequests.add(ruleServerInvoker.getRuleServerRequest(preparedRow.row, preparedRow.formMapping.getForm(), preparedRow.entity));
+        }
+        List<UploadRuleServerResponseContract> ruleResponses = ruleServerInvoker.getRuleServerResults(ruleRequests);
+        for (int i = 0; i < preparedRows.size(); i++) {
+            PreparedRow<Individual> preparedRow = preparedRows.get(i);
+            save(preparedRow, ruleServerInvoker.checkErrors(ruleResponses.get(i), preparedRow.allErrorMsgs));
+        }
     }
 
-    private void write(Row row) throws Exception {
-        List<AddressLevelType> locationTypes = addressLevelTypeRepository.findAllByIsVoidedFalse();
-        locationTypes.sort(Comparator.comparingDouble(AddressLevelType::getLevel).reversed());
-
-        List<LocationProjection> locations = locationRepository.findAllNonVoided();
-
+    private PreparedRow<Individual> prepare(Row row) throws Exception {
         Individual individual = getOrCreateIndividual(row);
         List<String> allErrorMsgs = new ArrayList<>();
 
@@ -111,7 +119,7 @@ public class SubjectWriter implements ItemWriter<Row>, Serializable {
         individual.setDateOfBirthVerified(row.getBool(headers.dobVerified));
         setRegistrationDate(individual, row, allErrorMsgs);
         individual.setRegistrationLocation(locationCreator.getLocation(row, headers.registrationLocation, allErrorMsgs));
-        setAddressLevel(individual, row, locationTypes, locations, allErrorMsgs);
+        setAddressLevel(individual, row, allErrorMsgs);
         if (individual.getSubjectType().getType().equals(Subject.Person)) setGender(individual, row);
         FormMapping formMapping = formMappingRepository.getRegistrationFormMapping(subjectType);
         individual.setVoided(false);
@@ -119,17 +127,23 @@ public class SubjectWriter implements ItemWriter<Row>, Serializable {
         if (formMapping == null) {
             throw new Exception(String.format("No form found for the subject type %s", subjectType.getName()));
         }
-        Individual savedIndividual;
-        if (skipUploadValidations) {
-            individual.setObservations(observationCreator.getObservations(row, headers, allErrorMsgs, FormType.IndividualProfile, individual.getObservations()));
-            savedIndividual = individualService.save(individual);
-        } else {
-            UploadRuleServerResponseContract ruleResponse = ruleServerInvoker.getRuleServerResult(row, formMapping.getForm(), individual, allErrorMsgs);
-            individual.setObservations(observationService.createObservations(ruleResponse.getObservations()));
-            decisionCreator.addRegistrationDecisions(individual.getObservations(), ruleResponse.getDecisions());
-            savedIndividual = individualService.save(individual);
-            visitCreator.saveScheduledVisits(formMapping.getType(), savedIndividual.getUuid(), null, ruleResponse.getVisitSchedules(), null);
-        }
+        return new PreparedRow<>(row, individual, formMapping, allErrorMsgs);
+    }
+
+    private void saveWithoutRules(PreparedRow<Individual> preparedRow) throws Exception {
+        Individual individual = preparedRow.entity;
+        individual.setObservations(observationCreator.getObservations(preparedRow.row, headers, preparedRow.allErrorMsgs, FormType.IndividualProfile, individual.getObservations()));
+        Individual savedIndividual = individualService.save(individual);
+        entityApprovalStatusWriter.saveStatus(preparedRow.formMapping, savedIndividual.getId(), EntityApprovalStatus.EntityType.Subject);
+    }
+
+    private void save(PreparedRow<Individual> preparedRow, UploadRuleServerResponseContract ruleResponse) throws Exception {
+        Individual individual = preparedRow.entity;
+        FormMapping formMapping = preparedRow.formMapping;
+        individual.setObservations(observationService.createObservations(ruleResponse.getObservations()));
+        decisionCreator.addRegistrationDecisions(individual.getObservations(), ruleResponse.getDecisions());
+        Individual savedIndividual = individualService.save(individual);
+        visitCreator.saveScheduledVisits(formMapping.getType(), savedIndividual.getUuid(), null, ruleResponse.getVisitSchedules(), null);
         entityApprovalStatusWriter.saveStatus(formMapping, savedIndividual.getId(), EntityApprovalStatus.EntityType.Subject);
     }
 
@@ -184,7 +198,11 @@ public class SubjectWriter implements ItemWriter<Row>, Serializable {
     private void setGender(Individual individual, Row row) throws Exception {
         try {
             String genderName = row.get(headers.gender);
-            Gender gender = genderRepository.findByNameIgnoreCase(genderName);
+            Long genderId = importReferenceDataCache.getGenderId(genderName, name -> {
+                Gender gender = genderRepository.findByNameIgnoreCase(name);
+                return gender == null ? null : gender.getId();
+            });
+            Gender gender = genderId == null ? null : genderRepository.findById(genderId).orElse(null);
             if (gender == null) {
                 throw new Exception(String.format("Invalid '%s' - '%s'", headers.gender, genderName));
             }
@@ -196,29 +214,24 @@ public class SubjectWriter implements ItemWriter<Row>, Serializable {
 
     private void setAddressLevel(Individual individual,
                                  Row row,
-                                 List<AddressLevelType> locationTypes,
-                                 List<LocationProjection> locations,
                                  List<String> errorMsgs) {
         try {
             LocationProjection addressLevel;
-            AddressLevelType lowestAddressLevelType = locationTypes.get(locationTypes.size() - 1);
+            List<String> locationTypeNames = importReferenceDataCache.getLocationTypeNames();
+            String lowestAddressLevelTypeName = locationTypeNames.get(locationTypeNames.size() - 1);
 
-            String lowestInputAddressLevel = row.get(lowestAddressLevelType.getName());
+            String lowestInputAddressLevel = row.get(lowestAddressLevelTypeName);
             if (lowestInputAddressLevel == null)
-                throw new Exception(String.format("Missing '%s'", lowestAddressLevelType.getName()));
+                throw new Exception(String.format("Missing '%s'", lowestAddressLevelTypeName));
 
-            Supplier<Stream<LocationProjection>> addressMatches = () ->
-                    locations.stream()
-                            .filter(location ->
-                                    location.getTitle().toLowerCase().equals(lowestInputAddressLevel.toLowerCase()) &&
-                                            location.getTypeString().equals(lowestAddressLevelType.getName()));
+            List<LocationProjection> addressMatches = importReferenceDataCache.getLocations(lowestInputAddressLevel, lowestAddressLevelTypeName);
 
-            if (addressMatches.get().count() > 1) {
+            if (addressMatches.size() > 1) {
                 // filter by lineage if more than one location with same name present
-                addressLevel = getAddressLevelByLineage(row, locationTypes, locations);
+                addressLevel = getAddressLevelByLineage(row, locationTypeNames, importReferenceDataCache.getLocations());
             } else {
                 // exactly 1 or no match
-                addressLevel = addressMatches.get().findFirst().orElseThrow(() -> new Exception("'Address' not found"));
+                addressLevel = addressMatches.stream().findFirst().orElseThrow(() -> new Exception("'Address' not found"));
             }
             individual.setAddressLevel(locationRepository.findByUuid(addressLevel.getUuid()));
         } catch (Exception ex) {
@@ -227,11 +240,11 @@ public class SubjectWriter implements ItemWriter<Row>, Serializable {
     }
 
     private LocationProjection getAddressLevelByLineage(Row row,
-                                                  List<AddressLevelType> locationTypes,
+                                                  List<String> locationTypeNames,
                                                   List<LocationProjection> locations) throws Exception {
         List<String> inputLocations = new ArrayList<>();
-        for (AddressLevelType addressLevelType : locationTypes) {
-            String _location = row.get(addressLevelType.getName());
+        for (String locationTypeName : locationTypeNames) {
+            String _location = row.get(locationTypeName);
             if (_location != null)
                 inputLocations.add(_location);
         }
@@ -197,7 +197,7 @@ public class ZipFileWriter implements ItemWriter<BundleFile> {
                 break;
             case "locations.json":
                 LocationContract[] locationContracts = convertString(fileData, LocationContract[].class);
-                locationService.saveAll(Arrays.asList(locationContracts));
+                locationService.saveAllInBulk(Arrays.asList(locationContracts));
                 break;
             case "catchments.json":
                 CatchmentsContract catchmentsContract = convertString(fileData, CatchmentsContract.class);
@@ -3,13 +3,27 @@ package org.avni.report;
 import org.avni.application.FormMapping;
 import org.avni.domain.Concept;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
 public class AvniReportRepository {
+    // The counts rolled up so far and the changes since, which are not summed into one row per bucket yet
+    private static final String DAILY_ACTIVITY = "(select organisation_id, entity, activity_date, type_id, address_id, user_id, row_count,\n" +
+            "        completed_count, on_time_count, scheduled_done_count, cancelled_count, exited_count\n" +
+            " from daily_activity\n" +
+            " union all\n" +
+            " select organisation_id, entity, activity_date, type_id, address_id, user_id, row_count,\n" +
+            "        completed_count, on_time_count, scheduled_done_count, cancelled_count, exited_count\n" +
+            " from daily_activity_delta)";
 
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final ReportHelper reportHelper;
@@ -39,102 +53,116 @@ public class AvniReportRepository {
         return jdbcTemplate.query(reportHelper.buildQuery(formMapping, queryWithConceptUUID, startDate, endDate, lowestLocationIds), new AggregateReportMapper());
     }
 
-    public List<AggregateReportResult> generateAggregatesForEntityByType(String entity, String operationalType, String operationalTypeIdColumn, String dynamicWhere, String dynamicJoin) {
+    /**
+     * Same counts as {@link #generateAggregatesForCodedConcept} for each of the concepts, from a single scan of the
+     * entities of the form mapping
+     *
+     * @return counts by concept uuid, concepts without any answer or entity are left out
+     */
+    public Map<String, List<AggregateReportResult>> generateAggregatesForCodedConcepts(List<Concept> concepts, FormMapping formMapping, String startDate, String endDate, List<Long> lowestLocationIds) {
+        Map<String, List<AggregateReportResult>> aggregates = new HashMap<>();
+        if (concepts.isEmpty()) return aggregates;
+        String query = "with entity as (\n" +
+                "    select ${obsColumn} as obs\n" +
+                "    from ${dynamicFrom}\n" +
+                "    where ${dynamicWhere}\n" +
+                "),\n" +
+                "     base_result as (\n" +
+                "         select c.concept_uuid,\n" +
+                "                answer.indicator,\n" +
+                "                count(*) as count\n" +
+                "         from entity e\n" +
+                "                  cross join unnest(array[:conceptUUIDs]) c (concept_uuid)\n" +
+                "                  cross join unnest(case\n" +
+                "                                        when jsonb_typeof(e.obs -> c.concept_uuid) = 'array'\n" +
+                "                                            then array(select jsonb_array_elements_text(e.obs -> c.concept_uuid))\n" +
+                "                                        else ARRAY [e.obs ->> c.concept_uuid] end) answer (indicator)\n" +
+                "         group by 1, 2\n" +
+                "     )\n" +
+                "select concept_uuid,\n" +
+                "       coalesce(concept_name(indicator), coalesce(indicator, 'Not answered')) indicator,\n" +
+                "       count\n" +
+                "from base_result";
+        List<String> conceptUUIDs = concepts.stream().map(Concept::getUuid).distinct().collect(Collectors.toList());
+        AggregateReportMapper aggregateReportMapper = new AggregateReportMapper();
+        jdbcTemplate.query(reportHelper.buildQuery(formMapping, query, startDate, endDate, lowestLocationIds),
+                new MapSqlParameterSource("conceptUUIDs", conceptUUIDs),
+                (RowCallbackHandler) rs -> aggregates.computeIfAbsent(rs.getString("concept_uuid"), conceptUUID -> new ArrayList<>())
+                        .add(aggregateReportMapper.mapRow(rs, rs.getRow())));
+        return aggregates;
+    }
+
+    /**
+     * Counts of the entity by its operational type, read from the daily activity counts (see
+     * V1_237__CreateDailyActivity.sql). The dynamic where is on the columns of daily_activity (e) and the operational
+     * type (o).
+     */
+    public List<AggregateReportResult> generateAggregatesForEntityByType(String entity, String operationalType, String operationalTypeIdColumn, String countColumn, String dynamicWhere) {
         String baseQuery = "select o.name as indicator,\n" +
-                "       count(*) as count\n" +
-                "from ${entity} e\n" +
-                "         join ${operational_type} o on e.${operational_type_id} = o.${operational_type_id}\n" +
-                "         ${dynamic_join}\n" +
-                "where e.is_voided = false\n" +
+                "       sum(e.${count_column}) as count\n" +
+                "from " + DAILY_ACTIVITY + " e\n" +
+                "         join ${operational_type} o on e.type_id = o.${operational_type_id}\n" +
+                "where e.entity = '${entity}'\n" +
                 "  and o.is_voided = false\n" +
                 "  ${dynamic_where}\n" +
-                "group by o.name";
+                "group by o.name\n" +
+                "having sum(e.${count_column}) > 0";
         String query = baseQuery
                 .replace("${entity}", entity)
                 .replace("${operational_type}", operationalType)
                 .replace("${operational_type_id}", operationalTypeIdColumn)
-                .replace("${dynamic_where}", dynamicWhere)
-                .replace("${dynamic_join}", dynamicJoin);
+                .replace("${count_column}", countColumn)
+                .replace("${dynamic_where}", dynamicWhere);
         return jdbcTemplate.query(query, new AggregateReportMapper());
     }
 
-    public List<CountForDay> generateDayWiseActivities(String dynamic_individual_where, String dynamic_encounter_where, String dynamic_program_enrolment_where, String dynamic_individual_join, String dynamic_encounter_join, String dynamic_enrolment_encounter_join) {
+    public List<CountForDay> generateDayWiseActivities(String dynamic_individual_where, String dynamic_encounter_where, String dynamic_program_enrolment_where) {
         String baseQuery = "select date for_date, sum(count) activity_count\n" +
-                "from (select registration_date date, count(*) count\n" +
-                "      from individual e\n" +
-                "               join operational_subject_type o on o.subject_type_id = e.subject_type_id\n" +
-                "               ${dynamic_individual_join}\n" +
-                "      where e.is_voided is false\n" +
+                "from (select activity_date date, sum(row_count) count\n" +
+                "      from " + DAILY_ACTIVITY + " e\n" +
+                "               join operational_subject_type o on o.subject_type_id = e.type_id\n" +
+                "      where e.entity = 'individual'\n" +
+                "        and activity_date is not null\n" +
                 "         ${dynamic_individual_where}\n" +
-                "      group by registration_date\n" +
+                "      group by activity_date\n" +
                 "      union all\n" +
-                "      select date(encounter_date_time) date, count(*) count\n" +
-                "      from encounter e\n" +
-                "               join operational_encounter_type o on o.encounter_type_id = e.encounter_type_id\n" +
-                "               ${dynamic_enrolment_encounter_join}\n" +
-                "      where encounter_date_time is not null\n" +
-                "        and e.is_voided is false\n" +
+                "      select activity_date date, sum(row_count) count\n" +
+                "      from " + DAILY_ACTIVITY + " e\n" +
+                "               join operational_encounter_type o on o.encounter_type_id = e.type_id\n" +
+                "      where e.entity in ('encounter', 'program_encounter')\n" +
+                "        and activity_date is not null\n" +
                 "         ${dynamic_encounter_where}\n" +
-                "      group by date(encounter_date_time)\n" +
+                "      group by activity_date\n" +
                 "      union all\n" +
-                "      select date(encounter_date_time) date, count(*) count\n" +
-                "      from program_encounter e\n" +
-                "               join operational_encounter_type o on o.encounter_type_id = e.encounter_type_id\n" +
-                "               ${dynamic_encounter_join}\n" +
-                "      where encounter_date_time is not null\n" +
-                "        and e.is_voided is false\n" +
-                "         ${dynamic_encounter_where}\n" +
-                "      group by date(encounter_date_time)\n" +
-                "      union all\n" +
-                "      select date(enrolment_date_time) date, count(*) count\n" +
-                "      from program_enrolment e\n" +
-                "               join operational_program o on o.program_id = e.program_id\n" +
-                "               ${dynamic_enrolment_encounter_join}\n" +
-                "      where enrolment_date_time is not null\n" +
-                "        and e.is_voided is false\n" +
+                "      select activity_date date, sum(row_count) count\n" +
+                "      from " + DAILY_ACTIVITY + " e\n" +
+                "               join operational_program o on o.program_id = e.type_id\n" +
+                "      where e.entity = 'program_enrolment'\n" +
+                "        and activity_date is not null\n" +
                 "         ${dynamic_program_enrolment_where}\n" +
-                "      group by date(enrolment_date_time)) data\n" +
+                "      group by activity_date) data\n" +
                 "group by for_date\n" +
+                "having sum(count) > 0\n" +
                 "order by for_date";
         String query = baseQuery
                 .replace("${dynamic_individual_where}", dynamic_individual_where)
                 .replace("${dynamic_encounter_where}", dynamic_encounter_where)
-                .replace("${dynamic_program_enrolment_where}", dynamic_program_enrolment_where)
-                .replace("${dynamic_individual_join}", dynamic_individual_join)
-                .replace("${dynamic_encounter_join}", dynamic_encounter_join)
-                .replace("${dynamic_enrolment_encounter_join}", dynamic_enrolment_encounter_join);
+                .replace("${dynamic_program_enrolment_where}", dynamic_program_enrolment_where);
         return jdbcTemplate.query(query, new CountForDayMapper());
     }
 
-    public List<UserActivityResult> generateUserActivityResults(String subjectWhere, String encounterWhere, String enrolmentWhere, String userWhere) {
-        String baseQuery = "with registrations as (\n" +
-                "    select last_modified_by_id, count(*) as registration_count\n" +
-                "    from individual\n" +
-                "    where is_voided = false\n" +
-                "    ${subjectWhere}\n" +
-                "    group by last_modified_by_id\n" +
-                "),\n" +
-                "     encounters as (\n" +
-                "         select last_modified_by_id, count(*) as encounter_count\n" +
-                "         from encounter\n" +
-                "         where is_voided = false\n" +
-                "         ${encounterWhere}\n" +
-                "         group by last_modified_by_id\n" +
-                "     ),\n" +
-                "     enrolments as (\n" +
-                "         select last_modified_by_id, count(*) as enrolment_count\n" +
-                "         from program_enrolment\n" +
-                "         where is_voided = false\n" +
-                "         ${enrolmentWhere}\n" +
-                "         group by last_modified_by_id\n" +
-                "     ),\n" +
-                "     program_encounters as (\n" +
-                "         select last_modified_by_id, count(*) as program_encounter_count\n" +
-                "         from program_encounter\n" +
-                "         where is_voided = false\n" +
-                "         ${encounterWhere}\n" +
-                "         group by last_modified_by_id\n" +
-                "     )\n" +
+    public List<UserActivityResult> generateUserActivityResults(String activityWhere, String userWhere) {
+        String baseQuery = "with activities as (\n" +
+                "    select user_id,\n" +
+                "           sum(row_count) filter ( where entity = 'individual' )        as registration_count,\n" +
+                "           sum(row_count) filter ( where entity = 'encounter' )         as encounter_count,\n" +
+                "           sum(row_count) filter ( where entity = 'program_enrolment' ) as enrolment_count,\n" +
+                "           sum(row_count) filter ( where entity = 'program_encounter' ) as program_encounter_count\n" +
+                "    from " + DAILY_ACTIVITY + " e\n" +
+                "    where user_id notnull\n" +
+                "    ${activityWhere}\n" +
+                "    group by user_id\n" +
+                ")\n" +
                 "select u.id                                              as id,\n" +
                 "       coalesce(u.name, u.username)                      as name,\n" +
                 "       coalesce(registration_count, 0)                   as registration_count,\n" +
@@ -144,10 +172,7 @@ public class AvniReportRepository {
                 "       coalesce(coalesce(registration_count, 0) + coalesce(encounter_count, 0) + coalesce(enrolment_count, 0) +\n" +
                 "                coalesce(program_encounter_count, 0), 0) as total\n" +
                 "from users u\n" +
-                "         left join registrations r on r.last_modified_by_id = u.id\n" +
-                "         left join encounters e on e.last_modified_by_id = u.id\n" +
-                "         left join enrolments enl on enl.last_modified_by_id = u.id\n" +
-                "         left join program_encounters enc on enc.last_modified_by_id = u.id\n" +
+                "         left join activities a on a.user_id = u.id\n" +
                 "where u.is_voided = false and u.organisation_id notnull\n" +
                 "       and coalesce(coalesce(registration_count, 0) + coalesce(encounter_count, 0) + coalesce(enrolment_count, 0) +\n" +
                 "                coalesce(program_encounter_count, 0), 0) > 0\n" +
@@ -155,9 +180,7 @@ public class AvniReportRepository {
                 "order by 7 desc\n" +
                 "limit 10;";
         String query = baseQuery
-                .replace("${subjectWhere}", subjectWhere)
-                .replace("${encounterWhere}", encounterWhere)
-                .replace("${enrolmentWhere}", enrolmentWhere)
+                .replace("${activityWhere}", activityWhere)
                 .replace("${userWhere}", userWhere);
         return jdbcTemplate.query(query, new UserActivityMapper());
     }
@@ -239,29 +262,30 @@ public class AvniReportRepository {
 
     public List<AggregateReportResult> generateCompletedVisitsOnTimeByProportion(String proportionCondition, String encounterWhere, String userWhere) {
         String baseQuery = "with program_enc_data as (\n" +
-                "    select last_modified_by_id,\n" +
-                "           count(*) filter ( where encounter_date_time <= max_visit_date_time )                       visits_done_on_time,\n" +
-                "           count(*) filter ( where encounter_date_time notnull and earliest_visit_date_time notnull ) total_scheduled\n" +
-                "    from program_encounter\n" +
-                "    where is_voided = false\n" +
+                "    select user_id,\n" +
+                "           sum(on_time_count)        visits_done_on_time,\n" +
+                "           sum(scheduled_done_count) total_scheduled\n" +
+                "    from " + DAILY_ACTIVITY + " e\n" +
+                "    where entity = 'program_encounter'\n" +
                 "    ${encounterWhere}\n" +
-                "    group by last_modified_by_id\n" +
+                "    group by user_id\n" +
+                "    having sum(row_count) > 0\n" +
                 "),\n" +
                 "     general_enc_data as (\n" +
-                "         select last_modified_by_id,\n" +
-                "                count(*) filter ( where encounter_date_time <= max_visit_date_time )              visits_done_on_time,\n" +
-                "                count(*)\n" +
-                "                filter ( where encounter_date_time notnull and earliest_visit_date_time notnull ) total_scheduled\n" +
-                "         from encounter\n" +
-                "         where is_voided = false\n" +
+                "         select user_id,\n" +
+                "                sum(on_time_count)        visits_done_on_time,\n" +
+                "                sum(scheduled_done_count) total_scheduled\n" +
+                "         from " + DAILY_ACTIVITY + " e\n" +
+                "         where entity = 'encounter'\n" +
                 "         ${encounterWhere}\n" +
-                "         group by last_modified_by_id\n" +
+                "         group by user_id\n" +
+                "         having sum(row_count) > 0\n" +
                 "     )\n" +
                 "select coalesce(u.name, u.username)                                                as indicator,\n" +
                 "       coalesce(ged.visits_done_on_time, 0) + coalesce(ped.visits_done_on_time, 0) as count\n" +
                 "from users u\n" +
-                "          join general_enc_data ged on ged.last_modified_by_id = u.id\n" +
-                "          join program_enc_data ped on ped.last_modified_by_id = u.id\n" +
+                "          join general_enc_data ged on ged.user_id = u.id\n" +
+                "          join program_enc_data ped on ped.user_id = u.id\n" +
                 "where u.organisation_id notnull\n" +
                 "  and is_voided = false\n" +
                 "  and coalesce(ged.visits_done_on_time, 0) + coalesce(ped.visits_done_on_time, 0) > 0\n" +
@@ -277,26 +301,28 @@ public class AvniReportRepository {
 
     public List<AggregateReportResult> generateUserCancellingMostVisits(String encounterWhere, String userWhere) {
         String baseQuery = "with program_enc_data as (\n" +
-                "    select last_modified_by_id,\n" +
-                "           count(*) filter ( where cancel_date_time notnull ) cancelled_visits\n" +
-                "    from program_encounter\n" +
-                "    where is_voided = false\n" +
+                "    select user_id,\n" +
+                "           sum(cancelled_count) cancelled_visits\n" +
+                "    from " + DAILY_ACTIVITY + " e\n" +
+                "    where entity = 'program_encounter'\n" +
                 "    ${encounterWhere}\n" +
-                "    group by last_modified_by_id\n" +
+                "    group by user_id\n" +
+                "    having sum(row_count) > 0\n" +
                 "),\n" +
                 "     general_enc_data as (\n" +
-                "         select last_modified_by_id,\n" +
-                "                count(*) filter ( where cancel_date_time notnull ) cancelled_visits\n" +
-                "         from encounter\n" +
-                "         where is_voided = false\n" +
+                "         select user_id,\n" +
+                "                sum(cancelled_count) cancelled_visits\n" +
+                "         from " + DAILY_ACTIVITY + " e\n" +
+                "         where entity = 'encounter'\n" +
                 "         ${encounterWhere}\n" +
-                "         group by last_modified_by_id\n" +
+                "         group by user_id\n" +
+                "         having sum(row_count) > 0\n" +
                 "     )\n" +
                 "select coalesce(u.name, u.username)                                          as indicator,\n" +
                 "       coalesce(ged.cancelled_visits, 0) + coalesce(ped.cancelled_visits, 0) as count\n" +
                 "from users u\n" +
-                "          join general_enc_data ged on ged.last_modified_by_id = u.id\n" +
-                "          join program_enc_data ped on ped.last_modified_by_id = u.id\n" +
+                "          join general_enc_data ged on ged.user_id = u.id\n" +
+                "          join program_enc_data ped on ped.user_id = u.id\n" +
                 "where u.organisation_id notnull\n" +
                 "  and is_voided = false\n" +
                 "  and coalesce(ged.cancelled_visits, 0) + coalesce(ped.cancelled_visits, 0) > 0 \n" +
@@ -308,4 +334,8 @@ public class AvniReportRepository {
                 .replace("${userWhere}", userWhere);
         return jdbcTemplate.query(query, new AggregateReportMapper());
     }
+
+    public void rollUpDailyActivity() {
+        jdbcTemplate.getJdbcTemplate().execute("select roll_up_daily_activity()");
+    }
 }
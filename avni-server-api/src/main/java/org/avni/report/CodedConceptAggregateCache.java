@@ -0,0 +1,62 @@
+package org.avni.report;
+
+import org.avni.application.Form;
+import org.avni.application.FormElement;
+import org.avni.application.FormElementGroup;
+import org.avni.application.FormMapping;
+import org.avni.domain.Concept;
+import org.avni.domain.ConceptAnswer;
+import org.avni.framework.cache.CacheStatistics;
+import org.avni.framework.cache.EntityDependentCache;
+import org.avni.framework.cache.TimeToLiveCache;
+import org.avni.framework.security.UserContextHolder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the answer counts of the coded concepts of a form for a while, so that reloading a dashboard with the same
+ * filters does not aggregate the form's entities again. Entries are kept per organisation, since the same form mapping
+ * can be used by the organisations of a group, each seeing its own entities.
+ * <p>
+ * The counts are not dropped when entities are saved, only when the forms or concepts change (see
+ * {@link org.avni.framework.hibernate.UpdateOrganisationHibernateInterceptor}); they expire after the time to live,
+ * which is 0 (no caching) unless configured.
+ */
+@Component
+public class CodedConceptAggregateCache implements EntityDependentCache {
+    private static final int MAX_ENTRIES = 1000;
+    private static final Set<Class<?>> reportMetadataEntityTypes = new HashSet<>(Arrays.asList(Form.class, FormMapping.class,
+            FormElementGroup.class, FormElement.class, Concept.class, ConceptAnswer.class));
+    private final TimeToLiveCache<List<Object>, Map<String, List<AggregateReportResult>>> cache;
+
+    public CodedConceptAggregateCache(@Value("${avni.cache.codedConceptAggregate.timeToLiveSeconds}") long timeToLiveSeconds) {
+        this.cache = new TimeToLiveCache<>("CodedConceptAggregate", timeToLiveSeconds, MAX_ENTRIES);
+    }
+
+    @Override
+    public boolean dependsOn(Object entity) {
+        return entity != null && reportMetadataEntityTypes.stream().anyMatch(type -> type.isInstance(entity));
+    }
+
+    /**
+     * @param locationIds locations as selected in the request, before they are expanded to the lowest ones
+     */
+    public Map<String, List<AggregateReportResult>> get(FormMapping formMapping, String startDate, String endDate, List<Long> locationIds,
+                                                        Supplier<Map<String, List<AggregateReportResult>>> loader) {
+        List<Object> key = Arrays.asList(UserContextHolder.getUserContext().getOrganisationId(), formMapping.getId(), startDate, endDate, new TreeSet<>(locationIds));
+        return cache.get(key, () -> Collections.unmodifiableMap(loader.get()));
+    }
+
+    @Override
+    public void invalidate() {
+        cache.invalidate();
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return cache.getStatistics();
+    }
+}
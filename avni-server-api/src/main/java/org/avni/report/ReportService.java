@@ -3,6 +3,7 @@ package org.avni.report;
 import org.avni.domain.JsonObject;
 import org.avni.util.S;
 import org.joda.time.DateTime;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -19,14 +20,23 @@ public class ReportService {
         this.avniReportRepository = avniReportRepository;
     }
 
+    /**
+     * Sums the daily activity changes appended by the triggers into the daily activity counts, so that the reports do
+     * not have to. Runs without a user, i.e. as the database owner, for all the organisations.
+     */
+    @Scheduled(fixedDelayString = "${avni.dailyActivity.rollUpIntervalMillis}")
+    public void rollUpDailyActivity() {
+        avniReportRepository.rollUpDailyActivity();
+    }
+
 
     public JsonObject allRegistrations(String startDate, String endDate, List<Long> subjectTypeIds, List<Long> lowestLocationIds) {
         List<AggregateReportResult> aggregateReportResults = avniReportRepository.generateAggregatesForEntityByType(
                 "individual",
                 "operational_subject_type",
                 "subject_type_id",
-                getApplicableSubjectWheres(startDate, endDate, subjectTypeIds, lowestLocationIds),
-                getSubjectJoins(lowestLocationIds)
+                "row_count",
+                getApplicableSubjectWheres(startDate, endDate, subjectTypeIds, lowestLocationIds)
         );
         return new JsonObject()
                 .with("total", getTotalCount(aggregateReportResults))
@@ -38,8 +48,8 @@ public class ReportService {
                 "program_enrolment",
                 "operational_program",
                 "program_id",
-                getApplicableEnrolmentWheres(startDate, endDate, programIds, lowestLocationIds),
-                getEnrolmentOrEncounterJoins(lowestLocationIds)
+                "row_count",
+                getApplicableEnrolmentWheres(startDate, endDate, programIds, lowestLocationIds)
         );
         return new JsonObject()
                 .with("total", getTotalCount(aggregateReportResults))
@@ -50,14 +60,14 @@ public class ReportService {
         List<AggregateReportResult> programEncResults = avniReportRepository.generateAggregatesForEntityByType("program_encounter",
                 "operational_encounter_type",
                 "encounter_type_id",
-                "and encounter_date_time notnull and cancel_date_time isnull ".concat(getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds)),
-                getProgramEncounterJoins(lowestLocationIds)
+                "completed_count",
+                getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds)
         );
         List<AggregateReportResult> generalEncResults = avniReportRepository.generateAggregatesForEntityByType("encounter",
                 "operational_encounter_type",
                 "encounter_type_id",
-                "and encounter_date_time notnull and cancel_date_time isnull ".concat(getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds)),
-                getEnrolmentOrEncounterJoins(lowestLocationIds)
+                "completed_count",
+                getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds)
         );
         programEncResults.addAll(generalEncResults);
         return new JsonObject()
@@ -74,10 +84,7 @@ public class ReportService {
         String dynamicSubjectWheres = getApplicableSubjectWheres(startDate, endDate, subjectTypeIds, lowestLocationIds);
         String dynamicEncounterWheres = getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds);
         String dynamicEnrolmentWheres = getApplicableEnrolmentWheres(startDate, endDate, programIds, lowestLocationIds);
-        String subjectJoins = getSubjectJoins(lowestLocationIds);
-        String enrolmentEncounterJoins = getEnrolmentOrEncounterJoins(lowestLocationIds);
-        String programEncounterJoins = getProgramEncounterJoins(lowestLocationIds);
-        List<CountForDay> countsForDay = avniReportRepository.generateDayWiseActivities(dynamicSubjectWheres, dynamicEncounterWheres, dynamicEnrolmentWheres, subjectJoins, programEncounterJoins, enrolmentEncounterJoins);
+        List<CountForDay> countsForDay = avniReportRepository.generateDayWiseActivities(dynamicSubjectWheres, dynamicEncounterWheres, dynamicEnrolmentWheres);
         return new JsonObject()
                 .with("data", countsForDay);
     }
@@ -86,14 +93,14 @@ public class ReportService {
         List<AggregateReportResult> programEncResults = avniReportRepository.generateAggregatesForEntityByType("program_encounter",
                 "operational_encounter_type",
                 "encounter_type_id",
-                "and cancel_date_time notnull ".concat(getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds)),
-                getProgramEncounterJoins(lowestLocationIds)
+                "cancelled_count",
+                getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds)
         );
         List<AggregateReportResult> generalEncResults = avniReportRepository.generateAggregatesForEntityByType("encounter",
                 "operational_encounter_type",
                 "encounter_type_id",
-                "and cancel_date_time notnull ".concat(getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds)),
-                getEnrolmentOrEncounterJoins(lowestLocationIds)
+                "cancelled_count",
+                getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds)
         );
         programEncResults.addAll(generalEncResults);
         return new JsonObject()
@@ -105,14 +112,14 @@ public class ReportService {
         List<AggregateReportResult> programEncResults = avniReportRepository.generateAggregatesForEntityByType("program_encounter",
                 "operational_encounter_type",
                 "encounter_type_id",
-                "and encounter_date_time notnull and max_visit_date_time notnull and encounter_date_time <= max_visit_date_time ".concat(getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds)),
-                getProgramEncounterJoins(lowestLocationIds)
+                "on_time_count",
+                getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds)
         );
         List<AggregateReportResult> generalEncResults = avniReportRepository.generateAggregatesForEntityByType("encounter",
                 "operational_encounter_type",
                 "encounter_type_id",
-                "and encounter_date_time notnull and max_visit_date_time notnull and encounter_date_time <= max_visit_date_time ".concat(getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds)),
-                getEnrolmentOrEncounterJoins(lowestLocationIds)
+                "on_time_count",
+                getApplicableEncounterWheres(startDate, endDate, encounterTypeIds, lowestLocationIds)
         );
         programEncResults.addAll(generalEncResults);
         return new JsonObject()
@@ -125,8 +132,8 @@ public class ReportService {
                 "program_enrolment",
                 "operational_program",
                 "program_id",
-                "and program_exit_date_time notnull ".concat(getApplicableEnrolmentWheres(startDate, endDate, programIds, lowestLocationIds)),
-                getEnrolmentOrEncounterJoins(lowestLocationIds)
+                "exited_count",
+                getApplicableEnrolmentWheres(startDate, endDate, programIds, lowestLocationIds)
         );
         return new JsonObject()
                 .with("total", getTotalCount(aggregateReportResults))
@@ -154,13 +161,13 @@ public class ReportService {
     private String getApplicableSubjectWheres(String startDate, String endDate, List<Long> subjectTypeIds, List<Long> locationIds) {
         Set<String> wheres = new HashSet<>();
         if (startDate != null) {
-            wheres.add(format("and registration_date::date between '%s'::date and '%s'::date", startDate, endDate));
+            wheres.add(format("and e.activity_date between '%s'::date and '%s'::date", startDate, endDate));
         }
         if (!subjectTypeIds.isEmpty()) {
             wheres.add(format("and o.subject_type_id in (%s)", S.joinLongToList(subjectTypeIds)));
         }
         if (!locationIds.isEmpty()) {
-            wheres.add(format("and a.id in (%s)", S.joinLongToList(locationIds)));
+            wheres.add(format("and e.address_id in (%s)", S.joinLongToList(locationIds)));
         }
         return String.join("\n", wheres);
     }
@@ -168,13 +175,13 @@ public class ReportService {
     private String getApplicableEnrolmentWheres(String startDate, String endDate, List<Long> programIds, List<Long> locationIds) {
         Set<String> wheres = new HashSet<>();
         if (startDate != null) {
-            wheres.add(format("and enrolment_date_time::date between '%s'::date and '%s'::date", startDate, endDate));
+            wheres.add(format("and e.activity_date between '%s'::date and '%s'::date", startDate, endDate));
         }
         if (!programIds.isEmpty()) {
             wheres.add(format("and o.program_id in (%s)", S.joinLongToList(programIds)));
         }
         if (!locationIds.isEmpty()) {
-            wheres.add(format("and a.id in (%s)", S.joinLongToList(locationIds)));
+            wheres.add(format("and e.address_id in (%s)", S.joinLongToList(locationIds)));
         }
         return String.join("\n", wheres);
     }
@@ -182,32 +189,15 @@ public class ReportService {
     private String getApplicableEncounterWheres(String startDate, String endDate, List<Long> encounterTypeIds, List<Long> locationIds) {
         Set<String> wheres = new HashSet<>();
         if (startDate != null) {
-            wheres.add(format("and encounter_date_time::date between '%s'::date and '%s'::date", startDate, endDate));
+            wheres.add(format("and e.activity_date between '%s'::date and '%s'::date", startDate, endDate));
         }
         if (!encounterTypeIds.isEmpty()) {
             wheres.add(format("and o.encounter_type_id in (%s)", S.joinLongToList(encounterTypeIds)));
         }
         if (!locationIds.isEmpty()) {
-            wheres.add(format("and a.id in (%s)", S.joinLongToList(locationIds)));
+            wheres.add(format("and e.address_id in (%s)", S.joinLongToList(locationIds)));
         }
         return String.join("\n", wheres);
     }
 
-    private String getSubjectJoins(List<Long> locationIds) {
-        return locationIds.isEmpty() ? "" : "join address_level a on a.id = e.address_id\n";
-    }
-
-    private String getEnrolmentOrEncounterJoins(List<Long> locationIds) {
-        String joinCondition = "join individual i on i.id = e.individual_id\n" +
-                "join address_level a on a.id = i.address_id\n";
-        return locationIds.isEmpty() ? "" : joinCondition;
-    }
-
-    private String getProgramEncounterJoins(List<Long> locationIds) {
-        String joinCondition = "join program_enrolment enl on enl.id = e.program_enrolment_id\n" +
-                "join individual i on i.id = enl.individual_id\n" +
-                "join address_level a on a.id = i.address_id\n";
-        return locationIds.isEmpty() ? "" : joinCondition;
-    }
-
 }
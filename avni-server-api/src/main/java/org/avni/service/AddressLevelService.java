@@ -17,27 +17,14 @@ import java.util.stream.Collectors;
 public class AddressLevelService {
     private final LocationRepository locationRepository;
     private final AddressLevelTypeRepository addressLevelTypeRepository;
-    private ThreadLocal<AddressLevelsForCatchment> addressLevelCache = ThreadLocal.withInitial(AddressLevelsForCatchment::new);
-
-    private class AddressLevelsForCatchment {
-        private Long catchmentId;
-        private List<Long> addressLevelIds;
-
-        public List<Long> getAddressLevelsForCatchment(Catchment catchment) {
-            if (catchment.getId() == catchmentId) return addressLevelIds;
-            this.catchmentId = catchment.getId();
-            this.addressLevelIds = locationRepository.getVirtualCatchmentsForCatchmentId(catchment.getId())
-                    .stream()
-                    .map(VirtualCatchmentProjection::getAddresslevel_id)
-                    .collect(Collectors.toList());
-            return addressLevelIds;
-        }
-    }
+    private final CatchmentAddressLevelCache catchmentAddressLevelCache;
 
     public AddressLevelService(LocationRepository locationRepository,
-                               AddressLevelTypeRepository addressLevelTypeRepository) {
+                               AddressLevelTypeRepository addressLevelTypeRepository,
+                               CatchmentAddressLevelCache catchmentAddressLevelCache) {
         this.locationRepository = locationRepository;
         this.addressLevelTypeRepository = addressLevelTypeRepository;
+        this.catchmentAddressLevelCache = catchmentAddressLevelCache;
     }
 
     public List<AddressLevelContract> getAllLocations() {
@@ -63,7 +50,10 @@ public class AddressLevelService {
     }
 
     public List<Long> getAllAddressLevelIdsForCatchment(Catchment catchment) {
-        return addressLevelCache.get().getAddressLevelsForCatchment(catchment);
+        return catchmentAddressLevelCache.get(catchment, () -> locationRepository.getVirtualCatchmentsForCatchmentId(catchment.getId())
+                .stream()
+                .map(VirtualCatchmentProjection::getAddresslevel_id)
+                .collect(Collectors.toList()));
     }
 
     public String getTitleLineage(AddressLevel location) {
@@ -10,6 +10,9 @@ import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.Verification;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
 import org.avni.dao.UserRepository;
 import org.avni.domain.User;
 import org.avni.framework.context.SpringProfiles;
@@ -19,13 +22,28 @@ import org.springframework.util.StringUtils;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.security.interfaces.RSAPublicKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 public abstract class BaseIAMService implements IAMAuthService {
+    private static final int LEEWAY_SECONDS = 240;
+    private static final int MAX_JWKS = 10;
+    private static final int MAX_VERIFIED_TOKENS = 10000;
     private final Logger logger = LoggerFactory.getLogger(BaseIAMService.class);
     private final UserRepository userRepository;
     protected final SpringProfiles springProfiles;
     private final BaseIAMService alternateIAMService;
+    private volatile JwkProvider jwkProvider;
+    /**
+     * Tokens that have been verified, keyed by their hash, so that the dozens of calls of a sync need one RSA
+     * verification. An entry is used only till the token expires.
+     */
+    private final Cache<String, DecodedJWT> verifiedTokens = CacheBuilder.newBuilder()
+            .maximumSize(MAX_VERIFIED_TOKENS)
+            .expireAfterWrite(1, TimeUnit.DAYS)
+            .build();
 
     protected BaseIAMService(UserRepository userRepository, SpringProfiles springProfiles, BaseIAMService alternateIAMService) {
         this.userRepository = userRepository;
@@ -54,18 +72,63 @@ public abstract class BaseIAMService implements IAMAuthService {
                 : userRepository.findByUuid(userUUID);
     }
 
+    @Override
+    public String getTokenSubject(String token) {
+        if (StringUtils.isEmpty(token)) return null;
+
+        DecodedJWT jwt = verifyAndDecodeToken(token);
+        if (jwt == null) return null;
+
+        String userUUID = getValueInToken(jwt, getUserUuidField());
+        if (!Strings.isNullOrEmpty(userUUID)) return "uuid:" + userUUID;
+        String username = getValueInToken(jwt, getUsernameField());
+        return Strings.isNullOrEmpty(username) ? null : "username:" + username;
+    }
+
     protected abstract String getUserUuidField();
 
     protected abstract String getUsernameField();
 
     private DecodedJWT verifyAndDecodeToken(String token) {
+        String tokenHash = Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+        DecodedJWT verifiedJwt = verifiedTokens.getIfPresent(tokenHash);
+        if (verifiedJwt != null && isUnexpired(verifiedJwt)) {
+            return verifiedJwt;
+        }
+        verifiedTokens.invalidate(tokenHash);
+        verifiedJwt = verify(token);
+        if (verifiedJwt != null && verifiedJwt.getExpiresAt() != null) {
+            verifiedTokens.put(tokenHash, verifiedJwt);
+        }
+        return verifiedJwt;
+    }
+
+    private boolean isUnexpired(DecodedJWT jwt) {
+        Date expiresAt = jwt.getExpiresAt();
+        return expiresAt != null && System.currentTimeMillis() < expiresAt.getTime() + TimeUnit.SECONDS.toMillis(LEEWAY_SECONDS);
+    }
+
+    /**
+     * Keys are cached by key id, so a token signed with a rotated key fetches the key set again.
+     */
+    private JwkProvider getJwkProvider() throws MalformedURLException {
+        if (jwkProvider == null) {
+            synchronized (this) {
+                if (jwkProvider == null) {
+                    jwkProvider = new GuavaCachedJwkProvider(new UrlJwkProvider(new URL(getJwkProviderUrl())), MAX_JWKS, 24, TimeUnit.HOURS);
+                }
+            }
+        }
+        return jwkProvider;
+    }
+
+    private DecodedJWT verify(String token) {
         try {
             DecodedJWT unverifiedJwt = JWT.decode(token);
 
             Jwk jwk;
             try {
-                JwkProvider provider = new GuavaCachedJwkProvider(new UrlJwkProvider(new URL(getJwkProviderUrl())));
-                jwk = provider.get(unverifiedJwt.getKeyId());
+                jwk = getJwkProvider().get(unverifiedJwt.getKeyId());
             } catch (SigningKeyNotFoundException e) {
                 if (springProfiles.isStaging() && alternateIAMService != null) {
                     logger.info("Signing key not found with Cognito. Trying with Keycloak as it is staging profile.", e);
@@ -78,7 +141,7 @@ public abstract class BaseIAMService implements IAMAuthService {
             Verification verification = JWT.require(algorithm)
                     .withIssuer(getIssuer())
                     .withAudience(getAudience())
-                    .acceptLeeway(240);
+                    .acceptLeeway(LEEWAY_SECONDS);
             addClaim(verification);
             JWTVerifier verifier = verification.build();
             logger.debug(String.format("Verifying token for issuer: %s, token_use: id and audience: %s", this.getIssuer(), getAudience()));
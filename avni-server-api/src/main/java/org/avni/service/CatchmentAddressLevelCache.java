@@ -0,0 +1,51 @@
+package org.avni.service;
+
+import org.avni.domain.AddressLevel;
+import org.avni.domain.Catchment;
+import org.avni.domain.ParentLocationMapping;
+import org.avni.framework.cache.CacheStatistics;
+import org.avni.framework.cache.EntityDependentCache;
+import org.avni.framework.cache.TimeToLiveCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the address levels of each catchment, shared by all requests, since every scope aware sync call needs them.
+ * An entry is used only for the same last modified time of the catchment. All the entries are dropped whenever a
+ * catchment or a location is saved (see {@link org.avni.framework.hibernate.UpdateOrganisationHibernateInterceptor}),
+ * and expire after a while to pick up changes made by other server instances or outside hibernate.
+ */
+@Component
+public class CatchmentAddressLevelCache implements EntityDependentCache {
+    private static final int MAX_ENTRIES = 10000;
+    private final TimeToLiveCache<List<Long>, List<Long>> cache;
+
+    public CatchmentAddressLevelCache(@Value("${avni.cache.catchmentAddressLevel.timeToLiveSeconds}") long timeToLiveSeconds) {
+        this.cache = new TimeToLiveCache<>("CatchmentAddressLevel", timeToLiveSeconds, MAX_ENTRIES);
+    }
+
+    @Override
+    public boolean dependsOn(Object entity) {
+        return entity instanceof Catchment || entity instanceof AddressLevel || entity instanceof ParentLocationMapping;
+    }
+
+    public List<Long> get(Catchment catchment, Supplier<List<Long>> loader) {
+        long catchmentLastModified = catchment.getLastModifiedDateTime() == null ? 0 : catchment.getLastModifiedDateTime().getMillis();
+        return cache.get(Arrays.asList(catchment.getId(), catchmentLastModified), () -> Collections.unmodifiableList(loader.get()));
+    }
+
+    @Override
+    public void invalidate() {
+        cache.invalidate();
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return cache.getStatistics();
+    }
+}
@@ -0,0 +1,128 @@
+package org.avni.service;
+
+import org.avni.dao.ConceptRepository;
+import org.avni.domain.Concept;
+import org.avni.domain.ConceptAnswer;
+import org.avni.domain.UserContext;
+import org.avni.framework.cache.CacheStatistics;
+import org.avni.framework.cache.EntityDependentCache;
+import org.avni.framework.cache.TimeToLiveCache;
+import org.avni.framework.security.UserContextHolder;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the concepts of each organisation, with their answers, by uuid and by name, so that creating the observations
+ * of an entity does not query every concept and answer it refers to. The catalogue of an organisation is read in one
+ * query, on the connection of the request's transaction but outside its persistence context.
+ * <p>
+ * The concepts returned from the catalogue are detached and shared by all requests, so they are only to be read, never
+ * changed or associated with an entity being saved. Concepts not in the catalogue are read from the repository. The
+ * catalogues are dropped whenever a concept or an answer is saved (see
+ * {@link org.avni.framework.hibernate.UpdateOrganisationHibernateInterceptor}), and the transaction saving it reads
+ * from the repository until it completes. They expire after a while to pick up changes made by other server instances.
+ */
+@Component
+public class ConceptCache implements EntityDependentCache {
+    private static final int MAX_ENTRIES = 100;
+    private final ConceptRepository conceptRepository;
+    private final EntityManager entityManager;
+    private final TimeToLiveCache<Long, Catalogue> catalogues;
+
+    @Autowired
+    public ConceptCache(ConceptRepository conceptRepository, EntityManager entityManager,
+                        @Value("${avni.cache.conceptCatalogue.timeToLiveSeconds}") long timeToLiveSeconds) {
+        this.conceptRepository = conceptRepository;
+        this.entityManager = entityManager;
+        this.catalogues = new TimeToLiveCache<>("ConceptCatalogue", timeToLiveSeconds, MAX_ENTRIES);
+    }
+
+    private static class Catalogue {
+        private final Map<String, Concept> byUuid = new HashMap<>();
+        private final Map<String, Concept> byName = new HashMap<>();
+
+        Catalogue(List<Concept> concepts) {
+            for (Concept concept : concepts) {
+                byUuid.put(concept.getUuid(), concept);
+                Concept sameName = byName.get(concept.getName());
+                if (sameName == null || sameName.isVoided()) byName.put(concept.getName(), concept);
+            }
+        }
+    }
+
+    @Override
+    public boolean dependsOn(Object entity) {
+        return entity instanceof Concept || entity instanceof ConceptAnswer;
+    }
+
+    public Concept findByUuid(String uuid) {
+        Catalogue catalogue = getCatalogue();
+        Concept concept = catalogue == null ? null : catalogue.byUuid.get(uuid);
+        return concept == null ? conceptRepository.findByUuid(uuid) : concept;
+    }
+
+    public Concept findByName(String name) {
+        Catalogue catalogue = getCatalogue();
+        Concept concept = catalogue == null ? null : catalogue.byName.get(name);
+        return concept == null ? conceptRepository.findByName(name) : concept;
+    }
+
+    /**
+     * Names of the concepts among the uuids, leaving out those not in the catalogue, or null when the catalogue is not
+     * used
+     */
+    public Map<String, String> findNamesByUuid(Collection<String> uuids) {
+        Catalogue catalogue = getCatalogue();
+        if (catalogue == null) return null;
+        Map<String, String> names = new HashMap<>();
+        uuids.forEach(uuid -> {
+            Concept concept = catalogue.byUuid.get(uuid);
+            if (concept != null) names.put(uuid, concept.getName());
+        });
+        return names;
+    }
+
+    private Catalogue getCatalogue() {
+        if (!catalogues.isEnabled() || catalogues.isInvalidatedInCurrentTransaction()) return null;
+        UserContext userContext = UserContextHolder.getUserContext();
+        if (userContext == null || userContext.getOrganisationId() == null) return null;
+        return catalogues.get(userContext.getOrganisationId(), this::loadCatalogue, Objects::nonNull);
+    }
+
+    /**
+     * Reads the concepts with their answers and answer concepts in a session of their own that shares the connection
+     * and transaction of the request, so that no other connection is taken from the pool. The session is closed after,
+     * so that the concepts are detached with everything the observations need already loaded. Outside a transaction
+     * there is no connection to share, and nothing is read.
+     */
+    private Catalogue loadCatalogue() {
+        if (!entityManager.isJoinedToTransaction()) return null;
+        Session session = entityManager.unwrap(Session.class).sessionWithOptions().connection().openSession();
+        try {
+            return new Catalogue(session.createQuery("select distinct c from Concept c " +
+                    "left join fetch c.conceptAnswers ca " +
+                    "left join fetch ca.answerConcept", Concept.class).getResultList());
+        } finally {
+            session.close();
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        catalogues.invalidate();
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return catalogues.getStatistics();
+    }
+}
@@ -31,21 +31,25 @@ import javax.validation.constraints.NotNull;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
 @Service
 public class ConceptService implements NonScopeAwareService {
+    private static final int LOAD_CHUNK_SIZE = 1000;
     private final Logger logger;
     private ConceptRepository conceptRepository;
     private ConceptAnswerRepository conceptAnswerRepository;
     private OrganisationRepository organisationRepository;
     private FormElementRepository formElementRepository;
     private AnswerConceptMigrationRepository answerConceptMigrationRepository;
+    private ConceptCache conceptCache;
 
     @Autowired
-    public ConceptService(ConceptRepository conceptRepository, ConceptAnswerRepository conceptAnswerRepository, OrganisationRepository organisationRepository, UserService userService, FormElementRepository formElementRepository, AnswerConceptMigrationRepository answerConceptMigrationRepository) {
+    public ConceptService(ConceptRepository conceptRepository, ConceptAnswerRepository conceptAnswerRepository, OrganisationRepository organisationRepository, UserService userService, FormElementRepository formElementRepository, AnswerConceptMigrationRepository answerConceptMigrationRepository, ConceptCache conceptCache) {
         this.formElementRepository = formElementRepository;
+        this.conceptCache = conceptCache;
         this.answerConceptMigrationRepository = answerConceptMigrationRepository;
         logger = LoggerFactory.getLogger(this.getClass());
         this.conceptRepository = conceptRepository;
@@ -63,8 +67,59 @@ public class ConceptService implements NonScopeAwareService {
         return jsonMap;
     }
 
-    private Concept fetchOrCreateConcept(String uuid) {
-        Concept concept = conceptRepository.findByUuid(uuid);
+    /**
+     * Concepts of the requests being saved, and of their answers, read up front and kept by uuid and by name, so that
+     * saving a concept does not look up the concept, its answers and its name one query at a time. The organisations of
+     * the requests are kept too, as they are looked up.
+     */
+    private static class ConceptIndex {
+        private final Map<String, Concept> byUuid = new HashMap<>();
+        private final Map<String, Concept> byName = new HashMap<>();
+        private final Map<String, Organisation> organisationsByUuid = new HashMap<>();
+
+        void add(Concept concept) {
+            byUuid.put(concept.getUuid(), concept);
+            if (concept.getName() != null) byName.put(concept.getName(), concept);
+        }
+
+        Concept findByUuid(String uuid) {
+            return byUuid.get(uuid);
+        }
+
+        Concept findByName(String name) {
+            Concept concept = byName.get(name);
+            return concept != null && name.equals(concept.getName()) ? concept : null;
+        }
+
+        Organisation findOrganisation(String uuid, Function<String, Organisation> findByUuid) {
+            return organisationsByUuid.computeIfAbsent(uuid, findByUuid);
+        }
+    }
+
+    private ConceptIndex loadConcepts(List<ConceptContract> conceptRequests) {
+        Set<String> uuids = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (ConceptContract conceptRequest : conceptRequests) {
+            if (conceptRequest.getUuid() != null) uuids.add(conceptRequest.getUuid());
+            if (conceptRequest.getName() != null) names.add(conceptRequest.getName());
+            if (conceptRequest.getAnswers() != null) {
+                conceptRequest.getAnswers().stream().map(ConceptContract::getUuid).filter(Objects::nonNull).forEach(uuids::add);
+            }
+        }
+        ConceptIndex concepts = new ConceptIndex();
+        List<String> uuidList = new ArrayList<>(uuids);
+        for (int start = 0; start < uuidList.size(); start += LOAD_CHUNK_SIZE) {
+            conceptRepository.findAllWithAnswersByUuidIn(uuidList.subList(start, Math.min(start + LOAD_CHUNK_SIZE, uuidList.size()))).forEach(concepts::add);
+        }
+        List<String> nameList = new ArrayList<>(names);
+        for (int start = 0; start < nameList.size(); start += LOAD_CHUNK_SIZE) {
+            conceptRepository.getAllConceptByNameIn(nameList.subList(start, Math.min(start + LOAD_CHUNK_SIZE, nameList.size()))).forEach(concepts::add);
+        }
+        return concepts;
+    }
+
+    private Concept fetchOrCreateConcept(String uuid, ConceptIndex concepts) {
+        Concept concept = concepts.findByUuid(uuid);
         if (concept == null) {
             concept = createConcept(uuid);
         }
@@ -77,12 +132,12 @@ public class ConceptService implements NonScopeAwareService {
         return concept;
     }
 
-    private boolean conceptExistsWithSameNameAndDifferentUUID(ConceptContract conceptRequest) {
-        Concept concept = conceptRepository.findByName(conceptRequest.getName());
+    private boolean conceptExistsWithSameNameAndDifferentUUID(ConceptContract conceptRequest, ConceptIndex concepts) {
+        Concept concept = concepts.findByName(conceptRequest.getName());
         return concept != null && !concept.getUuid().equals(conceptRequest.getUuid());
     }
 
-    private ConceptAnswer fetchOrCreateConceptAnswer(Concept concept, ConceptContract answerConceptRequest, double answerOrder) throws AnswerConceptNotFoundException {
+    private ConceptAnswer fetchOrCreateConceptAnswer(Concept concept, ConceptContract answerConceptRequest, double answerOrder, ConceptIndex concepts) throws AnswerConceptNotFoundException {
         if (StringUtils.isEmpty(answerConceptRequest.getUuid())) {
             throw new ValidationException("UUID missing for answer");
         }
@@ -92,13 +147,13 @@ public class ConceptService implements NonScopeAwareService {
             conceptAnswer = new ConceptAnswer();
             conceptAnswer.assignUUID();
         }
-        Concept answerConcept = conceptRepository.findByUuid(answerConceptRequest.getUuid());
+        Concept answerConcept = concepts.findByUuid(answerConceptRequest.getUuid());
         if (answerConcept == null) {
             String message = String.format("Answer concept not found for UUID:%s", answerConceptRequest.getUuid());
             logger.error(message);
             throw new AnswerConceptNotFoundException(message);
         }
-        updateOrganisationIfNeeded(conceptAnswer, answerConceptRequest);
+        updateOrganisationIfNeeded(conceptAnswer, answerConceptRequest, concepts);
         if (!conceptAnswer.editableBy(organisation.getId())) {
             return conceptAnswer;
         }
@@ -112,12 +167,12 @@ public class ConceptService implements NonScopeAwareService {
         return conceptAnswer;
     }
 
-    private Concept createCodedConcept(Concept concept, ConceptContract conceptRequest) throws AnswerConceptNotFoundException {
+    private Concept createCodedConcept(Concept concept, ConceptContract conceptRequest, ConceptIndex concepts) throws AnswerConceptNotFoundException {
         List<ConceptContract> answers = (List<ConceptContract>) O.coalesce(conceptRequest.getAnswers(), new ArrayList<>());
         AtomicInteger index = new AtomicInteger(0);
         List<ConceptAnswer> conceptAnswers = new ArrayList<>();
         for (ConceptContract answerContract : answers) {
-            ConceptAnswer conceptAnswer = fetchOrCreateConceptAnswer(concept, answerContract, (short) index.incrementAndGet());
+            ConceptAnswer conceptAnswer = fetchOrCreateConceptAnswer(concept, answerContract, (short) index.incrementAndGet(), concepts);
             conceptAnswers.add(conceptAnswer);
         }
         concept.addAll(conceptAnswers);
@@ -140,8 +195,8 @@ public class ConceptService implements NonScopeAwareService {
         return conceptContract.getDataType();
     }
 
-    private Concept map(@NotNull ConceptContract conceptRequest) throws AnswerConceptNotFoundException {
-        Concept concept = fetchOrCreateConcept(conceptRequest.getUuid());
+    private Concept map(@NotNull ConceptContract conceptRequest, ConceptIndex concepts) throws AnswerConceptNotFoundException {
+        Concept concept = fetchOrCreateConcept(conceptRequest.getUuid(), concepts);
 
         concept.setName(conceptRequest.getName() != null ? conceptRequest.getName() : concept.getName());
         String impliedDataType = getImpliedDataType(conceptRequest, concept);
@@ -149,11 +204,11 @@ public class ConceptService implements NonScopeAwareService {
         concept.setVoided(conceptRequest.isVoided());
         concept.setActive(conceptRequest.getActive());
         concept.setKeyValues(conceptRequest.getKeyValues());
-        updateOrganisationIfNeeded(concept, conceptRequest);
+        updateOrganisationIfNeeded(concept, conceptRequest, concepts);
         concept.updateAudit();
         switch (ConceptDataType.valueOf(impliedDataType)) {
             case Coded:
-                concept = createCodedConcept(concept, conceptRequest);
+                concept = createCodedConcept(concept, conceptRequest, concepts);
                 break;
             case Numeric:
                 concept = createNumericConcept(concept, conceptRequest);
@@ -162,9 +217,9 @@ public class ConceptService implements NonScopeAwareService {
         return concept;
     }
 
-    private <OAE extends OrganisationAwareEntity> OAE updateOrganisationIfNeeded(@NotNull OAE entity, @NotNull ConceptContract conceptRequest) {
+    private <OAE extends OrganisationAwareEntity> OAE updateOrganisationIfNeeded(@NotNull OAE entity, @NotNull ConceptContract conceptRequest, ConceptIndex concepts) {
         String organisationUuid = conceptRequest.getOrganisationUUID();
-        Organisation organisation = organisationRepository.findByUuid(organisationUuid);
+        Organisation organisation = organisationUuid == null ? null : concepts.findOrganisation(organisationUuid, organisationRepository::findByUuid);
         if (organisationUuid != null && organisation == null) {
             throw new RuntimeException(String.format("Organisation not found with uuid :'%s'", organisationUuid));
         }
@@ -174,63 +229,89 @@ public class ConceptService implements NonScopeAwareService {
         return entity;
     }
 
-    private Concept saveOrUpdate(ConceptContract conceptRequest) throws AnswerConceptNotFoundException {
-        if (conceptRequest == null) return null;
-        if (conceptExistsWithSameNameAndDifferentUUID(conceptRequest)) {
+    private Concept saveOrUpdate(ConceptContract conceptRequest, ConceptIndex concepts) throws AnswerConceptNotFoundException {
+        if (conceptExistsWithSameNameAndDifferentUUID(conceptRequest, concepts)) {
             throw new BadRequestError(String.format("Concept %s exists with different uuid", conceptRequest.getName()));
         }
         logger.info(String.format("Creating concept: %s", conceptRequest.toString()));
 
-        addToMigrationIfRequired(conceptRequest);
-        Concept concept = map(conceptRequest);
-        return conceptRepository.save(concept);
+        Concept concept = conceptRepository.save(map(conceptRequest, concepts));
+        concepts.add(concept);
+        return concept;
     }
 
-    private void addToMigrationIfRequired(ConceptContract conceptRequest) {
-        Concept concept = conceptRepository.findByUuid(conceptRequest.getUuid());
-        boolean isNa = conceptRequest.getDataType() == null || conceptRequest.getDataType().equals(ConceptDataType.NA.name());
-        if ( isNa && concept != null && !concept.getName().equals(conceptRequest.getName())) {
-            List<ConceptAnswer> conceptAnswers = conceptAnswerRepository.findByAnswerConcept(concept);
-            List<AnswerConceptMigration> answerConceptMigrations = conceptAnswers.stream().map(ca -> {
+    /**
+     * Records the renames of the existing answer concepts (of data type NA) for the concepts they are answers of. The
+     * concept answers of all the renamed concepts are read in one query, before any of the requests is saved.
+     */
+    private void addToMigrationIfRequired(List<ConceptContract> conceptRequests, ConceptIndex concepts) {
+        Map<String, Concept> renamedConcepts = new HashMap<>();
+        Map<String, String> newNames = new HashMap<>();
+        for (ConceptContract conceptRequest : conceptRequests) {
+            Concept concept = concepts.findByUuid(conceptRequest.getUuid());
+            boolean isNa = conceptRequest.getDataType() == null || conceptRequest.getDataType().equals(ConceptDataType.NA.name());
+            if (isNa && concept != null && !concept.getName().equals(conceptRequest.getName())) {
+                renamedConcepts.put(concept.getUuid(), concept);
+                newNames.put(concept.getUuid(), conceptRequest.getName());
+            }
+        }
+        List<Concept> renamedConceptList = new ArrayList<>(renamedConcepts.values());
+        List<AnswerConceptMigration> answerConceptMigrations = new ArrayList<>();
+        for (int start = 0; start < renamedConceptList.size(); start += LOAD_CHUNK_SIZE) {
+            conceptAnswerRepository.findByAnswerConceptIn(renamedConceptList.subList(start, Math.min(start + LOAD_CHUNK_SIZE, renamedConceptList.size()))).forEach(ca -> {
                 AnswerConceptMigration answerConceptMigration = new AnswerConceptMigration();
                 answerConceptMigration.setConcept(ca.getConcept());
-                answerConceptMigration.setOldAnswerConceptName(concept.getName());
-                answerConceptMigration.setNewAnswerConceptName(conceptRequest.getName());
+                answerConceptMigration.setOldAnswerConceptName(ca.getAnswerConcept().getName());
+                answerConceptMigration.setNewAnswerConceptName(newNames.get(ca.getAnswerConcept().getUuid()));
                 answerConceptMigration.assignUUID();
-                return answerConceptMigration;
-            }).collect(Collectors.toList());
+                answerConceptMigrations.add(answerConceptMigration);
+            });
+        }
+        if (!answerConceptMigrations.isEmpty()) {
             answerConceptMigrationRepository.saveAll(answerConceptMigrations);
         }
     }
 
+    /**
+     * Saves the concepts with the concepts they have as answers saved before them, when those are among the requests.
+     * The existing concepts, their answers and the concept answers to migrate for renamed answers are read for all the
+     * requests up front, so no query runs (and flushes the persistence context) between the saves, and the updates are
+     * written at one flush. New concepts are still inserted as they are saved, their ids being generated by the database.
+     */
     public void saveOrUpdateConcepts(List<ConceptContract> conceptRequests) {
-        List<ConceptContract> failedDueToAnswerConceptNotFound = new ArrayList<>();
-        for (ConceptContract conceptRequest : conceptRequests) {
+        List<ConceptContract> orderedConceptRequests = orderByAnswers(conceptRequests.stream().filter(Objects::nonNull).collect(Collectors.toList()));
+        ConceptIndex concepts = loadConcepts(orderedConceptRequests);
+        addToMigrationIfRequired(orderedConceptRequests, concepts);
+        for (ConceptContract conceptRequest : orderedConceptRequests) {
             try {
-                saveOrUpdate(conceptRequest);
+                saveOrUpdate(conceptRequest, concepts);
             } catch (AnswerConceptNotFoundException answerConceptNotFoundException) {
-                failedDueToAnswerConceptNotFound.add(conceptRequest);
+                throw new ValidationException(answerConceptNotFoundException.getMessage());
             }
         }
+    }
 
-        //Retry
-        for (ConceptContract conceptRequest : failedDueToAnswerConceptNotFound) {
-            List<ConceptContract> requestAnswers = conceptRequest.getAnswers();
-            try {
-                for (ConceptContract requestAnswer : requestAnswers) {
-                    Optional<ConceptContract> answerConcept = failedDueToAnswerConceptNotFound.stream()
-                            .filter(conceptContract -> conceptContract.getUuid().equals(requestAnswer.getUuid()))
-                            .findFirst();
-                    if (answerConcept.isPresent()) {
-                        saveOrUpdate(answerConcept.get());
-                    }
+    private List<ConceptContract> orderByAnswers(List<ConceptContract> conceptRequests) {
+        Map<String, ConceptContract> conceptRequestsByUuid = new HashMap<>();
+        conceptRequests.forEach(conceptRequest -> conceptRequestsByUuid.putIfAbsent(conceptRequest.getUuid(), conceptRequest));
+        Set<ConceptContract> added = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<ConceptContract> orderedConceptRequests = new ArrayList<>();
+        conceptRequests.forEach(conceptRequest -> addAfterAnswers(conceptRequest, conceptRequestsByUuid, added, orderedConceptRequests));
+        return orderedConceptRequests;
+    }
+
+    private void addAfterAnswers(ConceptContract conceptRequest, Map<String, ConceptContract> conceptRequestsByUuid,
+                                 Set<ConceptContract> added, List<ConceptContract> orderedConceptRequests) {
+        if (!added.add(conceptRequest)) return;
+        if (conceptRequest.getAnswers() != null) {
+            for (ConceptContract answer : conceptRequest.getAnswers()) {
+                ConceptContract answerConceptRequest = conceptRequestsByUuid.get(answer.getUuid());
+                if (answerConceptRequest != null) {
+                    addAfterAnswers(answerConceptRequest, conceptRequestsByUuid, added, orderedConceptRequests);
                 }
-                saveOrUpdate(conceptRequest);
-            } catch (AnswerConceptNotFoundException answerConceptNotFoundException) {
-                throw new ValidationException(answerConceptNotFoundException.getMessage());
             }
-
         }
+        orderedConceptRequests.add(conceptRequest);
     }
 
     public Concept get(String uuid) {
@@ -243,6 +324,23 @@ public class ConceptService implements NonScopeAwareService {
         return conceptAnswerRepository.findByConceptAndAnswerConcept(concept, answerConcept);
     }
 
+    /**
+     * Names of the concepts used as the questions and answers of the observations, from the concept catalogue, when the
+     * catalogue is used and has all the questions
+     */
+    public Optional<Map<String, String>> getConceptUuidToNameMapFromCatalogue(ObservationCollection observations) {
+        Set<String> uuids = new HashSet<>(observations.keySet());
+        observations.values().forEach(value -> {
+            if (value instanceof String) {
+                uuids.add((String) value);
+            } else if (value instanceof Collection) {
+                ((Collection<?>) value).stream().filter(element -> element instanceof String).forEach(element -> uuids.add((String) element));
+            }
+        });
+        Map<String, String> conceptMap = conceptCache.findNamesByUuid(uuids);
+        return conceptMap == null || !conceptMap.keySet().containsAll(observations.keySet()) ? Optional.empty() : Optional.of(conceptMap);
+    }
+
     public Object getObservationValue(Map<String, String> conceptMap, Object value) {
         if (value instanceof ArrayList) {
             List<Object> elements = (List<Object>) value;
@@ -1,21 +1,195 @@
 package org.avni.service;
 
+import org.avni.dao.ExtensionFileRepository;
+import org.avni.domain.Extension;
+import org.avni.domain.ExtensionFile;
+import org.avni.framework.cache.CacheStatistics;
+import org.avni.framework.cache.EntityDependentCache;
+import org.avni.framework.cache.TimeToLiveCache;
+import org.avni.framework.security.UserContextHolder;
 import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
 
-@Service
-public class ExtensionService implements NonScopeAwareService {
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
 
+/**
+ * Lists the extension files of an organisation from its manifest (see {@link ExtensionFile}), which is updated when
+ * the files are uploaded, instead of listing the storage on every sync. The manifest is cached per organisation.
+ * <p>
+ * An organisation whose files were uploaded before the manifest existed gets its manifest from the storage the first
+ * time it is needed. The cached manifests are dropped whenever an entry is saved (see
+ * {@link org.avni.framework.hibernate.UpdateOrganisationHibernateInterceptor}), and expire after a while to pick up
+ * uploads to other server instances.
+ */
+@Service
+public class ExtensionService implements NonScopeAwareService, EntityDependentCache {
+    private static final Logger logger = LoggerFactory.getLogger(ExtensionService.class);
+    private static final int MAX_ENTRIES = 10000;
+    private final String EXTENSION_DIR = "extensions";
     private final S3Service s3Service;
+    private final ExtensionFileRepository extensionFileRepository;
+    private final TransactionTemplate newTransactionTemplate;
+    private final TimeToLiveCache<Long, Manifest> manifests;
 
     @Autowired
-    public ExtensionService(S3Service s3Service) {
+    public ExtensionService(S3Service s3Service, ExtensionFileRepository extensionFileRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${avni.cache.extensionManifest.timeToLiveSeconds}") long timeToLiveSeconds) {
         this.s3Service = s3Service;
+        this.extensionFileRepository = extensionFileRepository;
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.manifests = new TimeToLiveCache<>("ExtensionManifest", timeToLiveSeconds, MAX_ENTRIES);
+    }
+
+    private static class Manifest {
+        private final List<Extension> extensions;
+        private final DateTime lastModifiedDateTime;
+
+        Manifest(List<Extension> extensions) {
+            this.extensions = extensions;
+            this.lastModifiedDateTime = extensions.stream().map(Extension::getLastModifiedDateTime).max(Comparator.naturalOrder()).orElse(null);
+        }
+    }
+
+    @Override
+    public boolean dependsOn(Object entity) {
+        return entity instanceof ExtensionFile;
     }
 
     @Override
     public boolean isNonScopeEntityChanged(DateTime lastModifiedDateTime) {
-        return s3Service.listExtensionFiles(java.util.Optional.ofNullable(lastModifiedDateTime)).size() > 0;
+        DateTime manifestLastModifiedDateTime = getManifest().lastModifiedDateTime;
+        return manifestLastModifiedDateTime != null && (lastModifiedDateTime == null || manifestLastModifiedDateTime.isAfter(lastModifiedDateTime));
+    }
+
+    public List<Extension> listExtensionFiles(Optional<DateTime> modifiedSince) {
+        DateTime latestDate = modifiedSince.orElse(new DateTime(0));
+        return getManifest().extensions.stream()
+                .filter(extension -> latestDate.isBefore(extension.getLastModifiedDateTime()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Uploads the files of the directory as the extensions of the organisation, replacing the earlier ones, and
+     * updates the manifest. Files with the same content as before keep their modification time, so that devices do
+     * not download them again.
+     */
+    public void uploadExtensionFiles(File directory) throws IOException, InterruptedException {
+        Map<String, ExtensionFile> uploadedFiles = readFiles(directory.toPath());
+        s3Service.uploadExtensionFile(directory, EXTENSION_DIR);
+
+        DateTime now = DateTime.now();
+        Map<String, ExtensionFile> manifest = extensionFileRepository.findAllByOrganisationId(UserContextHolder.getOrganisation().getId())
+                .stream().collect(Collectors.toMap(ExtensionFile::getName, Function.identity()));
+        List<ExtensionFile> changedFiles = new ArrayList<>();
+        uploadedFiles.forEach((name, uploadedFile) -> {
+            ExtensionFile extensionFile = manifest.get(name);
+            if (extensionFile != null && !extensionFile.isVoided() && Objects.equals(extensionFile.getHash(), uploadedFile.getHash())
+                    && Objects.equals(extensionFile.getSize(), uploadedFile.getSize())) {
+                return;
+            }
+            if (extensionFile == null) {
+                extensionFile = uploadedFile;
+                extensionFile.assignUUID();
+            }
+            extensionFile.setSize(uploadedFile.getSize());
+            extensionFile.setHash(uploadedFile.getHash());
+            extensionFile.setFileModifiedDateTime(now);
+            extensionFile.setVoided(false);
+            changedFiles.add(extensionFile);
+        });
+        manifest.values().stream()
+                .filter(extensionFile -> !extensionFile.isVoided() && !uploadedFiles.containsKey(extensionFile.getName()))
+                .forEach(extensionFile -> {
+                    extensionFile.setFileModifiedDateTime(now);
+                    extensionFile.setVoided(true);
+                    changedFiles.add(extensionFile);
+                });
+        extensionFileRepository.saveAll(changedFiles);
+        invalidate();
+        logger.info(format("Uploaded %d extension files, %d changed", uploadedFiles.size(), changedFiles.size()));
+    }
+
+    private Map<String, ExtensionFile> readFiles(Path directory) throws IOException {
+        Map<String, ExtensionFile> files = new HashMap<>();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                ExtensionFile extensionFile = new ExtensionFile();
+                extensionFile.setName(directory.relativize(path).toString().replace(File.separatorChar, '/'));
+                extensionFile.setSize(Files.size(path));
+                try (InputStream inputStream = Files.newInputStream(path)) {
+                    extensionFile.setHash(DigestUtils.md5DigestAsHex(inputStream));
+                }
+                files.put(extensionFile.getName(), extensionFile);
+            }
+        }
+        return files;
+    }
+
+    private Manifest getManifest() {
+        Long organisationId = UserContextHolder.getOrganisation().getId();
+        return manifests.get(organisationId, () -> new Manifest(loadExtensions(organisationId)));
+    }
+
+    private List<Extension> loadExtensions(Long organisationId) {
+        List<ExtensionFile> extensionFiles = extensionFileRepository.findAllByOrganisationId(organisationId);
+        if (extensionFiles.isEmpty()) {
+            extensionFiles = loadManifestFromStorage(organisationId);
+        }
+        return Collections.unmodifiableList(extensionFiles.stream()
+                .filter(extensionFile -> !extensionFile.isVoided())
+                .map(extensionFile -> new Extension(extensionFile.getName(), extensionFile.getFileModifiedDateTime()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Saves the manifest of the files that were uploaded before there was a manifest, with the modification time in
+     * the storage. The size and hash are not known, so the next upload updates all of them.
+     */
+    private List<ExtensionFile> loadManifestFromStorage(Long organisationId) {
+        List<ExtensionFile> extensionFiles = s3Service.listExtensionFiles(Optional.empty()).stream().map(extension -> {
+            ExtensionFile extensionFile = new ExtensionFile();
+            extensionFile.assignUUID();
+            extensionFile.setName(extension.getUrl());
+            extensionFile.setFileModifiedDateTime(extension.getLastModifiedDateTime());
+            return extensionFile;
+        }).collect(Collectors.toList());
+        if (extensionFiles.isEmpty()) return extensionFiles;
+        try {
+            newTransactionTemplate.execute(status -> extensionFileRepository.saveAll(extensionFiles));
+        } catch (DataIntegrityViolationException e) {
+            logger.info(format("Manifest of extension files of organisation %d saved by another request", organisationId));
+        }
+        return extensionFiles;
+    }
+
+    @Override
+    public void invalidate() {
+        manifests.invalidate();
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return manifests.getStatistics();
     }
 }
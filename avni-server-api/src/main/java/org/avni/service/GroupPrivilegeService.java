@@ -5,8 +5,12 @@ import org.avni.application.FormMapping;
 import org.avni.dao.*;
 import org.avni.dao.application.FormMappingRepository;
 import org.avni.domain.*;
+import org.avni.framework.cache.CacheStatistics;
+import org.avni.framework.cache.EntityDependentCache;
+import org.avni.framework.cache.TimeToLiveCache;
 import org.avni.framework.security.UserContextHolder;
 import org.avni.web.request.GroupPrivilegeContractWeb;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import org.joda.time.DateTime;
@@ -15,8 +19,14 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * The privileges of each user (see {@link GroupPrivileges}) are kept for a while, since every subject synced checks
+ * them. All of them are dropped whenever a group, its privileges or its users are saved (see
+ * {@link org.avni.framework.hibernate.UpdateOrganisationHibernateInterceptor}).
+ */
 @Service
-public class GroupPrivilegeService implements NonScopeAwareService {
+public class GroupPrivilegeService implements NonScopeAwareService, EntityDependentCache {
+    private static final int MAX_ENTRIES = 10000;
     private GroupRepository groupRepository;
     private PrivilegeRepository privilegeRepository;
     private SubjectTypeRepository subjectTypeRepository;
@@ -31,8 +41,10 @@ public class GroupPrivilegeService implements NonScopeAwareService {
         add("Remove member");
     }};
     private UserGroupRepository userGroupRepository;
+    private final TimeToLiveCache<Long, GroupPrivileges> userGroupPrivileges;
 
-    public GroupPrivilegeService(GroupRepository groupRepository, PrivilegeRepository privilegeRepository, SubjectTypeRepository subjectTypeRepository, ProgramRepository programRepository, EncounterTypeRepository encounterTypeRepository, ChecklistDetailRepository checklistDetailRepository, FormMappingRepository formMappingRepository, GroupPrivilegeRepository groupPrivilegeRepository, UserGroupRepository userGroupRepository) {
+    public GroupPrivilegeService(GroupRepository groupRepository, PrivilegeRepository privilegeRepository, SubjectTypeRepository subjectTypeRepository, ProgramRepository programRepository, EncounterTypeRepository encounterTypeRepository, ChecklistDetailRepository checklistDetailRepository, FormMappingRepository formMappingRepository, GroupPrivilegeRepository groupPrivilegeRepository, UserGroupRepository userGroupRepository,
+                                 @Value("${avni.cache.groupPrivileges.timeToLiveSeconds}") long timeToLiveSeconds) {
         this.groupRepository = groupRepository;
         this.privilegeRepository = privilegeRepository;
         this.subjectTypeRepository = subjectTypeRepository;
@@ -42,6 +54,12 @@ public class GroupPrivilegeService implements NonScopeAwareService {
         this.formMappingRepository = formMappingRepository;
         this.groupPrivilegeRepository = groupPrivilegeRepository;
         this.userGroupRepository = userGroupRepository;
+        this.userGroupPrivileges = new TimeToLiveCache<>("GroupPrivileges", timeToLiveSeconds, MAX_ENTRIES);
+    }
+
+    @Override
+    public boolean dependsOn(Object entity) {
+        return entity instanceof GroupPrivilege || entity instanceof Group || entity instanceof UserGroup || entity instanceof Privilege;
     }
 
     private boolean isGroupSubjectTypePrivilege(SubjectType subjectType, String privilegeName) {
@@ -184,10 +202,14 @@ public class GroupPrivilegeService implements NonScopeAwareService {
     }
 
     public GroupPrivileges getGroupPrivileges() {
+        User user = UserContextHolder.getUserContext().getUser();
+        return userGroupPrivileges.get(user.getId(), () -> loadGroupPrivileges(user));
+    }
+
+    private GroupPrivileges loadGroupPrivileges(User user) {
         if (this.userHasAllPrivileges()) {
             return new GroupPrivileges();
         }
-        User user = UserContextHolder.getUserContext().getUser();
         List<GroupPrivilege> privileges = groupPrivilegeRepository.getAllAllowPrivilegesForUser(user.getId());
         return new GroupPrivileges(false, privileges);
     }
@@ -196,4 +218,14 @@ public class GroupPrivilegeService implements NonScopeAwareService {
         User user = UserContextHolder.getUserContext().getUser();
         return userGroupRepository.findByUserAndGroupHasAllPrivilegesTrueAndIsVoidedFalse(user).size() > 0;
     }
+
+    @Override
+    public void invalidate() {
+        userGroupPrivileges.invalidate();
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return userGroupPrivileges.getStatistics();
+    }
 }
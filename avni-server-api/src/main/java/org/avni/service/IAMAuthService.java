@@ -4,4 +4,9 @@ import org.avni.domain.User;
 
 public interface IAMAuthService {
     User getUserFromToken(String token);
+
+    /**
+     * @return identifies the user of a valid token without looking it up, null if the token has no such claim
+     */
+    String getTokenSubject(String token);
 }
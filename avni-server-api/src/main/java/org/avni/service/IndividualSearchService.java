@@ -3,21 +3,15 @@ package org.avni.service;
 import org.avni.dao.IndividualRepository;
 import org.avni.dao.ProgramEnrolmentRepository;
 import org.avni.domain.Program;
-import org.avni.domain.ProgramEnrolment;
-import org.joda.time.LocalDate;
 import org.avni.dao.SubjectSearchRepository;
 import org.avni.web.request.EnrolmentContract;
-import org.avni.web.request.IndividualContract;
 import org.avni.web.request.webapp.search.SubjectSearchRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,31 +28,51 @@ public class IndividualSearchService {
     @Transactional
     public LinkedHashMap<String, Object> search(SubjectSearchRequest subjectSearchRequest) {
         List<Map<String, Object>> searchResults = subjectSearchRepository.search(subjectSearchRequest);
-        BigInteger totalCount = subjectSearchRepository.getTotalCount(subjectSearchRequest);
+        BigInteger totalCount = searchResults.isEmpty() ?
+                getTotalCountOfEmptyPage(subjectSearchRequest) :
+                (BigInteger) searchResults.get(0).get("totalElements");
+        searchResults.forEach(individualRecord -> individualRecord.remove("totalElements"));
         return constructIndividual(searchResults, totalCount);
     }
 
+    /**
+     * The total comes with the rows of the page, a page past the last one has to count them separately
+     */
+    private BigInteger getTotalCountOfEmptyPage(SubjectSearchRequest subjectSearchRequest) {
+        Integer pageNumber = subjectSearchRequest.getPageElement() == null ? null : subjectSearchRequest.getPageElement().getPageNumber();
+        return pageNumber == null || pageNumber == 0 ? BigInteger.ZERO : subjectSearchRepository.getTotalCount(subjectSearchRequest);
+    }
+
     private LinkedHashMap<String, Object> constructIndividual(List<Map<String, Object>> individualList, BigInteger totalCount) {
         LinkedHashMap<String, Object> recordsMap = new LinkedHashMap<String, Object>();
+        List<Long> individualIds = individualList.stream()
+                .map(individualRecord -> Long.valueOf((Integer) individualRecord.get("id")))
+                .collect(Collectors.toList());
+        Map<Long, List<EnrolmentContract>> enrolments = constructEnrolments(individualIds);
         List<Map<String, Object>> listOfRecords = individualList.stream()
                 .peek(individualRecord -> {
                     Long individualId = Long.valueOf((Integer) individualRecord.get("id"));
-                    individualRecord.put("enrolments", constructEnrolments(individualId));
+                    individualRecord.put("enrolments", enrolments.getOrDefault(individualId, new ArrayList<>()));
                 }).collect(Collectors.toList());
         recordsMap.put("totalElements", totalCount);
         recordsMap.put("listOfRecords", listOfRecords);
         return recordsMap;
     }
 
-    private List<EnrolmentContract> constructEnrolments(Long individualId) {
-        List<EnrolmentContract> enrolmentContracts = new ArrayList<>();
-        List<Program> programs = programEnrolmentRepository.findActiveEnrolmentsByIndividualId(individualId);
+    /**
+     * Active enrolments of all the individuals of a page, read together
+     */
+    private Map<Long, List<EnrolmentContract>> constructEnrolments(List<Long> individualIds) {
+        Map<Long, List<EnrolmentContract>> enrolmentContracts = new HashMap<>();
+        if (individualIds.isEmpty()) return enrolmentContracts;
+        List<Object[]> enrolments = programEnrolmentRepository.findActiveEnrolmentsByIndividualIdIn(individualIds);
 
-        programs.stream().forEach(program -> {
+        enrolments.forEach(enrolment -> {
+            Program program = (Program) enrolment[1];
             EnrolmentContract enrolmentContract = new EnrolmentContract();
             enrolmentContract.setOperationalProgramName(program.getOperationalProgramName());
             enrolmentContract.setProgramColor(program.getColour());
-            enrolmentContracts.add(enrolmentContract);
+            enrolmentContracts.computeIfAbsent((Long) enrolment[0], individualId -> new ArrayList<>()).add(enrolmentContract);
         });
         return enrolmentContracts;
     }
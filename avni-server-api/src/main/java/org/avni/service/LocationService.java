@@ -20,9 +20,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.validation.constraints.NotNull;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -33,14 +31,18 @@ public class LocationService implements ScopeAwareService {
     private final OrganisationRepository organisationRepository;
     private final LocationRepository locationRepository;
     private final LocationMappingRepository locationMappingRepository;
+    private final CatchmentAddressLevelCache catchmentAddressLevelCache;
+    private final LocationBulkRepository locationBulkRepository;
     private final Logger logger;
 
     @Autowired
-    public LocationService(LocationRepository locationRepository, AddressLevelTypeRepository addressLevelTypeRepository, OrganisationRepository organisationRepository, LocationMappingRepository locationMappingRepository) {
+    public LocationService(LocationRepository locationRepository, AddressLevelTypeRepository addressLevelTypeRepository, OrganisationRepository organisationRepository, LocationMappingRepository locationMappingRepository, CatchmentAddressLevelCache catchmentAddressLevelCache, LocationBulkRepository locationBulkRepository) {
         this.locationRepository = locationRepository;
         this.addressLevelTypeRepository = addressLevelTypeRepository;
         this.organisationRepository = organisationRepository;
         this.locationMappingRepository = locationMappingRepository;
+        this.catchmentAddressLevelCache = catchmentAddressLevelCache;
+        this.locationBulkRepository = locationBulkRepository;
         this.logger = LoggerFactory.getLogger(this.getClass());
     }
 
@@ -50,6 +52,120 @@ public class LocationService implements ScopeAwareService {
         return saved;
     }
 
+    /**
+     * Saves a location tree, like that of a bundle or a location upload, inserting the new locations in JDBC batches.
+     * Their ids are allocated before the insert and their lineage worked out in memory, so each location is checked
+     * against the locations of the request that are not saved yet. A location must come after its parent. Locations that
+     * already exist are saved one at a time after the new ones, same as in {@link #save(LocationContract)}.
+     *
+     * @return number of new locations
+     */
+    public int saveAllInBulk(List<LocationContract> locationContracts) throws BuilderException {
+        Set<String> existingUuids = findExistingUuids(locationContracts);
+        List<LocationContract> newLocationContracts = locationContracts.stream()
+                .filter(contract -> contract.getUuid() == null || !existingUuids.contains(contract.getUuid()))
+                .collect(Collectors.toList());
+        List<Long> ids = newLocationContracts.isEmpty() ? Collections.emptyList() : locationBulkRepository.nextAddressLevelIds(newLocationContracts.size());
+        Map<String, AddressLevel> newLocations = new HashMap<>();
+        Map<String, AddressLevel> existingParents = new HashMap<>();
+        Map<String, AddressLevelType> types = new HashMap<>();
+        Map<String, Long> organisationIds = new HashMap<>();
+        Set<List<Object>> titles = new HashSet<>();
+        List<AddressLevel> locations = new ArrayList<>();
+        for (int i = 0; i < newLocationContracts.size(); i++) {
+            LocationContract contract = newLocationContracts.get(i);
+            AddressLevel parent = findParent(contract.getParent(), newLocations, existingParents);
+            String typeKey = contract.getAddressLevelTypeUUID() != null ? contract.getAddressLevelTypeUUID() : String.valueOf(contract.getType()).toLowerCase();
+            AddressLevelType type = types.get(typeKey);
+            if (type == null) {
+                type = getTypeByUuidOrName(contract);
+                if (type == null) type = createType(contract, parent);
+                types.put(typeKey, type);
+            }
+            AddressLevel location = buildNewLocation(contract, ids.get(i), type, parent, organisationIds);
+            if (!isTitleUnique(location, contract.getName().trim(), type, titles, newLocations))
+                throw new BuilderException(String.format("Location with same name '%s' and type '%s' exists at this level", contract.getName(), type.getName()));
+            newLocations.put(location.getUuid(), location);
+            locations.add(location);
+        }
+        if (!locations.isEmpty()) {
+            try {
+                locationBulkRepository.insert(locations, UserContextHolder.getUser().getId());
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+                throw new BuilderException(String.format("Unable to create %d locations: '%s'", locations.size(), e.getMessage()));
+            }
+            catchmentAddressLevelCache.invalidate();
+        }
+        for (LocationContract contract : locationContracts) {
+            if (contract.getUuid() != null && existingUuids.contains(contract.getUuid())) save(contract);
+        }
+        logger.info(String.format("Created %d locations, saved %d existing locations", locations.size(), locationContracts.size() - locations.size()));
+        return locations.size();
+    }
+
+    private Set<String> findExistingUuids(List<LocationContract> locationContracts) {
+        List<String> uuids = locationContracts.stream().map(LocationContract::getUuid).filter(Objects::nonNull).collect(Collectors.toList());
+        Set<String> existingUuids = new HashSet<>();
+        for (int start = 0; start < uuids.size(); start += 1000) {
+            locationRepository.findByUuidIn(uuids.subList(start, Math.min(start + 1000, uuids.size())))
+                    .forEach(location -> existingUuids.add(location.getUuid()));
+        }
+        return existingUuids;
+    }
+
+    private AddressLevel findParent(ReferenceDataContract parentContract, Map<String, AddressLevel> newLocations, Map<String, AddressLevel> existingParents) throws BuilderException {
+        if (parentContract == null || (parentContract.getUuid() == null && parentContract.getId() == null)) return null;
+        AddressLevel parent;
+        if (parentContract.getUuid() != null) {
+            parent = newLocations.get(parentContract.getUuid());
+            if (parent == null) parent = existingParents.computeIfAbsent(parentContract.getUuid(), locationRepository::findByUuid);
+        } else {
+            parent = locationRepository.findOne(parentContract.getId());
+        }
+        if (parent == null) {
+            throw new BuilderException(String.format("Parent Location not found for UUID:%s Id: %d", parentContract.getUuid(), parentContract.getId()));
+        }
+        return parent;
+    }
+
+    private AddressLevel buildNewLocation(LocationContract contract, Long id, AddressLevelType type, AddressLevel parent, Map<String, Long> organisationIds) {
+        AddressLevel location = new AddressLevel();
+        location.setId(id);
+        location.setUuid(contract.getUuid() == null ? UUID.randomUUID().toString() : contract.getUuid());
+        location.setTitle(contract.getName());
+        location.setType(type);
+        location.setLegacyId(contract.getLegacyId());
+        location.setVoided(contract.isVoided());
+        String organisationUuid = contract.getOrganisationUUID();
+        location.setOrganisationId(organisationUuid == null ? UserContextHolder.getUserContext().getOrganisationId() :
+                organisationIds.computeIfAbsent(organisationUuid, uuid -> {
+                    Organisation organisation = organisationRepository.findByUuid(uuid);
+                    if (organisation == null) {
+                        throw new RuntimeException(String.format("Organisation not found with uuid :'%s'", uuid));
+                    }
+                    return organisation.getId();
+                }));
+        if (parent == null) {
+            location.setLineage(id.toString());
+        } else {
+            ParentLocationMapping locationMapping = new ParentLocationMapping();
+            locationMapping.assignUUID();
+            locationMapping.setParentLocation(parent);
+            locationMapping.setVoided(contract.getParent().isVoided());
+            location.setParentLocationMapping(locationMapping);
+            location.setParent(parent);
+            location.setLineage(parent.getLineage() + "." + id);
+        }
+        return location;
+    }
+
+    private boolean isTitleUnique(AddressLevel location, String title, AddressLevelType type, Set<List<Object>> titles, Map<String, AddressLevel> newLocations) {
+        List<Object> key = Arrays.asList(location.getParentUuid(), type.getId(), title.toLowerCase());
+        if (!titles.add(key)) return false;
+        return (!location.isTopLevel() && newLocations.containsKey(location.getParentUuid())) || titleIsValid(location, title, type);
+    }
+
     public AddressLevel save(LocationContract locationContract) throws BuilderException {
         logger.info(String.format("Processing location request: %s", locationContract.toString()));
         AddressLevelType type = getTypeByUuidOrName(locationContract);
@@ -86,6 +202,16 @@ public class LocationService implements ScopeAwareService {
         return addressLevelType;
     }
 
+    private AddressLevelType createType(LocationContract locationContract, AddressLevel parentLocation) {
+        AddressLevelType addressLevelType = new AddressLevelType();
+        addressLevelType.setUuid(UUID.randomUUID().toString());
+        addressLevelType.setName(locationContract.getType());
+        addressLevelType.setLevel(locationContract.getLevel());
+        if (parentLocation != null) addressLevelType.setParent(parentLocation.getType());
+        addressLevelTypeRepository.save(addressLevelType);
+        return addressLevelType;
+    }
+
     private AddressLevel saveLocation(LocationContract contract, AddressLevelType type) throws BuilderException {
         LocationBuilder locationBuilder = new LocationBuilder(locationRepository.findByUuid(contract.getUuid()), type);
         locationBuilder.copy(contract);
@@ -165,13 +291,7 @@ public class LocationService implements ScopeAwareService {
         }
 
         if (locationEditContract.getParentId() != null && !locationEditContract.getParentId().equals(location.getParentId())) {
-            Long oldParentId = location.getParentId();
-            Long newParentId = locationEditContract.getParentId();
-            String lineage = location.getLineage();
-            updateDescendantLocationLineage(locationRepository.findAllByParent(location), oldParentId, newParentId);
-            updateLocationMapping(location, locationEditContract);
-            location.setLineage(updateLineage(lineage, oldParentId, newParentId));
-            location.setParent(locationRepository.findOne(newParentId));
+            reparent(location, locationEditContract.getParentId());
         }
 
         location.setTitle(locationEditContract.getTitle());
@@ -179,33 +299,27 @@ public class LocationService implements ScopeAwareService {
         return location;
     }
 
-    private void updateLocationMapping(AddressLevel location, LocationEditContract locationEditContract) {
-        List<ParentLocationMapping> locationMappings = locationMappingRepository.findAllByLocation(location);
-        AddressLevel newParent = locationRepository.findOne(locationEditContract.getParentId());
-        List<ParentLocationMapping> updatedLocationMappings = locationMappings.stream()
-                .peek(locationMapping -> locationMapping.setParentLocation(newParent))
-                .collect(Collectors.toList());
-        locationMappingRepository.saveAll(updatedLocationMappings);
-    }
-
-    private String updateLineage(String lineage, Long oldParentId, Long newParentId) {
-        if (oldParentId == null) {
-            return newParentId + "." + lineage;
+    /**
+     * Moves the location with all its descendants under the new parent. The lineage of the descendants and the parent
+     * mappings of the location are updated in one statement each, instead of saving every descendant.
+     */
+    private void reparent(AddressLevel location, Long newParentId) {
+        AddressLevel newParent = locationRepository.findOne(newParentId);
+        if (newParent == null) {
+            throw new RuntimeException(String.format("Parent location with id '%d' not found", newParentId));
         }
-        return lineage.replaceAll(oldParentId.toString(), newParentId.toString());
-    }
-
-    private void updateDescendantLocationLineage(List<AddressLevel> children, Long oldId, Long newId) {
-        if (children.isEmpty()) {
-            return;
-        } else {
-            children.forEach(child -> {
-                String lineage = child.getLineage();
-                child.setLineage(updateLineage(lineage, oldId, newId));
-                locationRepository.save(child);
-                updateDescendantLocationLineage(locationRepository.findAllByParent(child), oldId, newId);
-            });
+        String newLineage = newParent.getLineage() + "." + location.getId();
+        if (newParent.getLineage().equals(location.getLineage()) || newParent.getLineage().startsWith(location.getLineage() + ".")) {
+            throw new RuntimeException(String.format("Location '%s' cannot be moved under itself or its sub location '%s'", location.getTitle(), newParent.getTitle()));
         }
+        Long userId = UserContextHolder.getUser().getId();
+        int movedDescendants = locationRepository.moveDescendants(location.getLineage(), newLineage, userId);
+        int updatedMappings = locationMappingRepository.updateParentLocation(location.getId(), newParentId, userId);
+        location.setLineage(newLineage);
+        location.setParent(newParent);
+        catchmentAddressLevelCache.invalidate();
+        logger.info(String.format("Moved location '%s' with %d sub locations under '%s', updated %d parent mappings",
+                location.getTitle(), movedDescendants, newParent.getTitle(), updatedMappings));
     }
 
     private boolean titleIsValid(AddressLevel location, String title, AddressLevelType type) {
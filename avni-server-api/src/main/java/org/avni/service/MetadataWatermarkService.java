@@ -0,0 +1,126 @@
+package org.avni.service;
+
+import org.avni.application.Form;
+import org.avni.application.FormElement;
+import org.avni.application.FormElementGroup;
+import org.avni.application.FormMapping;
+import org.avni.dao.EntityChangeRepository;
+import org.avni.domain.*;
+import org.avni.domain.individualRelationship.IndividualRelation;
+import org.avni.domain.individualRelationship.IndividualRelationGenderMapping;
+import org.avni.domain.individualRelationship.IndividualRelationshipType;
+import org.avni.framework.cache.CacheStatistics;
+import org.avni.framework.cache.EntityDependentCache;
+import org.avni.framework.cache.TimeToLiveCache;
+import org.avni.framework.security.UserContextHolder;
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Keeps the latest modification time of each metadata entity per organisation, so that /syncDetails can tell whether
+ * metadata has changed without querying the database. Metadata changes a few times a month while devices check for
+ * changes on every sync.
+ * <p>
+ * The watermarks of an organisation are dropped whenever a metadata entity of the organisation, of one of its
+ * ancestors, whose metadata it sees, or of one of its descendants, whose users it sees, is saved (see
+ * {@link org.avni.framework.hibernate.UpdateOrganisationHibernateInterceptor}). Saving an entity that does not belong
+ * to an organisation drops the watermarks of all organisations. They also expire after a while to pick up changes made by other server
+ * instances or outside hibernate. A stale watermark only delays a device picking up a change to its next sync, as the
+ * device's own lastModifiedDateTime does not move forward until it downloads the change.
+ */
+@Service
+public class MetadataWatermarkService implements EntityDependentCache {
+    private static final int MAX_ENTRIES = 10000;
+    private static final Set<Class<?>> metadataEntityTypes = new HashSet<>(Arrays.asList(ChecklistDetail.class, Rule.class,
+            RuleDependency.class, Form.class, FormMapping.class, EncounterType.class, Program.class, ProgramOutcome.class,
+            Gender.class, IndividualRelation.class, IndividualRelationGenderMapping.class, IndividualRelationshipType.class,
+            Concept.class, ProgramOrganisationConfig.class, Video.class, SubjectType.class, ChecklistItemDetail.class,
+            FormElementGroup.class, FormElement.class, ConceptAnswer.class, IdentifierSource.class, OrganisationConfig.class,
+            PlatformTranslation.class, Translation.class, Group.class, GroupPrivilege.class, GroupRole.class, Card.class,
+            Dashboard.class, DashboardSection.class, DashboardSectionCardMapping.class, ApprovalStatus.class,
+            GroupDashboard.class, News.class, Documentation.class, DocumentationItem.class, User.class, Privilege.class,
+            StandardReportCardType.class));
+
+    private final EntityChangeRepository entityChangeRepository;
+    private final TimeToLiveCache<Long, Watermarks> organisationWatermarks;
+
+    public MetadataWatermarkService(EntityChangeRepository entityChangeRepository,
+                                    @Value("${avni.cache.metadataWatermark.timeToLiveSeconds}") long timeToLiveSeconds) {
+        this.entityChangeRepository = entityChangeRepository;
+        this.organisationWatermarks = new TimeToLiveCache<>("MetadataWatermark", timeToLiveSeconds, MAX_ENTRIES);
+    }
+
+    private static class Watermarks {
+        private final Map<String, DateTime> lastModifiedDateTimes;
+        private final Set<Long> organisationIds;
+
+        Watermarks(Map<String, DateTime> lastModifiedDateTimes, Set<Long> organisationIds) {
+            this.lastModifiedDateTimes = lastModifiedDateTimes;
+            this.organisationIds = organisationIds;
+        }
+    }
+
+    @Override
+    public boolean dependsOn(Object entity) {
+        return entity != null && metadataEntityTypes.stream().anyMatch(type -> type.isInstance(entity));
+    }
+
+    /**
+     * @return names of the entities, among those supported by {@link EntityChangeRepository}, that have changed after
+     * the time the device last loaded them
+     */
+    public Set<String> getChangedEntityNames(Map<String, DateTime> lastModifiedDateTimes) {
+        Map<String, DateTime> uncachedLastModifiedDateTimes = new HashMap<>();
+        Map<String, DateTime> watermarks = getWatermarks();
+        Set<String> changedEntityNames = new HashSet<>();
+        lastModifiedDateTimes.forEach((entityName, lastModifiedDateTime) -> {
+            if (!EntityChangeRepository.isOrganisationWide(entityName)) {
+                uncachedLastModifiedDateTimes.put(entityName, lastModifiedDateTime);
+                return;
+            }
+            DateTime watermark = watermarks.get(entityName);
+            if (watermark != null && lastModifiedDateTime != null && watermark.isAfter(lastModifiedDateTime)) {
+                changedEntityNames.add(entityName);
+            }
+        });
+        changedEntityNames.addAll(entityChangeRepository.getChangedEntityNames(uncachedLastModifiedDateTimes, UserContextHolder.getUser().getId()));
+        return changedEntityNames;
+    }
+
+    private Map<String, DateTime> getWatermarks() {
+        Long organisationId = UserContextHolder.getOrganisation().getId();
+        return organisationWatermarks.get(organisationId, () -> new Watermarks(entityChangeRepository.getLastModifiedDateTimes(),
+                entityChangeRepository.getRelatedOrganisationIds(organisationId))).lastModifiedDateTimes;
+    }
+
+    @Override
+    public void invalidate() {
+        organisationWatermarks.invalidate();
+    }
+
+    @Override
+    public void invalidate(Object entity) {
+        Long organisationId = getOrganisationId(entity);
+        if (organisationId == null) {
+            invalidate();
+        } else {
+            organisationWatermarks.invalidate(watermarks -> watermarks.organisationIds.contains(organisationId));
+        }
+    }
+
+    // A new entity gets the organisation of the user saving it after the caches are invalidated
+    private static Long getOrganisationId(Object entity) {
+        if (!(entity instanceof OrganisationAwareEntity || entity instanceof User)) return null;
+        Long organisationId = entity instanceof User ? ((User) entity).getOrganisationId() : ((OrganisationAwareEntity) entity).getOrganisationId();
+        Organisation organisation = UserContextHolder.getOrganisation();
+        return organisationId == null && organisation != null ? organisation.getId() : organisationId;
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return organisationWatermarks.getStatistics();
+    }
+}
@@ -2,7 +2,6 @@ package org.avni.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.avni.dao.ConceptRepository;
 import org.avni.dao.IndividualRepository;
 import org.avni.dao.LocationRepository;
 import org.avni.domain.*;
@@ -22,14 +21,14 @@ import java.util.stream.Collectors;
 
 @Service
 public class ObservationService {
-    private ConceptRepository conceptRepository;
+    private ConceptCache conceptCache;
     private IndividualRepository individualRepository;
     private LocationRepository locationRepository;
     private ObjectMapper objectMapper;
 
     @Autowired
-    public ObservationService(ConceptRepository conceptRepository, IndividualRepository individualRepository, LocationRepository locationRepository) {
-        this.conceptRepository = conceptRepository;
+    public ObservationService(ConceptCache conceptCache, IndividualRepository individualRepository, LocationRepository locationRepository) {
+        this.conceptCache = conceptCache;
         this.individualRepository = individualRepository;
         this.locationRepository = locationRepository;
         this.objectMapper = ObjectMapperSingleton.getObjectMapper();
@@ -41,14 +40,14 @@ public class ObservationService {
                 .map(observationRequest -> {
                     Concept concept;
                     if (observationRequest.getConceptUUID() == null && observationRequest.getConceptName() != null) {
-                        concept = conceptRepository.findByName(observationRequest.getConceptName());
+                        concept = conceptCache.findByName(observationRequest.getConceptName());
                         if (concept == null) {
                             throw new NullPointerException(String.format("Concept with name=%s not found", observationRequest.getConceptName()));
                         }
                         String conceptUUID = concept.getUuid();
                         observationRequest.setConceptUUID(conceptUUID);
                     } else {
-                        concept = conceptRepository.findByUuid(observationRequest.getConceptUUID());
+                        concept = conceptCache.findByUuid(observationRequest.getConceptUUID());
                     }
                     return new SimpleEntry<>(concept, observationRequest.getValue());
                 })
@@ -64,7 +63,7 @@ public class ObservationService {
         Map<String, Object> observations = new HashMap<>();
         for (Decision decision : decisions) {
             String conceptName = decision.getName();
-            Concept concept = conceptRepository.findByName(conceptName);
+            Concept concept = conceptCache.findByName(conceptName);
             if (concept == null) {
                 throw new NullPointerException(String.format("Concept with name=%s not found", conceptName));
             }
@@ -78,14 +77,14 @@ public class ObservationService {
                     if (decisionValue instanceof Collection<?>) {
                         List<String> array = (List) decisionValue;
                         value = array.stream().map(answerConceptName -> {
-                            Concept answerConcept = conceptRepository.findByName(answerConceptName);
+                            Concept answerConcept = conceptCache.findByName(answerConceptName);
                             if (answerConcept == null)
                                 throw new NullPointerException(String.format("Answer concept with name=%s not found", answerConceptName));
                             return answerConcept.getUuid();
                         }).toArray();
                     } else {
                         String answerConceptName = (String) decisionValue;
-                        Concept answerConcept = conceptRepository.findByName(answerConceptName);
+                        Concept answerConcept = conceptCache.findByName(answerConceptName);
                         if (answerConcept == null)
                             throw new NullPointerException(String.format("Answer concept with name=%s not found", answerConceptName));
                         value = answerConcept.getUuid();
@@ -107,7 +106,7 @@ public class ObservationService {
         for (KeyValueResponse keyValueResponse : keyValueResponses) {
             ObservationContract observationContract = new ObservationContract();
             String conceptName = keyValueResponse.getName();
-            Concept concept = conceptRepository.findByName(conceptName);
+            Concept concept = conceptCache.findByName(conceptName);
             if (concept == null) {
                 throw new BadRequestError(String.format("Concept with name=%s not found", conceptName));
             }
@@ -148,14 +147,14 @@ public class ObservationService {
 
     private Concept getConceptForValue(String conceptValue, WorkFlowTypeEnum workflow) {
         if(workflow.isSummaryWorkflow()){
-            return conceptRepository.findByUuid(conceptValue);
+            return conceptCache.findByUuid(conceptValue);
         } else {
-            return conceptRepository.findByName(conceptValue);
+            return conceptCache.findByName(conceptValue);
         }
     }
 
     public Object getObservationValue(String conceptName, ProgramEncounter programEncounter) {
-        Concept concept = conceptRepository.findByName(conceptName);
+        Concept concept = conceptCache.findByName(conceptName);
         if (concept == null) return null;
 
         return getObservationValue(programEncounter, concept);
@@ -173,7 +172,7 @@ public class ObservationService {
         if (concept.getDataType().equals(ConceptDataType.Coded.toString())) {
             String[] array = (String[]) storedValue;
             Object[] objects = Arrays.stream(array).map(s -> {
-                Concept answerConcept = conceptRepository.findByUuid(s);
+                Concept answerConcept = conceptCache.findByUuid(s);
                 return answerConcept.getName();
             }).toArray();
             return Arrays.asList(Arrays.copyOf(objects, objects.length, String[].class));
@@ -182,7 +181,7 @@ public class ObservationService {
     }
 
     public Object getObservationValue(String conceptName, ProgramEnrolment enrolment) {
-        Concept concept = conceptRepository.findByName(conceptName);
+        Concept concept = conceptCache.findByName(conceptName);
         if (concept == null) return null;
 
         Object observationValue = getObservationValue(concept, enrolment.getObservations());
@@ -227,7 +226,7 @@ public class ObservationService {
     }
 
     public ObservationModelContract constructObservation(ObservationContract observationContract) {
-        Concept concept = conceptRepository.findByUuid(observationContract.getConcept().getUuid());
+        Concept concept = conceptCache.findByUuid(observationContract.getConcept().getUuid());
         ObservationModelContract observationModelContract = new ObservationModelContract();
         observationModelContract.setValue(observationContract.getValue());
         ConceptModelContract conceptModelContract = ConceptModelContract.fromConcept(concept);
@@ -241,7 +240,7 @@ public class ObservationService {
 
     private ObservationContract getObservationContract(Map.Entry<String, Object> entry) {
         ObservationContract observationContract = new ObservationContract();
-        Concept questionConcept = conceptRepository.findByUuid(entry.getKey());
+        Concept questionConcept = conceptCache.findByUuid(entry.getKey());
         String conceptDataType = questionConcept.getDataType();
         ConceptContract conceptContract = ConceptContract.create(questionConcept);
         if (conceptDataType.equals(ConceptDataType.Subject.toString())) {
@@ -263,9 +262,9 @@ public class ObservationService {
             Object answerValue = entry.getValue();
             List<Concept> conceptAnswers;
             if (answerValue instanceof Collection) {
-                conceptAnswers = ((List<String>) answerValue).stream().map(uuid -> conceptRepository.findByUuid(uuid)).collect(Collectors.toList());
+                conceptAnswers = ((List<String>) answerValue).stream().map(uuid -> conceptCache.findByUuid(uuid)).collect(Collectors.toList());
             } else {
-                conceptAnswers = Collections.singletonList(conceptRepository.findByUuid((String) answerValue));
+                conceptAnswers = Collections.singletonList(conceptCache.findByUuid((String) answerValue));
             }
             conceptContract.setAnswers(conceptAnswers.stream().map(ConceptContract::create).collect(Collectors.toList()));
         }
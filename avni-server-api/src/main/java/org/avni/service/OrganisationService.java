@@ -1,6 +1,7 @@
 package org.avni.service;
 
 import com.amazonaws.services.s3.AmazonS3URI;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.PrettyPrinter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import org.apache.commons.io.IOUtils;
@@ -36,8 +37,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
@@ -386,25 +389,22 @@ public class OrganisationService {
     public void addAddressLevelsJson(Long orgId, ZipOutputStream zos) throws IOException {
         List<LocationContract> contracts = new ArrayList<>();
         List<AddressLevel> allAddressLevels = locationRepository.findAllByOrganisationId(orgId);
+        Map<Long, List<AddressLevel>> childNodes = allAddressLevels.stream()
+                .filter(addressLevel -> addressLevel.getParent() != null)
+                .collect(Collectors.groupingBy(AddressLevel::getParentId));
         List<AddressLevel> rootNodes = allAddressLevels.stream()
                 .filter(addressLevel -> addressLevel.getParent() == null)
                 .collect(Collectors.toList());
         for (AddressLevel node : rootNodes) {
-            addAddressLevel(node, allAddressLevels, contracts);
+            addAddressLevel(node, childNodes, contracts);
         }
         addFileToZip(zos, "locations.json", contracts);
     }
 
-    private void addAddressLevel(AddressLevel theNode, List<AddressLevel> allAddressLevels, List<LocationContract> contracts) {
-        List<AddressLevel> childNodes = allAddressLevels.stream()
-                .filter(addressLevelType -> {
-                    AddressLevel parent = addressLevelType.getParent();
-                    return parent != null && parent.getId().equals(theNode.getId());
-                })
-                .collect(Collectors.toList());
+    private void addAddressLevel(AddressLevel theNode, Map<Long, List<AddressLevel>> childNodes, List<LocationContract> contracts) {
         contracts.add(LocationContract.fromAddressLevel(theNode));
-        for (AddressLevel child : childNodes) {
-            addAddressLevel(child, allAddressLevels, contracts);
+        for (AddressLevel child : childNodes.getOrDefault(theNode.getId(), Collections.emptyList())) {
+            addAddressLevel(child, childNodes, contracts);
         }
     }
 
@@ -412,25 +412,22 @@ public class OrganisationService {
 
         List<AddressLevelTypeContract> contracts = new ArrayList<>();
         List<AddressLevelType> allAddressLevelTypes = addressLevelTypeRepository.findAllByOrganisationId(orgId);
+        Map<Long, List<AddressLevelType>> childNodes = allAddressLevelTypes.stream()
+                .filter(addressLevelType -> addressLevelType.getParent() != null)
+                .collect(Collectors.groupingBy(addressLevelType -> addressLevelType.getParent().getId()));
         List<AddressLevelType> rootNodes = allAddressLevelTypes.stream()
                 .filter(addressLevelType -> addressLevelType.getParent() == null)
                 .collect(Collectors.toList());
         for (AddressLevelType node : rootNodes) {
-            addAddressLevelType(node, allAddressLevelTypes, contracts);
+            addAddressLevelType(node, childNodes, contracts);
         }
         addFileToZip(zos, "addressLevelTypes.json", contracts);
     }
 
-    private void addAddressLevelType(AddressLevelType theNode, List<AddressLevelType> allAddressLevelTypes, List<AddressLevelTypeContract> contracts) {
-        List<AddressLevelType> childNodes = allAddressLevelTypes.stream()
-                .filter(addressLevelType -> {
-                    AddressLevelType parent = addressLevelType.getParent();
-                    return parent != null && parent.getId().equals(theNode.getId());
-                })
-                .collect(Collectors.toList());
+    private void addAddressLevelType(AddressLevelType theNode, Map<Long, List<AddressLevelType>> childNodes, List<AddressLevelTypeContract> contracts) {
         contracts.add(AddressLevelTypeContract.fromAddressLevelType(theNode));
-        for (AddressLevelType child : childNodes) {
-            addAddressLevelType(child, allAddressLevelTypes, contracts);
+        for (AddressLevelType child : childNodes.getOrDefault(theNode.getId(), Collections.emptyList())) {
+            addAddressLevelType(child, childNodes, contracts);
         }
     }
 
@@ -494,8 +491,10 @@ public class OrganisationService {
         zos.putNextEntry(entry);
         if (fileContent != null) {
             PrettyPrinter prettyPrinter = new DefaultPrettyPrinter();
-            byte[] bytes = ObjectMapperSingleton.getObjectMapper().writer(prettyPrinter).writeValueAsBytes(fileContent);
-            zos.write(bytes);
+            // Written straight into the entry, the zip stream stays open for the next entries
+            ObjectMapperSingleton.getObjectMapper().writer(prettyPrinter)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .writeValue(zos, fileContent);
         }
         zos.closeEntry();
     }
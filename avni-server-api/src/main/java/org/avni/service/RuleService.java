@@ -1,7 +1,6 @@
 package org.avni.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.joda.JodaModule;
 import org.codehaus.jettison.json.JSONException;
 import org.avni.application.Form;
 import org.avni.application.RuleType;
@@ -300,7 +299,6 @@ public class RuleService implements NonScopeAwareService {
     private RuleResponseEntity createHttpHeaderAndSendRequest(String url, Object contractObject, RuleFailureLog ruleFailureLog) {
         try {
             ObjectMapper mapper = ObjectMapperSingleton.getObjectMapper();
-            mapper.registerModule(new JodaModule());
             String ruleResponse = restClient.post(url, contractObject);
             RuleResponseEntity ruleResponseEntity = mapper.readValue(ruleResponse, RuleResponseEntity.class);
             if (ruleResponseEntity.getStatus().equals("failure")) {
@@ -1,25 +1,88 @@
 package org.avni.service;
 
+import org.avni.dao.SyncContinuationToken;
 import org.avni.dao.SyncParameters;
 import org.joda.time.DateTime;
 import org.avni.dao.OperatingIndividualScopeAwareRepository;
 import org.avni.domain.*;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ScopeBasedSyncService<T extends CHSEntity> {
+    private static final int STREAM_PAGE_SIZE = 500;
     private AddressLevelService addressLevelService;
+    private EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
 
-    public ScopeBasedSyncService(AddressLevelService addressLevelService) {
+    public ScopeBasedSyncService(AddressLevelService addressLevelService, EntityManager entityManager, PlatformTransactionManager transactionManager) {
         this.addressLevelService = addressLevelService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
     }
 
     public Page<T> getSyncResult(OperatingIndividualScopeAwareRepository<T> repository, User user, DateTime lastModifiedDateTime, DateTime now, Long typeId, Pageable pageable, SubjectType subjectType, SyncParameters.SyncEntityName syncEntityName) {
         List<Long> addressLevels = addressLevelService.getAllAddressLevelIdsForCatchment(user.getCatchment());
         return repository.getSyncResults(new SyncParameters(lastModifiedDateTime, now, typeId, pageable, addressLevels, subjectType, user.getSyncSettings(), syncEntityName));
     }
+
+    /**
+     * Same as above, but when a continuationToken is given the page is read after the position in the token, without
+     * OFFSET and without counting the matching entities. The page number of the pageable is ignored in this case.
+     */
+    public Slice<T> getSyncResult(OperatingIndividualScopeAwareRepository<T> repository, User user, DateTime lastModifiedDateTime, DateTime now, Long typeId, Pageable pageable, SubjectType subjectType, SyncParameters.SyncEntityName syncEntityName, String continuationToken) {
+        if (continuationToken == null) {
+            return getSyncResult(repository, user, lastModifiedDateTime, now, typeId, pageable, subjectType, syncEntityName);
+        }
+        SyncContinuationToken token = SyncContinuationToken.parse(continuationToken, lastModifiedDateTime);
+        List<Long> addressLevels = addressLevelService.getAllAddressLevelIdsForCatchment(user.getCatchment());
+        Pageable firstPage = PageRequest.of(0, pageable.getPageSize());
+        return repository.getSyncResultsAsSlice(new SyncParameters(token.getLastModifiedDateTime(), now, typeId, firstPage, addressLevels, subjectType, user.getSyncSettings(), syncEntityName, token));
+    }
+
+    /**
+     * Hands over every entity that would be returned across all the pages of getSyncResult, in the same order. The
+     * entities are read in pages, each after the last entity of the previous one, and each in its own read-only
+     * transaction in which they are mapped. The mapped entities are handed over after the transaction, so that a slow
+     * consumer (a device reading the response) does not hold a database connection between pages.
+     */
+    public <R> void streamSyncResult(OperatingIndividualScopeAwareRepository<T> repository, User user, DateTime lastModifiedDateTime, DateTime now, Long typeId, SubjectType subjectType, SyncParameters.SyncEntityName syncEntityName, Function<T, R> mapper, Consumer<R> consumer) {
+        List<Long> addressLevels = addressLevelService.getAllAddressLevelIdsForCatchment(user.getCatchment());
+        Pageable page = PageRequest.of(0, STREAM_PAGE_SIZE);
+        SyncContinuationToken token = null;
+        do {
+            SyncParameters syncParameters = new SyncParameters(token == null ? lastModifiedDateTime : token.getLastModifiedDateTime(), now, typeId, page, addressLevels, subjectType, user.getSyncSettings(), syncEntityName, token);
+            MappedPage<R> mappedPage = transactionTemplate.execute(status -> {
+                Slice<T> slice = repository.getSyncResultsAsSlice(syncParameters);
+                List<R> content = slice.getContent().stream().map(mapper).collect(Collectors.toList());
+                SyncContinuationToken next = slice.hasNext() ? SyncContinuationToken.of(slice.getContent().get(slice.getNumberOfElements() - 1)) : null;
+                entityManager.clear();
+                return new MappedPage<>(content, next);
+            });
+            mappedPage.content.forEach(consumer);
+            token = mappedPage.next;
+        } while (token != null);
+    }
+
+    private static class MappedPage<R> {
+        private final List<R> content;
+        private final SyncContinuationToken next;
+
+        MappedPage(List<R> content, SyncContinuationToken next) {
+            this.content = content;
+            this.next = next;
+        }
+    }
 }
@@ -1,9 +1,10 @@
 package org.avni.util;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
 
 public final class ObjectMapperSingleton {
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JodaModule());
 
     private ObjectMapperSingleton() {
     }
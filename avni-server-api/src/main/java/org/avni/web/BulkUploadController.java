@@ -0,0 +1,150 @@
+package org.avni.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.avni.web.request.*;
+import org.avni.web.request.application.ChecklistItemRequest;
+import org.avni.web.response.BulkUploadItemResponse;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+
+/**
+ * Saves the entities a device collected offline in one request, each the same way as when it is posted to its own
+ * resource. The entities are saved in the order given, a chunk of them in each transaction. When an entity of a chunk
+ * fails, the chunk is rolled back and its entities are saved again one transaction each, so that only the failing
+ * ones are reported as failed and the rest are saved. The updates of a chunk are sent to the database in JDBC batches;
+ * the entities saved one at a time are not batched, so that their error is their own. Entities of a resource that cannot
+ * be uploaded in bulk are reported as failed before any is saved, so that they do not fail the chunk they would be in.
+ */
+@RestController
+public class BulkUploadController {
+    private static final Logger logger = LoggerFactory.getLogger(BulkUploadController.class);
+    private final Map<String, Saver<?>> savers = new HashMap<>();
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int jdbcBatchSize;
+    private final EntityManager entityManager;
+
+    private static class Saver<T> {
+        private final Class<T> requestClass;
+        private final Consumer<T> save;
+
+        Saver(Class<T> requestClass, Consumer<T> save) {
+            this.requestClass = requestClass;
+            this.save = save;
+        }
+
+        void save(ObjectMapper objectMapper, BulkUploadItem item) {
+            save.accept(objectMapper.convertValue(item.getEntity(), requestClass));
+        }
+    }
+
+    @Autowired
+    public BulkUploadController(IndividualController individualController,
+                                ProgramEnrolmentController programEnrolmentController,
+                                ProgramEncounterController programEncounterController,
+                                EncounterController encounterController,
+                                ChecklistController checklistController,
+                                ChecklistItemController checklistItemController,
+                                IndividualRelationshipController individualRelationshipController,
+                                GroupSubjectController groupSubjectController,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                EntityManager entityManager,
+                                @Value("${avni.bulkUpload.chunkSize}") int chunkSize,
+                                @Value("${avni.bulkUpload.jdbcBatchSize}") int jdbcBatchSize) {
+        savers.put("individuals", new Saver<>(IndividualRequest.class, individualController::save));
+        savers.put("programEnrolments", new Saver<>(ProgramEnrolmentRequest.class, programEnrolmentController::save));
+        savers.put("programEncounters", new Saver<>(ProgramEncounterRequest.class, programEncounterController::save));
+        savers.put("encounters", new Saver<>(EncounterRequest.class, encounterController::save));
+        savers.put("txNewChecklistEntitys", new Saver<>(ChecklistRequest.class, checklistController::save));
+        savers.put("txNewChecklistItemEntitys", new Saver<>(ChecklistItemRequest.class, checklistItemController::save));
+        savers.put("individualRelationships", new Saver<>(IndividualRelationshipRequest.class, individualRelationshipController::save));
+        savers.put("groupSubjects", new Saver<>(GroupSubjectContract.class, groupSubjectController::save));
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    @RequestMapping(value = "/bulkUpload", method = RequestMethod.POST)
+    @PreAuthorize(value = "hasAnyAuthority('user')")
+    public List<BulkUploadItemResponse> save(@RequestBody List<BulkUploadItem> items) {
+        logger.info(format("Saving %d entities in bulk", items.size()));
+        List<BulkUploadItemResponse> responses = new ArrayList<>(Collections.nCopies(items.size(), null));
+        List<Integer> supported = new ArrayList<>();
+        for (int index = 0; index < items.size(); index++) {
+            BulkUploadItem item = items.get(index);
+            if (savers.containsKey(item.getResource())) {
+                supported.add(index);
+            } else {
+                responses.set(index, BulkUploadItemResponse.failed(item.getResource(), item.getUuid(),
+                        format("Bulk upload of %s is not supported", item.getResource())));
+            }
+        }
+        for (int start = 0; start < supported.size(); start += chunkSize) {
+            List<Integer> chunkIndexes = supported.subList(start, Math.min(start + chunkSize, supported.size()));
+            List<BulkUploadItem> chunk = new ArrayList<>();
+            chunkIndexes.forEach(index -> chunk.add(items.get(index)));
+            try {
+                transactionTemplate.execute(status -> {
+                    Session session = entityManager.unwrap(Session.class);
+                    session.setJdbcBatchSize(jdbcBatchSize);
+                    try {
+                        chunk.forEach(this::saveItem);
+                        // The entities of a chunk are not needed by the next ones, dirty checking them again only slows the flushes
+                        entityManager.flush();
+                        entityManager.clear();
+                    } finally {
+                        session.setJdbcBatchSize(null);
+                    }
+                    return null;
+                });
+                chunkIndexes.forEach(index -> responses.set(index, BulkUploadItemResponse.saved(items.get(index).getResource(), items.get(index).getUuid())));
+            } catch (RuntimeException e) {
+                logger.info(format("Saving %d entities in one transaction failed, saving them one at a time", chunk.size()));
+                chunkIndexes.forEach(index -> responses.set(index, saveInOwnTransaction(items.get(index))));
+            }
+        }
+        logger.info(format("Saved %d entities in bulk", responses.stream().filter(response -> response.getStatus() == BulkUploadItemResponse.Status.Saved).count()));
+        return responses;
+    }
+
+    private BulkUploadItemResponse saveInOwnTransaction(BulkUploadItem item) {
+        try {
+            transactionTemplate.execute(status -> {
+                saveItem(item);
+                return null;
+            });
+            return BulkUploadItemResponse.saved(item.getResource(), item.getUuid());
+        } catch (RuntimeException e) {
+            logger.error(format("Error saving %s with UUID %s", item.getResource(), item.getUuid()), e);
+            return BulkUploadItemResponse.failed(item.getResource(), item.getUuid(), e.getMessage());
+        }
+    }
+
+    private void saveItem(BulkUploadItem item) {
+        savers.get(item.getResource()).save(objectMapper, item);
+    }
+}
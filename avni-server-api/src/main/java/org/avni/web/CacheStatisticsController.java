@@ -0,0 +1,28 @@
+package org.avni.web;
+
+import org.avni.framework.cache.CacheStatistics;
+import org.avni.framework.cache.StatisticsAwareCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+public class CacheStatisticsController {
+    private final List<StatisticsAwareCache> caches;
+
+    @Autowired
+    public CacheStatisticsController(List<StatisticsAwareCache> caches) {
+        this.caches = caches;
+    }
+
+    @RequestMapping(value = "/cache/statistics", method = RequestMethod.GET)
+    @PreAuthorize(value = "hasAnyAuthority('admin')")
+    public List<CacheStatistics> getStatistics() {
+        return caches.stream().map(StatisticsAwareCache::getStatistics).collect(Collectors.toList());
+    }
+}
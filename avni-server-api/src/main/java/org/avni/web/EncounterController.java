@@ -31,6 +31,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.transaction.Transactional;
 import java.util.Collections;
 
@@ -46,6 +47,7 @@ public class EncounterController extends AbstractController<Encounter> implement
     private final EncounterService encounterService;
     private ScopeBasedSyncService<Encounter> scopeBasedSyncService;
     private FormMappingRepository formMappingRepository;
+    private final SyncStreamWriter syncStreamWriter;
 
     @Autowired
     public EncounterController(IndividualRepository individualRepository,
@@ -54,7 +56,7 @@ public class EncounterController extends AbstractController<Encounter> implement
                                ObservationService observationService,
                                UserService userService,
                                Bugsnag bugsnag,
-                               EncounterService encounterService, ScopeBasedSyncService<Encounter> scopeBasedSyncService, FormMappingRepository formMappingRepository) {
+                               EncounterService encounterService, ScopeBasedSyncService<Encounter> scopeBasedSyncService, FormMappingRepository formMappingRepository, SyncStreamWriter syncStreamWriter) {
         this.individualRepository = individualRepository;
         this.encounterTypeRepository = encounterTypeRepository;
         this.encounterRepository = encounterRepository;
@@ -64,6 +66,7 @@ public class EncounterController extends AbstractController<Encounter> implement
         this.encounterService = encounterService;
         this.scopeBasedSyncService = scopeBasedSyncService;
         this.formMappingRepository = formMappingRepository;
+        this.syncStreamWriter = syncStreamWriter;
     }
 
     @GetMapping(value = "/web/encounter/{uuid}")
@@ -163,18 +166,39 @@ public class EncounterController extends AbstractController<Encounter> implement
             @RequestParam("lastModifiedDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime lastModifiedDateTime,
             @RequestParam("now") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime now,
             @RequestParam(value = "encounterTypeUuid", required = false) String encounterTypeUuid,
+            @RequestParam(value = "continuationToken", required = false) String continuationToken,
             Pageable pageable) throws Exception {
         if (encounterTypeUuid.isEmpty()) return wrap(new PageImpl<>(Collections.emptyList()));
         EncounterType encounterType = encounterTypeRepository.findByUuid(encounterTypeUuid);
         if (encounterType == null) return wrap(new PageImpl<>(Collections.emptyList()));
+        FormMapping formMapping = getFormMapping(encounterType);
+        return wrap(scopeBasedSyncService.getSyncResult(encounterRepository, userService.getCurrentUser(), lastModifiedDateTime, now, encounterType.getId(), pageable, formMapping.getSubjectType(), SyncParameters.SyncEntityName.Encounter, continuationToken));
+    }
+
+    @GetMapping(value = "/encounter", produces = SyncStreamWriter.MEDIA_TYPE)
+    @PreAuthorize(value = "hasAnyAuthority('user')")
+    public void streamEncountersByOperatingIndividualScope(
+            @RequestParam("lastModifiedDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime lastModifiedDateTime,
+            @RequestParam("now") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime now,
+            @RequestParam(value = "encounterTypeUuid") String encounterTypeUuid,
+            HttpServletResponse response) throws Exception {
+        EncounterType encounterType = encounterTypeRepository.findByUuid(encounterTypeUuid);
+        FormMapping formMapping = encounterType == null ? null : getFormMapping(encounterType);
+        syncStreamWriter.write(response, this, (toNode, lines) -> {
+            if (encounterType != null)
+                scopeBasedSyncService.streamSyncResult(encounterRepository, userService.getCurrentUser(), lastModifiedDateTime, now, encounterType.getId(), formMapping.getSubjectType(), SyncParameters.SyncEntityName.Encounter, toNode, lines);
+        });
+    }
+
+    private FormMapping getFormMapping(EncounterType encounterType) throws Exception {
         FormMapping formMapping = formMappingRepository.findByFormFormType(FormType.Encounter)
                 .stream()
-                .filter(fm -> fm.getEncounterTypeUuid().equals(encounterTypeUuid))
+                .filter(fm -> fm.getEncounterTypeUuid().equals(encounterType.getUuid()))
                 .findFirst()
                 .orElse(null);
         if (formMapping == null)
             throw new Exception(String.format("No form mapping found for encounter %s", encounterType.getName()));
-        return wrap(scopeBasedSyncService.getSyncResult(encounterRepository, userService.getCurrentUser(), lastModifiedDateTime, now, encounterType.getId(), pageable, formMapping.getSubjectType(), SyncParameters.SyncEntityName.Encounter));
+        return formMapping;
     }
 
     @DeleteMapping("/web/encounter/{uuid}")
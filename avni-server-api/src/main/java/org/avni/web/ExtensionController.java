@@ -4,6 +4,7 @@ import org.avni.dao.ImplementationRepository;
 import org.avni.domain.Extension;
 import org.avni.domain.Organisation;
 import org.avni.framework.security.UserContextHolder;
+import org.avni.service.ExtensionService;
 import org.avni.service.OrganisationConfigService;
 import org.avni.service.S3Service;
 import org.avni.util.AvniFiles;
@@ -47,13 +48,15 @@ public class ExtensionController implements RestControllerResourceProcessor<Exte
     private final S3Service s3Service;
     private final OrganisationConfigService organisationConfigService;
     private final ImplementationRepository implementationRepository;
+    private final ExtensionService extensionService;
 
     @Autowired
     public ExtensionController(S3Service s3Service, OrganisationConfigService organisationConfigService,
-                               ImplementationRepository implementationRepository) {
+                               ImplementationRepository implementationRepository, ExtensionService extensionService) {
         this.s3Service = s3Service;
         this.organisationConfigService = organisationConfigService;
         this.implementationRepository = implementationRepository;
+        this.extensionService = extensionService;
         logger = LoggerFactory.getLogger(this.getClass());
     }
 
@@ -66,7 +69,7 @@ public class ExtensionController implements RestControllerResourceProcessor<Exte
         try {
             Path tempPath = Files.createTempDirectory(UUID.randomUUID().toString()).toFile().toPath();
             AvniFiles.extractFileToPath(file, tempPath);
-            s3Service.uploadExtensionFile(tempPath.toFile(), EXTENSION_DIR);
+            extensionService.uploadExtensionFiles(tempPath.toFile());
             return ResponseEntity.ok().build();
         } catch (IOException e) {
             logger.error(format("Error while uploading the files %s", e.getMessage()));
@@ -80,7 +83,7 @@ public class ExtensionController implements RestControllerResourceProcessor<Exte
     @GetMapping(value = "/extensions")
     @PreAuthorize(value = "hasAnyAuthority('organisation_admin', 'admin', 'user')")
     public PagedResources<Resource<Extension>> listExtensionFiles(@RequestParam("lastModifiedDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<DateTime> lastModifiedDateTime) {
-        return wrap(new PageImpl<>(s3Service.listExtensionFiles(lastModifiedDateTime)));
+        return wrap(new PageImpl<>(extensionService.listExtensionFiles(lastModifiedDateTime)));
     }
 
     @RequestMapping(value = "/extension/{basePath}/**", method = RequestMethod.GET)
@@ -27,7 +27,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.transaction.Transactional;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -52,6 +54,7 @@ public class IndividualController extends AbstractController<Individual> impleme
     private final ProgramEnrolmentConstructionService programEnrolmentConstructionService;
     private ScopeBasedSyncService<Individual> scopeBasedSyncService;
     private SubjectMigrationService subjectMigrationService;
+    private final SyncStreamWriter syncStreamWriter;
 
     @Autowired
     public IndividualController(IndividualRepository individualRepository,
@@ -66,7 +69,8 @@ public class IndividualController extends AbstractController<Individual> impleme
                                 IndividualSearchService individualSearchService,
                                 IdentifierAssignmentRepository identifierAssignmentRepository,
                                 ProgramEnrolmentConstructionService programEnrolmentConstructionService,
-                                ScopeBasedSyncService<Individual> scopeBasedSyncService, SubjectMigrationService subjectMigrationService) {
+                                ScopeBasedSyncService<Individual> scopeBasedSyncService, SubjectMigrationService subjectMigrationService,
+                                SyncStreamWriter syncStreamWriter) {
         this.individualRepository = individualRepository;
         this.locationRepository = locationRepository;
         this.genderRepository = genderRepository;
@@ -81,6 +85,7 @@ public class IndividualController extends AbstractController<Individual> impleme
         this.programEnrolmentConstructionService = programEnrolmentConstructionService;
         this.scopeBasedSyncService = scopeBasedSyncService;
         this.subjectMigrationService = subjectMigrationService;
+        this.syncStreamWriter = syncStreamWriter;
     }
 
     @RequestMapping(value = "/individuals", method = RequestMethod.POST)
@@ -136,11 +141,26 @@ public class IndividualController extends AbstractController<Individual> impleme
             @RequestParam("lastModifiedDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime lastModifiedDateTime,
             @RequestParam("now") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime now,
             @RequestParam(value = "subjectTypeUuid", required = false) String subjectTypeUuid,
+            @RequestParam(value = "continuationToken", required = false) String continuationToken,
             Pageable pageable) {
         if (subjectTypeUuid.isEmpty()) return wrap(new PageImpl<>(Collections.emptyList()));
         SubjectType subjectType = subjectTypeRepository.findByUuid(subjectTypeUuid);
         if (subjectType == null) return wrap(new PageImpl<>(Collections.emptyList()));
-        return wrap(scopeBasedSyncService.getSyncResult(individualRepository, userService.getCurrentUser(), lastModifiedDateTime, now, subjectType.getId(), pageable, subjectType, SyncParameters.SyncEntityName.Individual));
+        return wrap(scopeBasedSyncService.getSyncResult(individualRepository, userService.getCurrentUser(), lastModifiedDateTime, now, subjectType.getId(), pageable, subjectType, SyncParameters.SyncEntityName.Individual, continuationToken));
+    }
+
+    @GetMapping(value = "/individual", produces = SyncStreamWriter.MEDIA_TYPE)
+    @PreAuthorize(value = "hasAnyAuthority('user')")
+    public void streamIndividualsByOperatingIndividualScope(
+            @RequestParam("lastModifiedDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime lastModifiedDateTime,
+            @RequestParam("now") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime now,
+            @RequestParam(value = "subjectTypeUuid") String subjectTypeUuid,
+            HttpServletResponse response) throws IOException {
+        SubjectType subjectType = subjectTypeRepository.findByUuid(subjectTypeUuid);
+        syncStreamWriter.write(response, this, (toNode, lines) -> {
+            if (subjectType != null)
+                scopeBasedSyncService.streamSyncResult(individualRepository, userService.getCurrentUser(), lastModifiedDateTime, now, subjectType.getId(), subjectType, SyncParameters.SyncEntityName.Individual, toNode, lines);
+        });
     }
 
     @GetMapping(value = "/individual/search")
@@ -41,8 +41,9 @@ public class LocationMappingController implements RestControllerResourceProcesso
     public PagedResources<Resource<ParentLocationMapping>> getParentLocationMappingsByOperatingIndividualScope(
             @RequestParam("lastModifiedDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime lastModifiedDateTime,
             @RequestParam("now") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime now,
+            @RequestParam(value = "continuationToken", required = false) String continuationToken,
             Pageable pageable) {
-        return wrap(scopeBasedSyncService.getSyncResult(locationMappingRepository, userService.getCurrentUser(), lastModifiedDateTime, now, null, pageable, null, SyncParameters.SyncEntityName.LocationMapping));
+        return wrap(scopeBasedSyncService.getSyncResult(locationMappingRepository, userService.getCurrentUser(), lastModifiedDateTime, now, null, pageable, null, SyncParameters.SyncEntityName.LocationMapping, continuationToken));
     }
 
     @Override
@@ -27,6 +27,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.transaction.Transactional;
 import java.util.Collections;
 
@@ -39,15 +40,17 @@ public class ProgramEncounterController implements RestControllerResourceProcess
     private final ProgramEncounterService programEncounterService;
     private ScopeBasedSyncService<ProgramEncounter> scopeBasedSyncService;
     private FormMappingRepository formMappingRepository;
+    private final SyncStreamWriter syncStreamWriter;
 
     @Autowired
-    public ProgramEncounterController(EncounterTypeRepository encounterTypeRepository, ProgramEncounterRepository programEncounterRepository, UserService userService, ProgramEncounterService programEncounterService, ScopeBasedSyncService<ProgramEncounter> scopeBasedSyncService, FormMappingRepository formMappingRepository) {
+    public ProgramEncounterController(EncounterTypeRepository encounterTypeRepository, ProgramEncounterRepository programEncounterRepository, UserService userService, ProgramEncounterService programEncounterService, ScopeBasedSyncService<ProgramEncounter> scopeBasedSyncService, FormMappingRepository formMappingRepository, SyncStreamWriter syncStreamWriter) {
         this.encounterTypeRepository = encounterTypeRepository;
         this.programEncounterRepository = programEncounterRepository;
         this.userService = userService;
         this.programEncounterService = programEncounterService;
         this.scopeBasedSyncService = scopeBasedSyncService;
         this.formMappingRepository = formMappingRepository;
+        this.syncStreamWriter = syncStreamWriter;
     }
 
     @GetMapping(value = "/web/programEncounter/{uuid}")
@@ -96,18 +99,39 @@ public class ProgramEncounterController implements RestControllerResourceProcess
             @RequestParam("lastModifiedDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime lastModifiedDateTime,
             @RequestParam("now") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime now,
             @RequestParam(value = "programEncounterTypeUuid", required = false) String encounterTypeUuid,
+            @RequestParam(value = "continuationToken", required = false) String continuationToken,
             Pageable pageable) throws Exception {
         if (encounterTypeUuid.isEmpty()) return wrap(new PageImpl<>(Collections.emptyList()));
         EncounterType encounterType = encounterTypeRepository.findByUuid(encounterTypeUuid);
         if (encounterType == null) return wrap(new PageImpl<>(Collections.emptyList()));
+        FormMapping formMapping = getFormMapping(encounterType);
+        return wrap(scopeBasedSyncService.getSyncResult(programEncounterRepository, userService.getCurrentUser(), lastModifiedDateTime, now, encounterType.getId(), pageable, formMapping.getSubjectType(), SyncParameters.SyncEntityName.ProgramEncounter, continuationToken));
+    }
+
+    @GetMapping(value = "/programEncounter", produces = SyncStreamWriter.MEDIA_TYPE)
+    @PreAuthorize(value = "hasAnyAuthority('user')")
+    public void streamProgramEncountersByOperatingIndividualScope(
+            @RequestParam("lastModifiedDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime lastModifiedDateTime,
+            @RequestParam("now") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime now,
+            @RequestParam(value = "programEncounterTypeUuid") String encounterTypeUuid,
+            HttpServletResponse response) throws Exception {
+        EncounterType encounterType = encounterTypeRepository.findByUuid(encounterTypeUuid);
+        FormMapping formMapping = encounterType == null ? null : getFormMapping(encounterType);
+        syncStreamWriter.write(response, this, (toNode, lines) -> {
+            if (encounterType != null)
+                scopeBasedSyncService.streamSyncResult(programEncounterRepository, userService.getCurrentUser(), lastModifiedDateTime, now, encounterType.getId(), formMapping.getSubjectType(), SyncParameters.SyncEntityName.ProgramEncounter, toNode, lines);
+        });
+    }
+
+    private FormMapping getFormMapping(EncounterType encounterType) throws Exception {
         FormMapping formMapping = formMappingRepository.findByFormFormType(FormType.ProgramEncounter)
                 .stream()
-                .filter(fm -> fm.getEncounterTypeUuid().equals(encounterTypeUuid))
+                .filter(fm -> fm.getEncounterTypeUuid().equals(encounterType.getUuid()))
                 .findFirst()
                 .orElse(null);
         if (formMapping == null)
             throw new Exception(String.format("No form mapping found for program encounter %s", encounterType.getName()));
-        return wrap(scopeBasedSyncService.getSyncResult(programEncounterRepository, userService.getCurrentUser(), lastModifiedDateTime, now, encounterType.getId(), pageable, formMapping.getSubjectType(), SyncParameters.SyncEntityName.ProgramEncounter));
+        return formMapping;
     }
 
     @DeleteMapping("/web/programEncounter/{uuid}")
@@ -26,6 +26,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.transaction.Transactional;
 import java.util.Collections;
 
@@ -39,9 +40,10 @@ public class ProgramEnrolmentController extends AbstractController<ProgramEnrolm
     private final ProgramRepository programRepository;
     private ScopeBasedSyncService<ProgramEnrolment> scopeBasedSyncService;
     private FormMappingRepository formMappingRepository;
+    private final SyncStreamWriter syncStreamWriter;
 
     @Autowired
-    public ProgramEnrolmentController(ProgramRepository programRepository, ProgramEnrolmentRepository programEnrolmentRepository, UserService userService, ProjectionFactory projectionFactory, ProgramEnrolmentService programEnrolmentService, ScopeBasedSyncService<ProgramEnrolment> scopeBasedSyncService, FormMappingRepository formMappingRepository) {
+    public ProgramEnrolmentController(ProgramRepository programRepository, ProgramEnrolmentRepository programEnrolmentRepository, UserService userService, ProjectionFactory projectionFactory, ProgramEnrolmentService programEnrolmentService, ScopeBasedSyncService<ProgramEnrolment> scopeBasedSyncService, FormMappingRepository formMappingRepository, SyncStreamWriter syncStreamWriter) {
         this.programEnrolmentRepository = programEnrolmentRepository;
         this.userService = userService;
         this.projectionFactory = projectionFactory;
@@ -49,6 +51,7 @@ public class ProgramEnrolmentController extends AbstractController<ProgramEnrolm
         this.programRepository = programRepository;
         this.scopeBasedSyncService = scopeBasedSyncService;
         this.formMappingRepository = formMappingRepository;
+        this.syncStreamWriter = syncStreamWriter;
     }
 
     @RequestMapping(value = "/programEnrolments", method = RequestMethod.POST)
@@ -64,22 +67,43 @@ public class ProgramEnrolmentController extends AbstractController<ProgramEnrolm
             @RequestParam("lastModifiedDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime lastModifiedDateTime,
             @RequestParam("now") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime now,
             @RequestParam(value = "programUuid", required = false) String programUuid,
+            @RequestParam(value = "continuationToken", required = false) String continuationToken,
             Pageable pageable) throws Exception {
         if (programUuid.isEmpty()) return wrap(new PageImpl<>(Collections.emptyList()));
         else {
             Program program = programRepository.findByUuid(programUuid);
             if (program == null) return wrap(new PageImpl<>(Collections.emptyList()));
-            FormMapping formMapping = formMappingRepository.findByFormFormType(FormType.ProgramEnrolment)
-                    .stream()
-                    .filter(fm -> fm.getProgramUuid().equals(programUuid))
-                    .findFirst()
-                    .orElse(null);
-            if (formMapping == null)
-                throw new Exception(String.format("No form mapping found for program %s", program.getName()));
-            return wrap(scopeBasedSyncService.getSyncResult(programEnrolmentRepository, userService.getCurrentUser(), lastModifiedDateTime, now, program.getId(), pageable, formMapping.getSubjectType(), SyncParameters.SyncEntityName.Enrolment));
+            FormMapping formMapping = getFormMapping(program);
+            return wrap(scopeBasedSyncService.getSyncResult(programEnrolmentRepository, userService.getCurrentUser(), lastModifiedDateTime, now, program.getId(), pageable, formMapping.getSubjectType(), SyncParameters.SyncEntityName.Enrolment, continuationToken));
         }
     }
 
+    @GetMapping(value = "/programEnrolment", produces = SyncStreamWriter.MEDIA_TYPE)
+    @PreAuthorize(value = "hasAnyAuthority('user')")
+    public void streamProgramEnrolmentsByOperatingIndividualScope(
+            @RequestParam("lastModifiedDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime lastModifiedDateTime,
+            @RequestParam("now") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) DateTime now,
+            @RequestParam(value = "programUuid") String programUuid,
+            HttpServletResponse response) throws Exception {
+        Program program = programRepository.findByUuid(programUuid);
+        FormMapping formMapping = program == null ? null : getFormMapping(program);
+        syncStreamWriter.write(response, this, (toNode, lines) -> {
+            if (program != null)
+                scopeBasedSyncService.streamSyncResult(programEnrolmentRepository, userService.getCurrentUser(), lastModifiedDateTime, now, program.getId(), formMapping.getSubjectType(), SyncParameters.SyncEntityName.Enrolment, toNode, lines);
+        });
+    }
+
+    private FormMapping getFormMapping(Program program) throws Exception {
+        FormMapping formMapping = formMappingRepository.findByFormFormType(FormType.ProgramEnrolment)
+                .stream()
+                .filter(fm -> fm.getProgramUuid().equals(program.getUuid()))
+                .findFirst()
+                .orElse(null);
+        if (formMapping == null)
+            throw new Exception(String.format("No form mapping found for program %s", program.getName()));
+        return formMapping;
+    }
+
     @GetMapping("/web/programEnrolment/{uuid}")
     @PreAuthorize(value = "hasAnyAuthority('user')")
     @ResponseBody
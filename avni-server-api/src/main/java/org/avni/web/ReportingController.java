@@ -1,6 +1,7 @@
 package org.avni.web;
 
 import org.avni.application.Form;
+import org.avni.application.FormElement;
 import org.avni.application.FormMapping;
 import org.avni.application.projections.VirtualCatchmentProjection;
 import org.avni.dao.LocationRepository;
@@ -11,6 +12,7 @@ import org.avni.dao.application.FormRepository;
 import org.avni.domain.*;
 import org.avni.report.AggregateReportResult;
 import org.avni.report.AvniReportRepository;
+import org.avni.report.CodedConceptAggregateCache;
 import org.avni.report.ReportService;
 import org.avni.report.UserActivityResult;
 import org.avni.util.BadRequestError;
@@ -25,6 +27,7 @@ import javax.persistence.EntityNotFoundException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -39,6 +42,7 @@ public class ReportingController {
     private final LocationRepository locationRepository;
     private final UserGroupRepository userGroupRepository;
     private final UserRepository userRepository;
+    private final CodedConceptAggregateCache codedConceptAggregateCache;
 
     @Autowired
     public ReportingController(FormMappingRepository formMappingRepository,
@@ -47,7 +51,8 @@ public class ReportingController {
                                FormRepository formRepository,
                                LocationRepository locationRepository,
                                UserGroupRepository userGroupRepository,
-                               UserRepository userRepository) {
+                               UserRepository userRepository,
+                               CodedConceptAggregateCache codedConceptAggregateCache) {
         this.formMappingRepository = formMappingRepository;
         this.avniReportRepository = avniReportRepository;
         this.reportService = reportService;
@@ -55,6 +60,7 @@ public class ReportingController {
         this.locationRepository = locationRepository;
         this.userGroupRepository = userGroupRepository;
         this.userRepository = userRepository;
+        this.codedConceptAggregateCache = codedConceptAggregateCache;
     }
 
     @RequestMapping(value = "/report/aggregate/codedConcepts", method = RequestMethod.GET)
@@ -79,14 +85,18 @@ public class ReportingController {
         if (formMapping == null) {
             throw new EntityNotFoundException(String.format("Form mapping not found for ID %d", formMappingId));
         }
-        List<Long> lowestLocationIds = getLocations(locationIds);
-        return formMapping.getForm().getAllCodedFormElements()
+        List<FormElement> codedFormElements = formMapping.getForm().getAllCodedFormElements();
+        Map<String, List<AggregateReportResult>> aggregates = codedConceptAggregateCache.get(formMapping, startDate, endDate, locationIds,
+                () -> avniReportRepository.generateAggregatesForCodedConcepts(
+                        codedFormElements.stream().map(FormElement::getConcept).collect(Collectors.toList()),
+                        formMapping, startDate, endDate, getLocations(locationIds)));
+        return codedFormElements
                 .stream()
                 .map(fe -> {
                     Concept concept = fe.getConcept();
                     return new JsonObject()
                             .with("concept", concept)
-                            .with("data", avniReportRepository.generateAggregatesForCodedConcept(concept, formMapping, startDate, endDate, lowestLocationIds))
+                            .with("data", aggregates.getOrDefault(concept.getUuid(), new ArrayList<>()))
                             .with("isPie", fe.isMandatory() && concept.isCoded());
                 })
                 .collect(Collectors.toList());
@@ -120,9 +130,7 @@ public class ReportingController {
                                                           @RequestParam(value = "endDate", required = false) String endDate,
                                                           @RequestParam(value = "userIds", required = false, defaultValue = "") List<Long> userIds) {
         return avniReportRepository.generateUserActivityResults(
-                reportService.getDateDynamicWhere(startDate, endDate, "registration_date"),
-                reportService.getDateDynamicWhere(startDate, endDate, "encounter_date_time"),
-                reportService.getDateDynamicWhere(startDate, endDate, "enrolment_date_time"),
+                reportService.getDateDynamicWhere(startDate, endDate, "activity_date"),
                 reportService.getDynamicUserWhere(userIds, "u.id")
         );
     }
@@ -163,7 +171,7 @@ public class ReportingController {
                                                         @RequestParam(value = "userIds", required = false, defaultValue = "") List<Long> userIds) {
         return avniReportRepository.generateCompletedVisitsOnTimeByProportion(
                 ">= 0.8",
-                reportService.getDateDynamicWhere(startDate, endDate, "encounter_date_time"),
+                reportService.getDateDynamicWhere(startDate, endDate, "activity_date"),
                 reportService.getDynamicUserWhere(userIds, "u.id")
         );
     }
@@ -175,7 +183,7 @@ public class ReportingController {
                                                              @RequestParam(value = "userIds", required = false, defaultValue = "") List<Long> userIds) {
         return avniReportRepository.generateCompletedVisitsOnTimeByProportion(
                 "<= 0.5",
-                reportService.getDateDynamicWhere(startDate, endDate, "encounter_date_time"),
+                reportService.getDateDynamicWhere(startDate, endDate, "activity_date"),
                 reportService.getDynamicUserWhere(userIds, "u.id")
         );
     }
@@ -186,7 +194,7 @@ public class ReportingController {
                                                                     @RequestParam(value = "endDate", required = false) String endDate,
                                                                     @RequestParam(value = "userIds", required = false, defaultValue = "") List<Long> userIds) {
         return avniReportRepository.generateUserCancellingMostVisits(
-                reportService.getDateDynamicWhere(startDate, endDate, "encounter_date_time"),
+                reportService.getDateDynamicWhere(startDate, endDate, "activity_date"),
                 reportService.getDynamicUserWhere(userIds, "u.id"));
     }
 
@@ -1,5 +1,9 @@
 package org.avni.web;
 
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.avni.domain.UserContext;
 import org.avni.framework.security.AuthenticationFilter;
 import org.avni.framework.security.UserContextHolder;
@@ -10,23 +14,63 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class RestClient {
     @Value("${node.server.url}")
     private String NODE_SERVER_HOST;
     private Logger logger = LoggerFactory.getLogger(RestClient.class);
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate;
+
+    /**
+     * Connections to the rule server are pooled and kept alive, as bulk uploads call it for every row.
+     *
+     * @param maxConnections limits the number of concurrent calls to the rule server, further calls wait for a
+     *                       connection for up to connectTimeoutMillis
+     */
+    public RestClient(@Value("${node.server.connectTimeoutMillis}") int connectTimeoutMillis,
+                      @Value("${node.server.readTimeoutMillis}") int readTimeoutMillis,
+                      @Value("${node.server.maxConnections}") int maxConnections) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(connectTimeoutMillis)
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(readTimeoutMillis)
+                .build();
+        httpClient = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(30, TimeUnit.SECONDS)
+                .build();
+        restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
 
     public <T> String post(String api, T jsonObj) throws HttpClientErrorException {
         String uri = NODE_SERVER_HOST.concat(api);
-        RestTemplate restTemplate = new RestTemplate();
         HttpEntity<Object> entityCredentials = new HttpEntity<>(jsonObj, constructHeaders());
         try {
             return restTemplate.postForObject(uri, entityCredentials, String.class);
         } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() != HttpStatus.NOT_FOUND) {
+                logger.info("rule " + api + " failed with " + e.getStatusCode());
+                throw new HttpClientErrorException(e.getStatusCode(), "rule " + api + " failed with " + e.getStatusCode());
+            }
             logger.info("rule " + api + " not found");
             throw new HttpClientErrorException(HttpStatus.NOT_FOUND, "rule " + api + " not found");
         }
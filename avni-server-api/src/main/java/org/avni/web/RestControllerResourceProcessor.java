@@ -1,9 +1,14 @@
 package org.avni.web;
 
+import org.avni.dao.SyncContinuationToken;
+import org.avni.domain.CHSEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -22,6 +27,26 @@ public interface RestControllerResourceProcessor<T> {
         return new PagedResources<>(resources, pageMetadata);
     }
 
+    /**
+     * Slices read with a continuationToken have no page metadata. Instead the next link carries the token to continue
+     * from, and is absent on the last slice.
+     */
+    default PagedResources<Resource<T>> wrap(Slice<T> slice) {
+        if (slice instanceof Page) return wrap((Page<T>) slice);
+        List<Resource<T>> resources = new ArrayList<>();
+        for (T it : slice) resources.add(this.process(new Resource<>(it)));
+        List<Link> links = new ArrayList<>();
+        if (slice.hasNext()) {
+            String continuationToken = SyncContinuationToken.after((CHSEntity) slice.getContent().get(slice.getNumberOfElements() - 1));
+            String href = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("continuationToken", continuationToken)
+                    .replaceQueryParam("page")
+                    .toUriString();
+            links.add(new Link(href, Link.REL_NEXT));
+        }
+        return new PagedResources<>(resources, null, links);
+    }
+
     default List<Resource<T>> wrap(List<T> list) {
         return list.stream().map(t -> this.process(new Resource<>(t))).collect(Collectors.toList());
     }
@@ -1,5 +1,6 @@
 package org.avni.web;
 
+import org.avni.dao.EntityChangeRepository;
 import org.joda.time.DateTime;
 import org.avni.domain.*;
 import org.avni.service.*;
@@ -83,6 +84,7 @@ public class SyncController {
     private final ExtensionService extensionService;
     private final SubjectMigrationService subjectMigrationService;
     private SyncDetailsService syncDetailService;
+    private final MetadataWatermarkService metadataWatermarkService;
     private final Logger logger;
     private final DocumentationService documentationService;
     private final DocumentationItemService documentationItemService;
@@ -115,7 +117,8 @@ public class SyncController {
                           StandardReportCardTypeService standardReportCardTypeService, UserGroupService userGroupService,
                           LocationHierarchyService locationHierarchyService, ExtensionService extensionService,
                           SubjectMigrationService subjectMigrationService, SyncDetailsService syncDetailService,
-                          DocumentationService documentationService, DocumentationItemService documentationItemService) {
+                          DocumentationService documentationService, DocumentationItemService documentationItemService,
+                          MetadataWatermarkService metadataWatermarkService) {
         this.environment = environment;
         this.individualService = individualService;
         this.encounterService = encounterService;
@@ -173,6 +176,7 @@ public class SyncController {
         this.syncDetailService = syncDetailService;
         this.documentationService = documentationService;
         this.documentationItemService = documentationItemService;
+        this.metadataWatermarkService = metadataWatermarkService;
         this.logger = LoggerFactory.getLogger(this.getClass());
     }
 
@@ -261,8 +265,11 @@ public class SyncController {
                 entitySyncStatusContracts.add(EntitySyncStatusContract.create(syncableItem.getName(), syncableItem.getEntityTypeUuid()));
             }
         });
+        Set<String> changedMetadataEntities = getChangedMetadataEntities(entitySyncStatusContracts);
         List<EntitySyncStatusContract> changedEntities = entitySyncStatusContracts.stream()
-                .filter(this::filterChangedEntities)
+                .filter(entitySyncStatusContract -> EntityChangeRepository.canDetectChange(entitySyncStatusContract.getEntityName()) ?
+                        changedMetadataEntities.contains(entitySyncStatusContract.getEntityName()) :
+                        filterChangedEntities(entitySyncStatusContract))
                 .collect(Collectors.toList());
         logger.info(String.format("Time taken for stuff %d", new DateTime().getMillis() - afterSyncDetailsService));
         return ResponseEntity.ok().body(new JsonObject()
@@ -272,6 +279,14 @@ public class SyncController {
         );
     }
 
+    private Set<String> getChangedMetadataEntities(List<EntitySyncStatusContract> entitySyncStatusContracts) {
+        Map<String, DateTime> lastModifiedDateTimes = new HashMap<>();
+        entitySyncStatusContracts.stream()
+                .filter(entitySyncStatusContract -> EntityChangeRepository.canDetectChange(entitySyncStatusContract.getEntityName()))
+                .forEach(entitySyncStatusContract -> lastModifiedDateTimes.put(entitySyncStatusContract.getEntityName(), entitySyncStatusContract.getLoadedSince()));
+        return metadataWatermarkService.getChangedEntityNames(lastModifiedDateTimes);
+    }
+
     private boolean filterChangedEntities(EntitySyncStatusContract entitySyncStatusContract) {
         String entityName = entitySyncStatusContract.getEntityName();
         DateTime loadedSince = entitySyncStatusContract.getLoadedSince();
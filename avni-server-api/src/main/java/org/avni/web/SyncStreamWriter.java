@@ -0,0 +1,63 @@
+package org.avni.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Writes sync entities as newline delimited JSON, one entity per line, instead of a page of HAL resources. The links
+ * that the resource processor adds (addressUUID, subjectTypeUUID...) become plain fields of the entity. The response
+ * is flushed every few entities so that the device can start processing before the whole result is read.
+ */
+@Component
+public class SyncStreamWriter {
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+    private static final int FLUSH_SIZE = 100;
+    private final ObjectMapper objectMapper;
+
+    public SyncStreamWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param entities is given the function converting an entity to its line, which needs the entity's session, and
+     *                 the consumer to pass each line to write
+     */
+    public <T> void write(HttpServletResponse response, RestControllerResourceProcessor<T> resourceProcessor, BiConsumer<Function<T, ObjectNode>, Consumer<ObjectNode>> entities) throws IOException {
+        response.setContentType(MEDIA_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            int[] written = {0};
+            entities.accept(entity -> toNode(resourceProcessor.process(new Resource<>(entity))), node -> {
+                try {
+                    generator.writeTree(node);
+                    generator.writeRaw('\n');
+                    if (++written[0] % FLUSH_SIZE == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private ObjectNode toNode(Resource<?> resource) {
+        ObjectNode node = objectMapper.valueToTree(resource.getContent());
+        for (Link link : resource.getLinks()) {
+            node.put(link.getRel(), link.getHref());
+        }
+        return node;
+    }
+}
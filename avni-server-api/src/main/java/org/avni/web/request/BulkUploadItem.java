@@ -0,0 +1,32 @@
+package org.avni.web.request;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * An entity in a bulk upload, with the name of the resource it would have been posted to on its own, like
+ * "individuals" or "programEncounters".
+ */
+public class BulkUploadItem {
+    private String resource;
+    private JsonNode entity;
+
+    public String getResource() {
+        return resource;
+    }
+
+    public void setResource(String resource) {
+        this.resource = resource;
+    }
+
+    public JsonNode getEntity() {
+        return entity;
+    }
+
+    public void setEntity(JsonNode entity) {
+        this.entity = entity;
+    }
+
+    public String getUuid() {
+        return entity == null || !entity.hasNonNull("uuid") ? null : entity.get("uuid").asText();
+    }
+}
@@ -0,0 +1,43 @@
+package org.avni.web.response;
+
+public class BulkUploadItemResponse {
+    public enum Status {
+        Saved, Failed
+    }
+
+    private final String resource;
+    private final String uuid;
+    private final Status status;
+    private final String errorMessage;
+
+    private BulkUploadItemResponse(String resource, String uuid, Status status, String errorMessage) {
+        this.resource = resource;
+        this.uuid = uuid;
+        this.status = status;
+        this.errorMessage = errorMessage;
+    }
+
+    public static BulkUploadItemResponse saved(String resource, String uuid) {
+        return new BulkUploadItemResponse(resource, uuid, Status.Saved, null);
+    }
+
+    public static BulkUploadItemResponse failed(String resource, String uuid, String errorMessage) {
+        return new BulkUploadItemResponse(resource, uuid, Status.Failed, errorMessage);
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
@@ -24,6 +24,12 @@ public class Response {
 
     public static void mapObservations(ConceptRepository conceptRepository, ConceptService conceptService, LinkedHashMap<String, Object> observationsResponse, ObservationCollection observations) {
         ObservationCollection obs = Optional.ofNullable(observations).orElse(new ObservationCollection());
+        Map<String, String> conceptMap = conceptService.getConceptUuidToNameMapFromCatalogue(obs)
+                .orElseGet(() -> getConceptUuidToNameMap(conceptRepository, obs));
+        obs.forEach((key, value) -> observationsResponse.put(conceptMap.get(key), conceptService.getObservationValue(conceptMap, value)));
+    }
+
+    private static Map<String, String> getConceptUuidToNameMap(ConceptRepository conceptRepository, ObservationCollection obs) {
         String stringObservations;
         try {
             stringObservations = ObjectMapperSingleton.getObjectMapper().writeValueAsString(obs);
@@ -31,8 +37,7 @@ public class Response {
             throw new RuntimeException(String.format("Error while processing observation %s", obs.toString()));
         }
         List<Map<String, String>> conceptMaps = conceptRepository.getConceptUuidToNameMapList(stringObservations);
-        Map<String, String> conceptMap = conceptMaps.stream().collect(Collectors.toMap(s -> s.get("uuid"), s -> s.get("name")));
-        obs.forEach((key, value) -> observationsResponse.put(conceptMap.get(key), conceptService.getObservationValue(conceptMap, value)));
+        return conceptMaps.stream().collect(Collectors.toMap(s -> s.get("uuid"), s -> s.get("name")));
     }
 
     static void putObservations(ConceptRepository conceptRepository, ConceptService conceptService, Map<String, Object> parentMap, LinkedHashMap<String, Object> observationsResponse, ObservationCollection observations) {
@@ -67,17 +67,16 @@ CREATE OR REPLACE function title_lineage_locations_function(addressId bigint)
     SECURITY INVOKER
 AS
 $$
-select al.id lowestpoint_id, string_agg(alevel_in_lineage.title, ', ' order by lineage.level) title_lineage
+select al.id lowestpoint_id, al.title_lineage
 from address_level al
-         join regexp_split_to_table(al.lineage :: text, '[.]') with ordinality lineage (point_id, level) ON TRUE
-         join address_level alevel_in_lineage on alevel_in_lineage.id = lineage.point_id :: int
-where case when addressId isnull then true else al.id = addressId end
-group by al.id
+where al.title_lineage is not null
+  and case when addressId isnull then true else al.id = addressId end
 $$;
 
 CREATE OR REPLACE VIEW title_lineage_locations_view AS
-select *
-from title_lineage_locations_function(null);
+select al.id lowestpoint_id, al.title_lineage
+from address_level al
+where al.title_lineage is not null;
 
 CREATE OR REPLACE VIEW individual_program_enrolment_search_view AS
 SELECT progralalise.individual_id,
@@ -0,0 +1,2 @@
+create index address_level_lineage_index
+    on address_level using gist (lineage);
@@ -0,0 +1,87 @@
+alter table address_level
+    add column title_lineage text;
+
+update address_level al
+set title_lineage = (select string_agg(ancestor.title, ', ' order by nlevel(ancestor.lineage))
+                     from address_level ancestor
+                     where ancestor.lineage @> al.lineage)
+where al.lineage is not null;
+
+create index address_level_lower_title_lineage_index
+    on address_level (lower(title_lineage));
+
+CREATE OR REPLACE FUNCTION title_lineage_of_address_level(address_lineage ltree, address_title text)
+    RETURNS text
+    LANGUAGE sql
+    STABLE
+AS
+$$
+select case
+           when address_lineage is null then null
+           else concat_ws(', ', (select string_agg(ancestor.title, ', ' order by nlevel(ancestor.lineage))
+                                 from address_level ancestor
+                                 where ancestor.lineage @> address_lineage
+                                   and ancestor.lineage <> address_lineage), address_title)
+           end
+$$;
+
+CREATE OR REPLACE FUNCTION address_level_title_lineage_before_save()
+    RETURNS TRIGGER
+    LANGUAGE PLPGSQL
+AS
+$$
+BEGIN
+    NEW.title_lineage = title_lineage_of_address_level(NEW.lineage, NEW.title);
+    RETURN NEW;
+END;
+$$;
+
+-- The address levels below the ones renamed or moved get their title lineage again once per statement, after all its
+-- rows are updated, so that a statement moving a subtree sees the new lineage of all its rows and updates the subtree
+-- once. Transition tables cannot be used with a column list, so the trigger fires for every update and looks for a
+-- changed title or lineage itself.
+CREATE OR REPLACE FUNCTION address_level_title_lineage_after_update()
+    RETURNS TRIGGER
+    LANGUAGE PLPGSQL
+AS
+$$
+BEGIN
+    -- Also stops the update below from firing this again, a statement trigger fires even when no row is updated
+    IF NOT exists(select 1
+                  from new_address_level new_row
+                           join old_address_level old_row on old_row.id = new_row.id
+                  where old_row.title is distinct from new_row.title
+                     or old_row.lineage is distinct from new_row.lineage) THEN
+        RETURN NULL;
+    END IF;
+
+    -- The moved rows themselves too, their title lineage was set before the rows above them were moved
+    update address_level descendant
+    set title_lineage = title_lineage_of_address_level(descendant.lineage, descendant.title)
+    where exists(select 1
+                 from new_address_level new_row
+                          join old_address_level old_row on old_row.id = new_row.id
+                 where (old_row.title is distinct from new_row.title or old_row.lineage is distinct from new_row.lineage)
+                   and descendant.lineage <@ new_row.lineage);
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER address_level_title_lineage_before_insert
+    BEFORE INSERT
+    ON address_level
+    FOR EACH ROW
+EXECUTE PROCEDURE address_level_title_lineage_before_save();
+
+CREATE TRIGGER address_level_title_lineage_before_update
+    BEFORE UPDATE OF title, lineage
+    ON address_level
+    FOR EACH ROW
+EXECUTE PROCEDURE address_level_title_lineage_before_save();
+
+CREATE TRIGGER address_level_title_lineage_after_update
+    AFTER UPDATE
+    ON address_level
+    REFERENCING OLD TABLE AS old_address_level NEW TABLE AS new_address_level
+    FOR EACH STATEMENT
+EXECUTE PROCEDURE address_level_title_lineage_after_update();
@@ -0,0 +1,24 @@
+create table extension_file
+(
+    id                      SERIAL PRIMARY KEY,
+    uuid                    varchar(255)                NOT NULL,
+    name                    text                        NOT NULL,
+    size                    bigint,
+    hash                    varchar(255),
+    file_modified_date_time timestamp(3) with time zone NOT NULL,
+    organisation_id         integer                     NOT NULL references organisation (id),
+    is_voided               boolean                     NOT NULL DEFAULT FALSE,
+    version                 integer                     not null,
+    created_by_id           bigint                      not null,
+    last_modified_by_id     bigint                      not null,
+    created_date_time       timestamp(3) with time zone not null,
+    last_modified_date_time timestamp(3) with time zone not null
+);
+
+alter table extension_file
+    add unique (uuid, organisation_id);
+
+alter table extension_file
+    add unique (name, organisation_id);
+
+select enable_rls_on_tx_table('extension_file');
@@ -0,0 +1,17 @@
+-- pg_trgm is created with the other extensions by a superuser (see _build_db in the Makefile), like ltree and hstore.
+--
+-- Each index is built under a share lock on its table, which blocks saving subjects, enrolments and identifier
+-- assignments (reads go on) until the index is built. The build takes a scan of the table, longest for the
+-- observations. Where that would hold up syncs for too long, build the indexes beforehand without the lock with
+-- make create_subject_search_indexes, after which these statements do nothing.
+
+-- Substring (ilike '%token%') search of the web app
+create index if not exists individual_first_name_trgm_index on individual using gin (first_name gin_trgm_ops);
+create index if not exists individual_last_name_trgm_index on individual using gin (last_name gin_trgm_ops);
+create index if not exists identifier_assignment_identifier_trgm_index on identifier_assignment using gin (identifier gin_trgm_ops);
+create index if not exists individual_observations_trgm_index on individual using gin ((observations :: text) gin_trgm_ops);
+create index if not exists program_enrolment_observations_trgm_index on program_enrolment using gin ((observations :: text) gin_trgm_ops);
+
+-- Prefix (upper(...) like 'TOKEN%') search of the individual api
+create index if not exists individual_upper_first_name_index on individual (upper(first_name) text_pattern_ops);
+create index if not exists individual_upper_last_name_index on individual (upper(last_name) text_pattern_ops);
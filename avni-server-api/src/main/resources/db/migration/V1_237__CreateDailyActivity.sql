@@ -0,0 +1,388 @@
+-- Counts of the subjects, enrolments and visits saved, by day, type, address and user, kept up to date by the triggers
+-- below, for the activity and HR dashboards. A row stays with zero counts when all the rows it counted are voided.
+-- The activity date of an encounter is null until it is done.
+-- The triggers do not add to the shared rows of daily_activity, as saves of the same day, type, address and user would
+-- then wait on each other's row lock till commit. They only append the change to daily_activity_delta, which
+-- roll_up_daily_activity() moves into daily_activity from time to time. The reports read both tables.
+create table daily_activity
+(
+    id                   SERIAL PRIMARY KEY,
+    organisation_id      integer NOT NULL references organisation (id),
+    entity               text    NOT NULL,
+    activity_date        date,
+    type_id              integer NOT NULL,
+    address_id           bigint,
+    user_id              bigint,
+    row_count            bigint  NOT NULL DEFAULT 0,
+    completed_count      bigint  NOT NULL DEFAULT 0,
+    on_time_count        bigint  NOT NULL DEFAULT 0,
+    scheduled_done_count bigint  NOT NULL DEFAULT 0,
+    cancelled_count      bigint  NOT NULL DEFAULT 0,
+    exited_count         bigint  NOT NULL DEFAULT 0
+);
+
+create unique index daily_activity_bucket_index
+    on daily_activity (organisation_id, entity, coalesce(activity_date, 'infinity'::date), type_id, coalesce(address_id, 0),
+                       coalesce(user_id, 0));
+
+create index daily_activity_organisation_id_entity_activity_date_index
+    on daily_activity (organisation_id, entity, activity_date);
+
+select enable_rls_on_tx_table('daily_activity');
+
+create table daily_activity_delta
+(
+    id                   BIGSERIAL PRIMARY KEY,
+    organisation_id      integer NOT NULL references organisation (id),
+    entity               text    NOT NULL,
+    activity_date        date,
+    type_id              integer NOT NULL,
+    address_id           bigint,
+    user_id              bigint,
+    row_count            bigint  NOT NULL DEFAULT 0,
+    completed_count      bigint  NOT NULL DEFAULT 0,
+    on_time_count        bigint  NOT NULL DEFAULT 0,
+    scheduled_done_count bigint  NOT NULL DEFAULT 0,
+    cancelled_count      bigint  NOT NULL DEFAULT 0,
+    exited_count         bigint  NOT NULL DEFAULT 0
+);
+
+create index daily_activity_delta_organisation_id_entity_activity_date_index
+    on daily_activity_delta (organisation_id, entity, activity_date);
+
+select enable_rls_on_tx_table('daily_activity_delta');
+
+CREATE OR REPLACE FUNCTION add_daily_activity(activity_organisation_id integer, activity_entity text, activity_day date,
+                                              activity_type_id bigint, activity_address_id bigint,
+                                              activity_user_id bigint, added_row_count bigint,
+                                              added_completed_count bigint, added_on_time_count bigint,
+                                              added_scheduled_done_count bigint, added_cancelled_count bigint,
+                                              added_exited_count bigint)
+    RETURNS VOID
+    LANGUAGE sql
+AS
+$$
+insert into daily_activity_delta (organisation_id, entity, activity_date, type_id, address_id, user_id, row_count,
+                                  completed_count, on_time_count, scheduled_done_count, cancelled_count, exited_count)
+values (activity_organisation_id, activity_entity, activity_day, activity_type_id, activity_address_id,
+        activity_user_id, added_row_count, added_completed_count, added_on_time_count, added_scheduled_done_count,
+        added_cancelled_count, added_exited_count);
+$$;
+
+-- Deltas committed after this starts are left for the next run. A run started at the same time waits for the deleted
+-- rows and then skips them.
+CREATE OR REPLACE FUNCTION roll_up_daily_activity()
+    RETURNS VOID
+    LANGUAGE sql
+AS
+$$
+with deltas as (
+    delete from daily_activity_delta
+        returning organisation_id, entity, activity_date, type_id, address_id, user_id, row_count, completed_count,
+            on_time_count, scheduled_done_count, cancelled_count, exited_count
+)
+insert
+into daily_activity (organisation_id, entity, activity_date, type_id, address_id, user_id, row_count,
+                     completed_count, on_time_count, scheduled_done_count, cancelled_count, exited_count)
+select organisation_id,
+       entity,
+       activity_date,
+       type_id,
+       address_id,
+       user_id,
+       sum(row_count),
+       sum(completed_count),
+       sum(on_time_count),
+       sum(scheduled_done_count),
+       sum(cancelled_count),
+       sum(exited_count)
+from deltas
+group by organisation_id, entity, activity_date, type_id, address_id, user_id
+on conflict (organisation_id, entity, coalesce(activity_date, 'infinity'::date), type_id, coalesce(address_id, 0),
+    coalesce(user_id, 0))
+    do update set row_count            = daily_activity.row_count + excluded.row_count,
+                  completed_count      = daily_activity.completed_count + excluded.completed_count,
+                  on_time_count        = daily_activity.on_time_count + excluded.on_time_count,
+                  scheduled_done_count = daily_activity.scheduled_done_count + excluded.scheduled_done_count,
+                  cancelled_count      = daily_activity.cancelled_count + excluded.cancelled_count,
+                  exited_count         = daily_activity.exited_count + excluded.exited_count;
+$$;
+
+-- Adds (direction 1) or removes (direction -1) the counts of the enrolments and visits of a subject at an address,
+-- used to move them when the subject moves
+CREATE OR REPLACE FUNCTION add_daily_activity_of_individual_children(activity_individual_id bigint,
+                                                                     activity_address_id bigint, direction integer)
+    RETURNS VOID
+    LANGUAGE PLPGSQL
+AS
+$$
+BEGIN
+    PERFORM add_daily_activity(organisation_id, entity, activity_date, type_id, activity_address_id, user_id,
+                               direction * row_count, direction * completed_count, direction * on_time_count,
+                               direction * scheduled_done_count, direction * cancelled_count, direction * exited_count)
+    from (select e.organisation_id,
+                 'encounter'                                                                     as entity,
+                 e.encounter_date_time::date                                                     as activity_date,
+                 e.encounter_type_id                                                             as type_id,
+                 e.last_modified_by_id                                                           as user_id,
+                 count(*)                                                                        as row_count,
+                 count(*) filter ( where e.encounter_date_time notnull and e.cancel_date_time isnull ) as completed_count,
+                 count(*) filter ( where e.encounter_date_time <= e.max_visit_date_time )        as on_time_count,
+                 count(*) filter ( where e.encounter_date_time notnull and e.earliest_visit_date_time notnull ) as scheduled_done_count,
+                 count(*) filter ( where e.cancel_date_time notnull )                            as cancelled_count,
+                 0                                                                               as exited_count
+          from encounter e
+          where e.individual_id = activity_individual_id
+            and e.is_voided = false
+          group by 1, 2, 3, 4, 5
+          union all
+          select e.organisation_id,
+                 'program_enrolment',
+                 e.enrolment_date_time::date,
+                 e.program_id,
+                 e.last_modified_by_id,
+                 count(*),
+                 0,
+                 0,
+                 0,
+                 0,
+                 count(*) filter ( where e.program_exit_date_time notnull )
+          from program_enrolment e
+          where e.individual_id = activity_individual_id
+            and e.is_voided = false
+          group by 1, 2, 3, 4, 5
+          union all
+          select e.organisation_id,
+                 'program_encounter',
+                 e.encounter_date_time::date,
+                 e.encounter_type_id,
+                 e.last_modified_by_id,
+                 count(*),
+                 count(*) filter ( where e.encounter_date_time notnull and e.cancel_date_time isnull ),
+                 count(*) filter ( where e.encounter_date_time <= e.max_visit_date_time ),
+                 count(*) filter ( where e.encounter_date_time notnull and e.earliest_visit_date_time notnull ),
+                 count(*) filter ( where e.cancel_date_time notnull ),
+                 0
+          from program_encounter e
+                   join program_enrolment enl on enl.id = e.program_enrolment_id
+          where enl.individual_id = activity_individual_id
+            and e.is_voided = false
+          group by 1, 2, 3, 4, 5) children;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION individual_daily_activity()
+    RETURNS TRIGGER
+    LANGUAGE PLPGSQL
+AS
+$$
+BEGIN
+    IF TG_OP in ('UPDATE', 'DELETE') AND OLD.is_voided = false THEN
+        PERFORM add_daily_activity(OLD.organisation_id, 'individual', OLD.registration_date, OLD.subject_type_id,
+                                   OLD.address_id, OLD.last_modified_by_id, -1, 0, 0, 0, 0, 0);
+    END IF;
+    IF TG_OP in ('INSERT', 'UPDATE') AND NEW.is_voided = false THEN
+        PERFORM add_daily_activity(NEW.organisation_id, 'individual', NEW.registration_date, NEW.subject_type_id,
+                                   NEW.address_id, NEW.last_modified_by_id, 1, 0, 0, 0, 0, 0);
+    END IF;
+    IF TG_OP = 'UPDATE' AND OLD.address_id IS DISTINCT FROM NEW.address_id THEN
+        PERFORM add_daily_activity_of_individual_children(NEW.id, OLD.address_id, -1);
+        PERFORM add_daily_activity_of_individual_children(NEW.id, NEW.address_id, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION program_enrolment_daily_activity()
+    RETURNS TRIGGER
+    LANGUAGE PLPGSQL
+AS
+$$
+BEGIN
+    IF TG_OP in ('UPDATE', 'DELETE') AND OLD.is_voided = false THEN
+        PERFORM add_daily_activity(OLD.organisation_id, 'program_enrolment', OLD.enrolment_date_time::date,
+                                   OLD.program_id,
+                                   (select address_id from individual where id = OLD.individual_id),
+                                   OLD.last_modified_by_id, -1, 0, 0, 0, 0,
+                                   case when OLD.program_exit_date_time notnull then -1 else 0 end);
+    END IF;
+    IF TG_OP in ('INSERT', 'UPDATE') AND NEW.is_voided = false THEN
+        PERFORM add_daily_activity(NEW.organisation_id, 'program_enrolment', NEW.enrolment_date_time::date,
+                                   NEW.program_id,
+                                   (select address_id from individual where id = NEW.individual_id),
+                                   NEW.last_modified_by_id, 1, 0, 0, 0, 0,
+                                   case when NEW.program_exit_date_time notnull then 1 else 0 end);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+-- Shared by encounter and program_encounter, which differ only in how the address of the subject is found
+CREATE OR REPLACE FUNCTION add_encounter_daily_activity(activity_entity text, encounter_row anyelement,
+                                                        activity_address_id bigint, direction integer)
+    RETURNS VOID
+    LANGUAGE PLPGSQL
+AS
+$$
+BEGIN
+    PERFORM add_daily_activity(encounter_row.organisation_id, activity_entity,
+                               encounter_row.encounter_date_time::date, encounter_row.encounter_type_id,
+                               activity_address_id, encounter_row.last_modified_by_id, direction,
+                               case when encounter_row.encounter_date_time notnull and encounter_row.cancel_date_time isnull then direction else 0 end,
+                               case when encounter_row.encounter_date_time <= encounter_row.max_visit_date_time then direction else 0 end,
+                               case when encounter_row.encounter_date_time notnull and encounter_row.earliest_visit_date_time notnull then direction else 0 end,
+                               case when encounter_row.cancel_date_time notnull then direction else 0 end,
+                               0);
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION encounter_daily_activity()
+    RETURNS TRIGGER
+    LANGUAGE PLPGSQL
+AS
+$$
+BEGIN
+    IF TG_OP in ('UPDATE', 'DELETE') AND OLD.is_voided = false THEN
+        PERFORM add_encounter_daily_activity('encounter', OLD,
+                                             (select address_id from individual where id = OLD.individual_id), -1);
+    END IF;
+    IF TG_OP in ('INSERT', 'UPDATE') AND NEW.is_voided = false THEN
+        PERFORM add_encounter_daily_activity('encounter', NEW,
+                                             (select address_id from individual where id = NEW.individual_id), 1);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION program_encounter_daily_activity()
+    RETURNS TRIGGER
+    LANGUAGE PLPGSQL
+AS
+$$
+BEGIN
+    IF TG_OP in ('UPDATE', 'DELETE') AND OLD.is_voided = false THEN
+        PERFORM add_encounter_daily_activity('program_encounter', OLD,
+                                             (select i.address_id
+                                              from program_enrolment enl
+                                                       join individual i on i.id = enl.individual_id
+                                              where enl.id = OLD.program_enrolment_id), -1);
+    END IF;
+    IF TG_OP in ('INSERT', 'UPDATE') AND NEW.is_voided = false THEN
+        PERFORM add_encounter_daily_activity('program_encounter', NEW,
+                                             (select i.address_id
+                                              from program_enrolment enl
+                                                       join individual i on i.id = enl.individual_id
+                                              where enl.id = NEW.program_enrolment_id), 1);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+-- Updates that do not change what is counted, like most of the updates from sync, skip the triggers
+CREATE TRIGGER individual_daily_activity_insert_delete
+    AFTER INSERT OR DELETE
+    ON individual
+    FOR EACH ROW
+EXECUTE PROCEDURE individual_daily_activity();
+
+CREATE TRIGGER individual_daily_activity_update
+    AFTER UPDATE
+    ON individual
+    FOR EACH ROW
+    WHEN ((OLD.is_voided, OLD.registration_date, OLD.subject_type_id, OLD.address_id, OLD.last_modified_by_id,
+           OLD.organisation_id) IS DISTINCT FROM
+          (NEW.is_voided, NEW.registration_date, NEW.subject_type_id, NEW.address_id, NEW.last_modified_by_id,
+           NEW.organisation_id))
+EXECUTE PROCEDURE individual_daily_activity();
+
+CREATE TRIGGER program_enrolment_daily_activity_insert_delete
+    AFTER INSERT OR DELETE
+    ON program_enrolment
+    FOR EACH ROW
+EXECUTE PROCEDURE program_enrolment_daily_activity();
+
+CREATE TRIGGER program_enrolment_daily_activity_update
+    AFTER UPDATE
+    ON program_enrolment
+    FOR EACH ROW
+    WHEN ((OLD.is_voided, OLD.enrolment_date_time, OLD.program_exit_date_time, OLD.program_id, OLD.individual_id,
+           OLD.last_modified_by_id, OLD.organisation_id) IS DISTINCT FROM
+          (NEW.is_voided, NEW.enrolment_date_time, NEW.program_exit_date_time, NEW.program_id, NEW.individual_id,
+           NEW.last_modified_by_id, NEW.organisation_id))
+EXECUTE PROCEDURE program_enrolment_daily_activity();
+
+CREATE TRIGGER encounter_daily_activity_insert_delete
+    AFTER INSERT OR DELETE
+    ON encounter
+    FOR EACH ROW
+EXECUTE PROCEDURE encounter_daily_activity();
+
+CREATE TRIGGER encounter_daily_activity_update
+    AFTER UPDATE
+    ON encounter
+    FOR EACH ROW
+    WHEN ((OLD.is_voided, OLD.encounter_date_time, OLD.earliest_visit_date_time, OLD.max_visit_date_time,
+           OLD.cancel_date_time, OLD.encounter_type_id, OLD.individual_id, OLD.last_modified_by_id,
+           OLD.organisation_id) IS DISTINCT FROM
+          (NEW.is_voided, NEW.encounter_date_time, NEW.earliest_visit_date_time, NEW.max_visit_date_time,
+           NEW.cancel_date_time, NEW.encounter_type_id, NEW.individual_id, NEW.last_modified_by_id,
+           NEW.organisation_id))
+EXECUTE PROCEDURE encounter_daily_activity();
+
+CREATE TRIGGER program_encounter_daily_activity_insert_delete
+    AFTER INSERT OR DELETE
+    ON program_encounter
+    FOR EACH ROW
+EXECUTE PROCEDURE program_encounter_daily_activity();
+
+CREATE TRIGGER program_encounter_daily_activity_update
+    AFTER UPDATE
+    ON program_encounter
+    FOR EACH ROW
+    WHEN ((OLD.is_voided, OLD.encounter_date_time, OLD.earliest_visit_date_time, OLD.max_visit_date_time,
+           OLD.cancel_date_time, OLD.encounter_type_id, OLD.program_enrolment_id, OLD.last_modified_by_id,
+           OLD.organisation_id) IS DISTINCT FROM
+          (NEW.is_voided, NEW.encounter_date_time, NEW.earliest_visit_date_time, NEW.max_visit_date_time,
+           NEW.cancel_date_time, NEW.encounter_type_id, NEW.program_enrolment_id, NEW.last_modified_by_id,
+           NEW.organisation_id))
+EXECUTE PROCEDURE program_encounter_daily_activity();
+
+insert into daily_activity (organisation_id, entity, activity_date, type_id, address_id, user_id, row_count,
+                            completed_count, on_time_count, scheduled_done_count, cancelled_count, exited_count)
+select i.organisation_id, 'individual', i.registration_date, i.subject_type_id, i.address_id, i.last_modified_by_id,
+       count(*), 0, 0, 0, 0, 0
+from individual i
+where i.is_voided = false
+group by 1, 2, 3, 4, 5, 6
+union all
+select e.organisation_id, 'program_enrolment', e.enrolment_date_time::date, e.program_id, i.address_id,
+       e.last_modified_by_id, count(*), 0, 0, 0, 0, count(*) filter ( where e.program_exit_date_time notnull )
+from program_enrolment e
+         join individual i on i.id = e.individual_id
+where e.is_voided = false
+group by 1, 2, 3, 4, 5, 6
+union all
+select e.organisation_id, 'encounter', e.encounter_date_time::date, e.encounter_type_id, i.address_id,
+       e.last_modified_by_id, count(*),
+       count(*) filter ( where e.encounter_date_time notnull and e.cancel_date_time isnull ),
+       count(*) filter ( where e.encounter_date_time <= e.max_visit_date_time ),
+       count(*) filter ( where e.encounter_date_time notnull and e.earliest_visit_date_time notnull ),
+       count(*) filter ( where e.cancel_date_time notnull ),
+       0
+from encounter e
+         join individual i on i.id = e.individual_id
+where e.is_voided = false
+group by 1, 2, 3, 4, 5, 6
+union all
+select e.organisation_id, 'program_encounter', e.encounter_date_time::date, e.encounter_type_id, i.address_id,
+       e.last_modified_by_id, count(*),
+       count(*) filter ( where e.encounter_date_time notnull and e.cancel_date_time isnull ),
+       count(*) filter ( where e.encounter_date_time <= e.max_visit_date_time ),
+       count(*) filter ( where e.encounter_date_time notnull and e.earliest_visit_date_time notnull ),
+       count(*) filter ( where e.cancel_date_time notnull ),
+       0
+from program_encounter e
+         join program_enrolment enl on enl.id = e.program_enrolment_id
+         join individual i on i.id = enl.individual_id
+where e.is_voided = false
+group by 1, 2, 3, 4, 5, 6;
@@ -0,0 +1,69 @@
+package org.avni.dao;
+
+import org.avni.common.AbstractControllerIntegrationTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@Sql({"/test-data.sql"})
+public class AddressLevelTitleLineageIntegrationTest extends AbstractControllerIntegrationTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void createLocations() {
+        insert(100, "State", "100", null);
+        insert(101, "District", "100.101", 100L);
+        insert(102, "Block", "100.101.102", 101L);
+        insert(103, "Village", "100.101.102.103", 102L);
+        insert(110, "Other State", "110", null);
+    }
+
+    @Test
+    public void shouldSetTitleLineageOnInsert() {
+        assertEquals("State", titleLineageOf(100));
+        assertEquals("State, District, Block, Village", titleLineageOf(103));
+    }
+
+    @Test
+    public void shouldSetTitleLineageOfDescendantsWhenRenamed() {
+        jdbcTemplate.update("update address_level set title = 'Province' where id = 100");
+
+        assertEquals("Province", titleLineageOf(100));
+        assertEquals("Province, District", titleLineageOf(101));
+        assertEquals("Province, District, Block, Village", titleLineageOf(103));
+        assertEquals("Other State", titleLineageOf(110));
+    }
+
+    @Test
+    public void shouldSetTitleLineageOfSubtreeMovedInOneStatement() {
+        jdbcTemplate.update("update address_level set lineage = '110' || subpath(lineage, 1) where lineage <@ '100.101'");
+
+        assertEquals("State", titleLineageOf(100));
+        assertEquals("Other State, District", titleLineageOf(101));
+        assertEquals("Other State, District, Block", titleLineageOf(102));
+        assertEquals("Other State, District, Block, Village", titleLineageOf(103));
+    }
+
+    @Test
+    public void shouldNotChangeTitleLineageWhenOtherColumnsAreUpdated() {
+        jdbcTemplate.update("update address_level set title_lineage = null where id = 103");
+        jdbcTemplate.update("update address_level set version = version + 1 where lineage <@ '100'");
+
+        assertNull(titleLineageOf(103));
+    }
+
+    private void insert(long id, String title, String lineage, Long parentId) {
+        jdbcTemplate.update("insert into address_level (id, title, uuid, version, lineage, parent_id, created_by_id, last_modified_by_id, created_date_time, last_modified_date_time) " +
+                "values (?, ?, uuid_generate_v4(), 1, cast(? as ltree), ?, 1, 1, now(), now())", id, title, lineage, parentId);
+    }
+
+    private String titleLineageOf(long id) {
+        return jdbcTemplate.queryForObject("select title_lineage from address_level where id = ?", String.class, id);
+    }
+}
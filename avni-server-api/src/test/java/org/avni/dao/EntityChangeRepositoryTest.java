@@ -0,0 +1,52 @@
+package org.avni.dao;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EntityChangeRepositoryTest {
+
+    @Test
+    public void shouldCombineProbesForAllEntitiesIntoOneQuery() {
+        Map<String, DateTime> lastModifiedDateTimes = new LinkedHashMap<>();
+        lastModifiedDateTimes.put("Form", new DateTime(2021, 1, 1, 0, 0));
+        lastModifiedDateTimes.put("MyGroups", new DateTime(2021, 2, 1, 0, 0));
+        Map<String, Object> parameters = new HashMap<>();
+
+        String query = EntityChangeRepository.buildQuery(lastModifiedDateTimes, parameters);
+
+        assertThat(query).isEqualTo("select 'Form' where exists (select 1 from form where last_modified_date_time > :lastModifiedDateTime0)\n" +
+                "union all\n" +
+                "select 'MyGroups' where exists (select 1 from user_group where user_id = :userId and last_modified_date_time > :lastModifiedDateTime1)");
+        assertThat(parameters).containsKeys("lastModifiedDateTime0", "lastModifiedDateTime1");
+    }
+
+    @Test
+    public void shouldSkipEntitiesWithoutLastModifiedDateTime() {
+        Map<String, DateTime> lastModifiedDateTimes = new HashMap<>();
+        lastModifiedDateTimes.put("Concept", null);
+
+        assertThat(EntityChangeRepository.buildQuery(lastModifiedDateTimes, new HashMap<>())).isEmpty();
+    }
+
+    @Test
+    public void shouldNotDetectChangesForScopeAwareEntities() {
+        assertThat(EntityChangeRepository.canDetectChange("Individual")).isFalse();
+        assertThat(EntityChangeRepository.canDetectChange("Extension")).isFalse();
+        assertThat(EntityChangeRepository.canDetectChange("Concept")).isTrue();
+    }
+
+    @Test
+    public void shouldReadWatermarksOnlyForOrganisationWideEntities() {
+        String query = EntityChangeRepository.buildLastModifiedDateTimesQuery();
+
+        assertThat(query).contains("select 'News' as entity_name, (select max(last_modified_date_time) from news where published_date is not null) as last_modified_date_time");
+        assertThat(query).doesNotContain("user_group");
+        assertThat(EntityChangeRepository.isOrganisationWide("MyGroups")).isFalse();
+    }
+}
@@ -0,0 +1,78 @@
+package org.avni.dao;
+
+import org.avni.common.AbstractControllerIntegrationTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+
+@Sql({"/test-data.sql"})
+@Sql(value = {"/tear-down.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@Transactional
+public class LocationMoveIntegrationTest extends AbstractControllerIntegrationTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private LocationRepository locationRepository;
+    @Autowired
+    private LocationMappingRepository locationMappingRepository;
+
+    @Before
+    public void createLocations() {
+        insert(100, "State", "100", null);
+        insert(101, "District", "100.101", 100L);
+        insert(102, "Block", "100.101.102", 101L);
+        insert(103, "Village", "100.101.102.103", 102L);
+        insert(104, "Other Village", "100.101.102.104", 102L);
+        insert(110, "Other State", "110", null);
+    }
+
+    @Test
+    public void shouldMoveTheDescendantsEachWithItsOwnLastModifiedTime() {
+        int moved = locationRepository.moveDescendants("100.101", "110.101", 1L);
+
+        assertEquals(3, moved);
+        assertEquals("100.101", lineageOf(101));
+        assertEquals("110.101.102", lineageOf(102));
+        assertEquals("110.101.102.103", lineageOf(103));
+        assertEquals("110.101.102.104", lineageOf(104));
+        assertEquals("Other State, District, Block, Village", jdbcTemplate.queryForObject("select title_lineage from address_level where id = 103", String.class));
+        List<Timestamp> lastModifiedDateTimes = jdbcTemplate.queryForList("select last_modified_date_time from address_level where id in (102, 103, 104) order by id", Timestamp.class);
+        assertThat(lastModifiedDateTimes).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void shouldUpdateTheParentMappingsEachWithItsOwnLastModifiedTime() {
+        insertMapping(1000, 101, 100);
+        insertMapping(1001, 101, 100);
+
+        int updated = locationMappingRepository.updateParentLocation(101L, 110L, 1L);
+
+        assertEquals(2, updated);
+        assertThat(jdbcTemplate.queryForList("select parent_location_id from location_location_mapping where location_id = 101", Long.class)).containsOnly(110L);
+        List<Timestamp> lastModifiedDateTimes = jdbcTemplate.queryForList("select last_modified_date_time from location_location_mapping where location_id = 101 order by id", Timestamp.class);
+        assertThat(lastModifiedDateTimes).isSorted().doesNotHaveDuplicates();
+    }
+
+    private void insert(long id, String title, String lineage, Long parentId) {
+        jdbcTemplate.update("insert into address_level (id, title, uuid, version, lineage, parent_id, created_by_id, last_modified_by_id, created_date_time, last_modified_date_time) " +
+                "values (?, ?, uuid_generate_v4(), 1, cast(? as ltree), ?, 1, 1, now(), now())", id, title, lineage, parentId);
+    }
+
+    private void insertMapping(long id, long locationId, long parentLocationId) {
+        jdbcTemplate.update("insert into location_location_mapping (id, location_id, parent_location_id, uuid, version, created_by_id, last_modified_by_id, created_date_time, last_modified_date_time) " +
+                "values (?, ?, ?, uuid_generate_v4(), 1, 1, 1, now(), now())", id, locationId, parentLocationId);
+    }
+
+    private String lineageOf(long id) {
+        return jdbcTemplate.queryForObject("select cast(lineage as text) from address_level where id = ?", String.class, id);
+    }
+}
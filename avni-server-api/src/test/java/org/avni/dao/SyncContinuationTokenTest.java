@@ -0,0 +1,38 @@
+package org.avni.dao;
+
+import org.avni.domain.Individual;
+import org.avni.util.BadRequestError;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SyncContinuationTokenTest {
+
+    @Test
+    public void shouldResumeAfterLastEntityOfPage() {
+        Individual individual = new Individual();
+        individual.setId(42L);
+        individual.setLastModifiedDateTime(new DateTime(1600000000000L));
+
+        SyncContinuationToken token = SyncContinuationToken.parse(SyncContinuationToken.after(individual), new DateTime(0));
+
+        assertThat(token.getLastModifiedDateTime().getMillis()).isEqualTo(1600000000000L);
+        assertThat(token.getLastId()).isEqualTo(42L);
+    }
+
+    @Test
+    public void shouldStartAfterRequestedTimeForEmptyToken() {
+        DateTime lastModifiedDateTime = new DateTime(2021, 1, 1, 0, 0);
+
+        SyncContinuationToken token = SyncContinuationToken.parse("", lastModifiedDateTime);
+
+        assertThat(token.getLastModifiedDateTime()).isEqualTo(lastModifiedDateTime);
+        assertThat(token.getLastId()).isNull();
+    }
+
+    @Test(expected = BadRequestError.class)
+    public void shouldRejectMalformedToken() {
+        SyncContinuationToken.parse("abc", new DateTime());
+    }
+}
@@ -33,11 +33,15 @@ public class SubjectSearchQueryBuilderTest {
                 .withNameFilter("    ")
                 .build();
         assertThat(query.getSql().contains("i.last_name ilike")).isFalse();
+        assertThat(query.getSql()).doesNotContain("select ni.id from individual ni");
+        assertThat(query.getSql()).doesNotContain("ia.identifier ilike");
 
         query = new SubjectSearchQueryBuilder()
                 .withNameFilter(null)
                 .build();
         assertThat(query.getSql().contains("i.last_name ilike")).isFalse();
+        assertThat(query.getSql()).doesNotContain("select ni.id from individual ni");
+        assertThat(query.getSql()).doesNotContain("ia.identifier ilike");
     }
 
     @Test
@@ -51,6 +55,15 @@ public class SubjectSearchQueryBuilderTest {
         assertThat(query.getParameters().size()).isEqualTo(5);
     }
 
+    @Test
+    public void shouldSearchNamesAndIdentifiersForEachToken() {
+        SubjectSearchQuery query = new SubjectSearchQueryBuilder()
+                .withNameFilter("ram 1234")
+                .build();
+        assertThat(query.getSql()).contains("ni.first_name ilike :subjectSearchToken0 or ni.last_name ilike :subjectSearchToken0");
+        assertThat(query.getSql()).contains("ia.identifier ilike :subjectSearchToken1");
+    }
+
     @Test
     public void shouldAddAgeFilter() {
         SubjectSearchQuery query = new SubjectSearchQueryBuilder()
@@ -99,6 +112,16 @@ public class SubjectSearchQueryBuilderTest {
                 .build();
     }
 
+    @Test
+    public void shouldCountTheTotalAlongWithThePage() {
+        SubjectSearchQuery query = new SubjectSearchQueryBuilder().build();
+        assertThat(query.getSql()).contains("count(*) over () as \"totalElements\"");
+        assertThat(query.getSql()).contains("offset :offset limit :limit");
+
+        query = new SubjectSearchQueryBuilder().forCount().build();
+        assertThat(query.getSql()).doesNotContain("over ()");
+    }
+
     @Test
     public void shouldMakeQueryForCount() {
         SubjectSearchQuery query = new SubjectSearchQueryBuilder().forCount()
@@ -0,0 +1,55 @@
+package org.avni.domain;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GroupPrivilegesTest {
+    @Test
+    public void shouldMatchPrivilegesOnTheIdsOfTheirTypes() {
+        SubjectType subjectType = entity(new SubjectType(), 1000L);
+        Program program = entity(new Program(), 2000L);
+        EncounterType encounterType = entity(new EncounterType(), 3000L);
+        EncounterType programEncounterType = entity(new EncounterType(), 3001L);
+
+        GroupPrivilege viewSubject = groupPrivilege("View subject", subjectType, null, null, null);
+        GroupPrivilege viewVisit = groupPrivilege("View visit", subjectType, null, encounterType, null);
+        GroupPrivilege viewProgramVisit = groupPrivilege("View visit", subjectType, program, null, programEncounterType);
+        GroupPrivileges groupPrivileges = new GroupPrivileges(false, Arrays.asList(viewSubject, viewVisit, viewProgramVisit));
+
+        assertTrue(groupPrivileges.hasPrivilege("View subject", entity(new SubjectType(), 1000L), null, null, null));
+        assertTrue(groupPrivileges.hasPrivilege("View visit", subjectType, null, encounterType, null));
+        assertTrue(groupPrivileges.hasPrivilege("View visit", subjectType, program, programEncounterType, null));
+        assertTrue(groupPrivileges.hasPrivilege("View visit", subjectType, program, null, null));
+
+        assertFalse(groupPrivileges.hasPrivilege("View subject", entity(new SubjectType(), 1001L), null, null, null));
+        assertFalse(groupPrivileges.hasPrivilege("View visit", subjectType, null, programEncounterType, null));
+        assertFalse(groupPrivileges.hasPrivilege("View enrolment details", subjectType, program, null, null));
+    }
+
+    @Test
+    public void shouldHaveAllPrivilegesWhenCreatedWithoutPrivileges() {
+        assertTrue(new GroupPrivileges().hasPrivilege("View subject", entity(new SubjectType(), 1L), null, null, null));
+    }
+
+    private static <T extends CHSBaseEntity> T entity(T entity, Long id) {
+        entity.setId(id);
+        return entity;
+    }
+
+    private static GroupPrivilege groupPrivilege(String privilegeName, SubjectType subjectType, Program program,
+                                                 EncounterType encounterType, EncounterType programEncounterType) {
+        Privilege privilege = new Privilege();
+        privilege.setName(privilegeName);
+        GroupPrivilege groupPrivilege = new GroupPrivilege();
+        groupPrivilege.setPrivilege(privilege);
+        groupPrivilege.setSubjectType(subjectType);
+        groupPrivilege.setProgram(program);
+        groupPrivilege.setEncounterType(encounterType);
+        groupPrivilege.setProgramEncounterType(programEncounterType);
+        return groupPrivilege;
+    }
+}
@@ -0,0 +1,132 @@
+package org.avni.exporter;
+
+import org.avni.domain.AddressLevel;
+import org.avni.domain.Individual;
+import org.avni.service.ExportS3Service;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.io.File;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class PartitionedLongitudinalExportTaskletTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ExportCSVFieldExtractor exportCSVFieldExtractor;
+    @Mock
+    private ExportProcessor exportProcessor;
+    @Mock
+    private ExportS3Service exportS3Service;
+    private final Map<Individual, Long> addressOfIndividual = new LinkedHashMap<>();
+
+    @Before
+    public void setup() throws Exception {
+        initMocks(this);
+        when(exportS3Service.getLocalExportFile(anyString())).thenAnswer(invocation -> new File(temporaryFolder.getRoot(), invocation.getArgument(0) + ".csv"));
+        when(exportProcessor.process(any())).thenAnswer(invocation -> {
+            ExportItemRow exportItemRow = new ExportItemRow();
+            exportItemRow.setIndividual(invocation.getArgument(0));
+            return exportItemRow;
+        });
+        when(exportCSVFieldExtractor.extract(any())).thenAnswer(invocation -> {
+            Individual individual = ((ExportItemRow) invocation.getArgument(0)).getIndividual();
+            return new Object[]{individual.getId(), "\"line\nbreak\"", addressOfIndividual.get(individual)};
+        });
+        doAnswer(invocation -> {
+            ((Writer) invocation.getArgument(0)).write("id,notes,address");
+            return null;
+        }).when(exportCSVFieldExtractor).writeHeader(any());
+
+        long[] addresses = {103, 101, 104, 101, 102, 103, 104, 102, 101, 103, 101, 104};
+        for (int i = 0; i < addresses.length; i++) {
+            Individual individual = new Individual();
+            individual.setId(i + 1L);
+            addressOfIndividual.put(individual, addresses[i]);
+        }
+    }
+
+    @Test
+    public void shouldWriteTheSameFileAsTheSerialExport() throws Exception {
+        LongitudinalExportTasklet serialTasklet = new LongitudinalExportTaskletImpl(5, entityManager, exportCSVFieldExtractor,
+                exportProcessor, exportS3Service, "serial", individualsOf(null));
+        serialTasklet.execute(null, chunkContext());
+        serialTasklet.clean();
+
+        List<List<Long>> partitions = PartitionedLongitudinalExportTasklet.partition(Arrays.asList(101L, 102L, 103L, 104L), 3);
+        LongitudinalExportTasklet partitionedTasklet = new PartitionedLongitudinalExportTasklet(5, 2, entityManager, transactionManager,
+                exportCSVFieldExtractor, exportProcessor, exportS3Service, "partitioned", partitions, this::individualsOf);
+        partitionedTasklet.execute(null, chunkContext());
+        partitionedTasklet.clean();
+
+        assertThat(partitions).hasSize(2);
+        String serialExport = new String(Files.readAllBytes(new File(temporaryFolder.getRoot(), "serial.csv").toPath()));
+        String partitionedExport = new String(Files.readAllBytes(new File(temporaryFolder.getRoot(), "partitioned.csv").toPath()));
+        assertThat(partitionedExport).isEqualTo(serialExport);
+        assertThat(serialExport).startsWith("id,notes,address" + System.lineSeparator() + "1,\"line\nbreak\",103");
+        assertThat(temporaryFolder.getRoot().list()).containsExactlyInAnyOrder("serial.csv", "partitioned.csv");
+    }
+
+    @Test
+    public void shouldExportEachRowOnceWhenTheSelectedAddressesOverlap() throws Exception {
+        AddressLevel district = address(100L, "100");
+        AddressLevel village = address(103L, "100.103");
+        List<AddressLevel> allAddresses = Arrays.asList(district, address(101L, "100.101"), address(102L, "100.102"),
+                village, address(104L, "100.104"));
+        List<Long> addressIds = ExportBatchConfiguration.getAddressIds(Arrays.asList(village, district), allAddresses);
+
+        List<List<Long>> partitions = PartitionedLongitudinalExportTasklet.partition(addressIds, 3);
+        LongitudinalExportTasklet partitionedTasklet = new PartitionedLongitudinalExportTasklet(5, 2, entityManager, transactionManager,
+                exportCSVFieldExtractor, exportProcessor, exportS3Service, "partitioned", partitions, this::individualsOf);
+        partitionedTasklet.execute(null, chunkContext());
+        partitionedTasklet.clean();
+
+        assertThat(addressIds).containsExactly(103L, 100L, 101L, 102L, 104L);
+        List<String> rows = Files.readAllLines(new File(temporaryFolder.getRoot(), "partitioned.csv").toPath());
+        List<String> exportedIds = rows.stream().filter(row -> row.endsWith(",\"line")).map(row -> row.substring(0, row.indexOf(','))).collect(Collectors.toList());
+        assertThat(exportedIds).containsExactly("1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12");
+    }
+
+    private static AddressLevel address(Long id, String lineage) {
+        AddressLevel addressLevel = new AddressLevel();
+        addressLevel.setId(id);
+        addressLevel.setLineage(lineage);
+        return addressLevel;
+    }
+
+    private Stream individualsOf(List<Long> addressIds) {
+        return addressOfIndividual.entrySet().stream()
+                .filter(entry -> addressIds == null || addressIds.contains(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .sorted(Comparator.comparing(Individual::getId))
+                .collect(Collectors.toList()).stream();
+    }
+
+    private ChunkContext chunkContext() {
+        return new ChunkContext(new StepContext(new StepExecution("exportStep", new JobExecution(1L))));
+    }
+}
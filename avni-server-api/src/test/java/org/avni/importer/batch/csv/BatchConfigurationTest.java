@@ -0,0 +1,135 @@
+package org.avni.importer.batch.csv;
+
+import org.avni.domain.UserContext;
+import org.avni.framework.security.AuthService;
+import org.avni.framework.security.UserContextHolder;
+import org.avni.importer.batch.csv.writer.*;
+import org.avni.importer.batch.model.Row;
+import org.avni.service.BulkUploadS3Service;
+import org.avni.service.S3Service;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.MapJobRepositoryFactoryBean;
+import org.springframework.batch.core.scope.context.JobSynchronizationManager;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class BatchConfigurationTest {
+    private static final int ROWS = 20;
+    @Mock
+    private S3Service s3Service;
+    @Mock
+    private AuthService authService;
+    @Mock
+    private SubjectWriter subjectWriter;
+    @Mock
+    private ErrorFileCreatorListener errorFileCreatorListener;
+    @Mock
+    private BulkUploadS3Service bulkUploadS3Service;
+    private final ResourcelessTransactionManager transactionManager = new ResourcelessTransactionManager();
+    private JobRepository jobRepository;
+    private ThreadPoolTaskExecutor importTaskExecutor;
+    private final Set<String> writingThreads = ConcurrentHashMap.newKeySet();
+    private final Set<String> usersSeen = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger rowsWritten = new AtomicInteger();
+    private final AtomicInteger chunksWithoutJob = new AtomicInteger();
+
+    @Before
+    public void setup() throws Exception {
+        initMocks(this);
+        MapJobRepositoryFactoryBean jobRepositoryFactoryBean = new MapJobRepositoryFactoryBean(transactionManager);
+        jobRepositoryFactoryBean.afterPropertiesSet();
+        jobRepository = jobRepositoryFactoryBean.getObject();
+
+        StringBuilder csv = new StringBuilder("Id,Name\n");
+        for (int i = 1; i <= ROWS; i++) {
+            csv.append(i).append(",Subject ").append(i).append("\n");
+        }
+        when(s3Service.getObjectContent("upload.csv")).thenAnswer(invocation -> new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        doAnswer(invocation -> {
+            List<Row> rows = invocation.getArgument(0);
+            writingThreads.add(Thread.currentThread().getName());
+            usersSeen.add(String.valueOf(UserContextHolder.getUserContext() == null ? null : UserContextHolder.getUserContext().getOrganisationUUID()));
+            if (JobSynchronizationManager.getContext() == null) chunksWithoutJob.incrementAndGet();
+            rowsWritten.addAndGet(rows.size());
+            Thread.sleep(20);
+            return null;
+        }).when(subjectWriter).write(anyList());
+    }
+
+    @After
+    public void tearDown() {
+        if (importTaskExecutor != null) importTaskExecutor.shutdown();
+        UserContextHolder.clear();
+    }
+
+    @Test
+    public void shouldWriteChunksOfSubjectsInParallelWithTheUserOfTheJob() throws Exception {
+        UserContext userContext = new UserContext();
+        userContext.setOrganisationUUID("demo-organisation");
+        UserContextHolder.create(userContext);
+
+        JobExecution jobExecution = runImport(2, "Subject");
+
+        assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertThat(jobExecution.getStepExecutions()).extracting("stepName").containsExactly("parallelImportStep");
+        assertThat(rowsWritten.get()).isEqualTo(ROWS);
+        assertThat(writingThreads).hasSize(2).allMatch(name -> name.startsWith("import-"));
+        assertThat(usersSeen).containsExactly("demo-organisation");
+        assertThat(chunksWithoutJob.get()).isZero();
+    }
+
+    @Test
+    public void shouldWriteLocationsSerially() throws Exception {
+        JobExecution jobExecution = runImport(2, "locations");
+
+        assertThat(jobExecution.getStepExecutions()).extracting("stepName").containsExactly("importStep");
+    }
+
+    private JobExecution runImport(int threads, String type) throws Exception {
+        BatchConfiguration batchConfiguration = new BatchConfiguration(new JobBuilderFactory(jobRepository),
+                new StepBuilderFactory(jobRepository, transactionManager), jobRepository, s3Service, 2, threads);
+        CsvFileItemWriter csvFileItemWriter = new CsvFileItemWriter(authService, mock(LocationWriter.class),
+                mock(UserAndCatchmentWriter.class), subjectWriter, mock(ProgramEnrolmentWriter.class),
+                mock(ProgramEncounterWriter.class), mock(EncounterWriter.class),
+                mock(GroupSubjectWriter.class));
+        csvFileItemWriter.setType(type);
+        ErrorFileWriterListener errorFileWriterListener = new ErrorFileWriterListener(bulkUploadS3Service);
+        FlatFileItemReader<Row> reader = batchConfiguration.csvFileItemReader("upload.csv");
+        importTaskExecutor = batchConfiguration.importTaskExecutor();
+        importTaskExecutor.initialize();
+        Job job = batchConfiguration.importJob(errorFileCreatorListener,
+                batchConfiguration.importStep(reader, csvFileItemWriter, errorFileWriterListener),
+                batchConfiguration.parallelImportStep(reader, csvFileItemWriter, errorFileWriterListener, importTaskExecutor));
+
+        SimpleJobLauncher jobLauncher = new SimpleJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.afterPropertiesSet();
+        return jobLauncher.run(job, new JobParametersBuilder().addString("type", type).addString("s3Key", "upload.csv").toJobParameters());
+    }
+}
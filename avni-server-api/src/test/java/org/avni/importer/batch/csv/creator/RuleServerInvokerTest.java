@@ -0,0 +1,73 @@
+package org.avni.importer.batch.csv.creator;
+
+import org.avni.importer.batch.csv.contract.UploadRuleServerRequestContract;
+import org.avni.importer.batch.csv.contract.UploadRuleServerResponseContract;
+import org.avni.web.RestClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class RuleServerInvokerTest {
+    @Mock
+    private RestClient restClient;
+    private RuleServerInvoker ruleServerInvoker;
+    private final List<UploadRuleServerRequestContract> requests = Arrays.asList(new UploadRuleServerRequestContract(), new UploadRuleServerRequestContract());
+
+    @Before
+    public void setup() {
+        initMocks(this);
+        ruleServerInvoker = new RuleServerInvoker(restClient, null, null, null, null);
+    }
+
+    @Test
+    public void shouldEvaluateTheRulesOfAllTheRowsInOneCall() throws Exception {
+        when(restClient.post(eq("/api/upload/batch"), any())).thenReturn("[{\"errors\": []}, {\"errors\": [\"Invalid 'Weight'\"]}]");
+
+        List<UploadRuleServerResponseContract> responses = ruleServerInvoker.getRuleServerResults(requests);
+
+        assertThat(responses).extracting("errors").containsExactly(Arrays.asList(), Arrays.asList("Invalid 'Weight'"));
+        verify(restClient, never()).post(eq("/api/upload"), any());
+    }
+
+    @Test
+    public void shouldEvaluateTheRulesOfEachRowWhenTheRuleServerHasNoBatchEndpoint() throws Exception {
+        when(restClient.post(eq("/api/upload/batch"), any())).thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+        when(restClient.post(eq("/api/upload"), any())).thenReturn("{\"errors\": []}");
+
+        assertThat(ruleServerInvoker.getRuleServerResults(requests)).hasSize(2);
+        assertThat(ruleServerInvoker.getRuleServerResults(requests)).hasSize(2);
+
+        verify(restClient, times(1)).post(eq("/api/upload/batch"), any());
+        verify(restClient, times(4)).post(eq("/api/upload"), any());
+    }
+
+    @Test
+    public void shouldNotFallBackOnOtherClientErrors() throws Exception {
+        when(restClient.post(eq("/api/upload/batch"), any())).thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
+
+        assertThatThrownBy(() -> ruleServerInvoker.getRuleServerResults(requests)).isInstanceOf(HttpClientErrorException.class);
+        verify(restClient, never()).post(eq("/api/upload"), any());
+    }
+
+    @Test
+    public void shouldThrowTheErrorsOfTheRowWithTheErrorsOfItsRules() {
+        UploadRuleServerResponseContract response = new UploadRuleServerResponseContract();
+        response.setErrors(Arrays.asList("Invalid 'Weight'"));
+
+        assertThatThrownBy(() -> ruleServerInvoker.checkErrors(response, new ArrayList<>(Arrays.asList("Invalid 'Date Of Birth'"))))
+                .hasMessage("Invalid 'Date Of Birth', Invalid 'Weight'");
+    }
+}
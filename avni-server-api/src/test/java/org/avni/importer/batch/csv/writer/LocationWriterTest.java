@@ -0,0 +1,76 @@
+package org.avni.importer.batch.csv.writer;
+
+import org.avni.dao.AddressLevelTypeRepository;
+import org.avni.dao.LocationRepository;
+import org.avni.domain.AddressLevel;
+import org.avni.domain.AddressLevelType;
+import org.avni.importer.batch.csv.creator.ObservationCreator;
+import org.avni.importer.batch.model.Row;
+import org.avni.service.LocationService;
+import org.avni.web.request.LocationContract;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class LocationWriterTest {
+    private static final String[] HEADERS = {"State", "District"};
+    @Mock
+    private LocationService locationService;
+    @Mock
+    private LocationRepository locationRepository;
+    @Mock
+    private AddressLevelTypeRepository addressLevelTypeRepository;
+    @Mock
+    private ObservationCreator observationCreator;
+    @SuppressWarnings("unchecked")
+    private final ArgumentCaptor<List<LocationContract>> createdLocations = ArgumentCaptor.forClass(List.class);
+    private LocationWriter locationWriter;
+
+    @Before
+    public void setup() {
+        initMocks(this);
+        when(addressLevelTypeRepository.findAllByIsVoidedFalse()).thenReturn(Arrays.asList(type("District", 1d), type("State", 2d)));
+        locationWriter = new LocationWriter(locationService, locationRepository, addressLevelTypeRepository, observationCreator);
+        locationWriter.init();
+    }
+
+    @Test
+    public void shouldCreateTheMissingParentsOnceBeforeTheirChildren() throws Exception {
+        AddressLevel karnataka = new AddressLevel();
+        karnataka.setUuid("karnataka");
+        karnataka.setType(type("State", 2d));
+        when(locationRepository.findByParentAndTitleIgnoreCaseAndIsVoidedFalse(isNull(), eq("Karnataka"))).thenReturn(karnataka);
+
+        locationWriter.write(Arrays.asList(
+                new Row(HEADERS, new String[]{"Maharashtra", "Pune"}),
+                new Row(HEADERS, new String[]{"maharashtra", "Nashik"}),
+                new Row(HEADERS, new String[]{"Karnataka", "Mysore"})));
+
+        verify(locationService, times(1)).saveAllInBulk(createdLocations.capture());
+        List<LocationContract> locations = createdLocations.getValue();
+        assertThat(locations).extracting("name").containsExactly("Maharashtra", "Pune", "Nashik", "Mysore");
+        assertThat(locations).extracting("type").containsExactly("State", "District", "District", "District");
+        assertThat(locations).extracting("level").containsExactly(2d, 1d, 1d, 1d);
+        String maharashtraUuid = locations.get(0).getUuid();
+        assertThat(locations.get(0).getParent()).isNull();
+        assertThat(locations.get(1).getParent().getUuid()).isEqualTo(maharashtraUuid);
+        assertThat(locations.get(2).getParent().getUuid()).isEqualTo(maharashtraUuid);
+        assertThat(locations.get(3).getParent().getUuid()).isEqualTo("karnataka");
+    }
+
+    private static AddressLevelType type(String name, Double level) {
+        AddressLevelType type = new AddressLevelType();
+        type.setName(name);
+        type.setLevel(level);
+        return type;
+    }
+}
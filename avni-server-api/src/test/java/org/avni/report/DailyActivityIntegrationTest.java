@@ -0,0 +1,103 @@
+package org.avni.report;
+
+import org.avni.common.AbstractControllerIntegrationTest;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@Sql({"/test-data.sql"})
+@Sql(value = {"/tear-down.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class DailyActivityIntegrationTest extends AbstractControllerIntegrationTest {
+    // The counts as the reports computed them from the saved rows before daily_activity
+    private static final String AGGREGATED_FROM_SAVED_ROWS = "select i.organisation_id, 'individual' entity, i.registration_date activity_date, i.subject_type_id type_id,\n" +
+            "       i.address_id, i.last_modified_by_id user_id, count(*) row_count, 0 completed_count, 0 on_time_count,\n" +
+            "       0 scheduled_done_count, 0 cancelled_count, 0 exited_count\n" +
+            "from individual i\n" +
+            "where i.is_voided = false\n" +
+            "group by 1, 2, 3, 4, 5, 6\n" +
+            "union all\n" +
+            "select e.organisation_id, 'program_enrolment', e.enrolment_date_time::date, e.program_id, i.address_id,\n" +
+            "       e.last_modified_by_id, count(*), 0, 0, 0, 0, count(*) filter ( where e.program_exit_date_time notnull )\n" +
+            "from program_enrolment e\n" +
+            "         join individual i on i.id = e.individual_id\n" +
+            "where e.is_voided = false\n" +
+            "group by 1, 2, 3, 4, 5, 6\n" +
+            "union all\n" +
+            "select e.organisation_id, 'encounter', e.encounter_date_time::date, e.encounter_type_id, i.address_id,\n" +
+            "       e.last_modified_by_id, count(*),\n" +
+            "       count(*) filter ( where e.encounter_date_time notnull and e.cancel_date_time isnull ),\n" +
+            "       count(*) filter ( where e.encounter_date_time <= e.max_visit_date_time ),\n" +
+            "       count(*) filter ( where e.encounter_date_time notnull and e.earliest_visit_date_time notnull ),\n" +
+            "       count(*) filter ( where e.cancel_date_time notnull ), 0\n" +
+            "from encounter e\n" +
+            "         join individual i on i.id = e.individual_id\n" +
+            "where e.is_voided = false\n" +
+            "group by 1, 2, 3, 4, 5, 6\n" +
+            "union all\n" +
+            "select e.organisation_id, 'program_encounter', e.encounter_date_time::date, e.encounter_type_id, i.address_id,\n" +
+            "       e.last_modified_by_id, count(*),\n" +
+            "       count(*) filter ( where e.encounter_date_time notnull and e.cancel_date_time isnull ),\n" +
+            "       count(*) filter ( where e.encounter_date_time <= e.max_visit_date_time ),\n" +
+            "       count(*) filter ( where e.encounter_date_time notnull and e.earliest_visit_date_time notnull ),\n" +
+            "       count(*) filter ( where e.cancel_date_time notnull ), 0\n" +
+            "from program_encounter e\n" +
+            "         join program_enrolment enl on enl.id = e.program_enrolment_id\n" +
+            "         join individual i on i.id = enl.individual_id\n" +
+            "where e.is_voided = false\n" +
+            "group by 1, 2, 3, 4, 5, 6";
+    private static final String COLUMNS = "organisation_id, entity, activity_date, type_id, address_id, user_id, row_count, completed_count, " +
+            "on_time_count, scheduled_done_count, cancelled_count, exited_count";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AvniReportRepository avniReportRepository;
+
+    @Test
+    public void shouldRollUpToTheCountsOfTheSavedRows() {
+        changeSavedRows();
+
+        avniReportRepository.rollUpDailyActivity();
+
+        assertEquals(0, (int) jdbcTemplate.queryForObject("select count(*) from daily_activity_delta", Integer.class));
+        List<Map<String, Object>> aggregated = countsOf(AGGREGATED_FROM_SAVED_ROWS);
+        assertFalse(aggregated.isEmpty());
+        assertEquals(aggregated, countsOf("select " + COLUMNS + " from daily_activity"));
+    }
+
+    @Test
+    public void shouldCountTheChangesNotRolledUpYet() {
+        avniReportRepository.rollUpDailyActivity();
+        changeSavedRows();
+
+        assertEquals(countsOf(AGGREGATED_FROM_SAVED_ROWS), countsOf("select " + COLUMNS + " from daily_activity union all select " + COLUMNS + " from daily_activity_delta"));
+    }
+
+    private void changeSavedRows() {
+        jdbcTemplate.update("update individual set registration_date = '2021-03-01' where id in (1, 2)");
+        jdbcTemplate.update("update individual set address_id = 2 where id = 1");
+        jdbcTemplate.update("update individual set is_voided = true where id = 3");
+        jdbcTemplate.update("update encounter set max_visit_date_time = encounter_date_time + interval '1 day', earliest_visit_date_time = encounter_date_time");
+        jdbcTemplate.update("update program_encounter set cancel_date_time = encounter_date_time");
+        jdbcTemplate.update("update program_enrolment set program_exit_date_time = enrolment_date_time where id = 2");
+        jdbcTemplate.update("delete from program_enrolment where id = 3");
+    }
+
+    private List<Map<String, Object>> countsOf(String counts) {
+        return jdbcTemplate.queryForList("select organisation_id::bigint, entity, activity_date, type_id::bigint, address_id::bigint, user_id::bigint,\n" +
+                "       sum(row_count)::bigint row_count, sum(completed_count)::bigint completed_count,\n" +
+                "       sum(on_time_count)::bigint on_time_count, sum(scheduled_done_count)::bigint scheduled_done_count,\n" +
+                "       sum(cancelled_count)::bigint cancelled_count, sum(exited_count)::bigint exited_count\n" +
+                "from (" + counts + ") counts\n" +
+                "group by 1, 2, 3, 4, 5, 6\n" +
+                "having sum(row_count) <> 0\n" +
+                "order by 1, 2, 3, 4, 5, 6");
+    }
+}
@@ -13,6 +13,7 @@ import org.avni.domain.User;
 import org.avni.domain.UserContext;
 import org.avni.domain.AccountAdmin;
 import org.avni.framework.security.AuthService;
+import org.avni.framework.security.UserContextCache;
 
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
@@ -24,6 +25,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -44,7 +47,7 @@ public class AuthServiceTest {
     public void setup() {
         initMocks(this);
 //        cognitoAuthService = new CognitoUserContextServiceImpl(organisationRepository, userRepository, "poolId", "clientId");
-        authService = new AuthService(cognitoAuthService, userRepository, organisationRepository, accountAdminRepository);
+        authService = new AuthService(cognitoAuthService, userRepository, organisationRepository, accountAdminRepository, new UserContextCache(0));
         String uuid = "9ecc2805-6528-47ee-8267-9368b266ad39";
         user = new User();
         user.setUuid(uuid);
@@ -130,4 +133,20 @@ public class AuthServiceTest {
         assertThat(userContext.getUser(), is(equalTo(user)));
         assertThat(userContext.getOrganisation(), is(equalTo(organisation)));
     }
+
+    @Test
+    public void shouldResolveUserOfTokenSubjectOnlyOnceWhileCached() {
+        Organisation organisation = new Organisation();
+        when(organisationRepository.findOne(1L)).thenReturn(organisation);
+        when(cognitoAuthService.getTokenSubject("some token")).thenReturn("uuid:" + user.getUuid());
+        when(cognitoAuthService.getUserFromToken("some token")).thenReturn(user);
+        authService = new AuthService(cognitoAuthService, userRepository, organisationRepository, accountAdminRepository, new UserContextCache(60));
+
+        authService.authenticateByToken("some token", null);
+        UserContext userContext = authService.authenticateByToken("some token", null);
+
+        assertThat(userContext.getOrganisation(), is(equalTo(organisation)));
+        verify(cognitoAuthService, times(1)).getUserFromToken("some token");
+        verify(organisationRepository, times(1)).findOne(1L);
+    }
 }
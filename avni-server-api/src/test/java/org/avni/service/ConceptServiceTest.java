@@ -0,0 +1,171 @@
+package org.avni.service;
+
+import org.avni.dao.AnswerConceptMigrationRepository;
+import org.avni.dao.ConceptAnswerRepository;
+import org.avni.dao.ConceptRepository;
+import org.avni.dao.OrganisationRepository;
+import org.avni.dao.application.FormElementRepository;
+import org.avni.domain.*;
+import org.avni.framework.security.UserContextHolder;
+import org.avni.web.request.ConceptContract;
+import org.avni.web.validation.ValidationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class ConceptServiceTest {
+    @Mock
+    private ConceptRepository conceptRepository;
+    @Mock
+    private ConceptAnswerRepository conceptAnswerRepository;
+    @Mock
+    private OrganisationRepository organisationRepository;
+    @Mock
+    private AnswerConceptMigrationRepository answerConceptMigrationRepository;
+    private final List<Concept> savedConcepts = new ArrayList<>();
+    private ConceptService conceptService;
+
+    @Before
+    public void setup() {
+        initMocks(this);
+        conceptService = new ConceptService(conceptRepository, conceptAnswerRepository, organisationRepository, null,
+                mock(FormElementRepository.class), answerConceptMigrationRepository, mock(ConceptCache.class));
+        when(conceptRepository.save(any(Concept.class))).thenAnswer(invocation -> {
+            savedConcepts.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        Organisation organisation = new Organisation();
+        organisation.setId(1L);
+        User user = new User();
+        user.setId(1L);
+        UserContext userContext = new UserContext();
+        userContext.setOrganisation(organisation);
+        userContext.setUser(user);
+        UserContextHolder.create(userContext);
+    }
+
+    @After
+    public void tearDown() {
+        UserContextHolder.clear();
+    }
+
+    @Test
+    public void shouldSaveAnswersListedAfterTheirConceptFirst() {
+        conceptService.saveOrUpdateConcepts(Arrays.asList(
+                request("blood-group", "Blood group", "Coded", "a-positive", "b-positive"),
+                request("a-positive", "A+", "NA"),
+                request("b-positive", "B+", "NA")));
+
+        assertThat(savedConcepts).extracting("uuid").containsExactly("a-positive", "b-positive", "blood-group");
+        assertThat(savedConcepts.get(2).getConceptAnswers()).extracting("answerConcept")
+                .usingElementComparator((one, other) -> one == other ? 0 : 1)
+                .containsExactlyInAnyOrder(savedConcepts.get(0), savedConcepts.get(1));
+    }
+
+    @Test
+    public void shouldSaveConceptsThatAreAnswersOfEachOtherOnce() {
+        Concept first = existingConcept(1L, "first", "First", "Coded");
+        Concept second = existingConcept(2L, "second", "Second", "Coded");
+        when(conceptRepository.findAllWithAnswersByUuidIn(anyList())).thenReturn(Arrays.asList(first, second));
+
+        conceptService.saveOrUpdateConcepts(Arrays.asList(
+                request("first", "First", "Coded", "second"),
+                request("second", "Second", "Coded", "first")));
+
+        assertThat(savedConcepts).extracting("uuid").containsExactly("second", "first");
+        assertThat(first.findConceptAnswerByConceptUUID("second").getAnswerConcept()).isSameAs(second);
+        assertThat(second.findConceptAnswerByConceptUUID("first").getAnswerConcept()).isSameAs(first);
+    }
+
+    @Test
+    public void shouldFailWhenAnAnswerIsNeitherRequestedNorSaved() {
+        assertThatThrownBy(() -> conceptService.saveOrUpdateConcepts(Collections.singletonList(
+                request("blood-group", "Blood group", "Coded", "o-positive"))))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Answer concept not found for UUID:o-positive");
+        assertThat(savedConcepts).isEmpty();
+    }
+
+    @Test
+    public void shouldLookUpTheOrganisationOfTheRequestsOnce() {
+        Organisation organisation = new Organisation();
+        organisation.setId(2L);
+        when(organisationRepository.findByUuid("other-organisation")).thenReturn(organisation);
+        ConceptContract aPositive = request("a-positive", "A+", "NA");
+        ConceptContract bPositive = request("b-positive", "B+", "NA");
+        aPositive.setOrganisationUUID("other-organisation");
+        bPositive.setOrganisationUUID("other-organisation");
+
+        conceptService.saveOrUpdateConcepts(Arrays.asList(aPositive, bPositive));
+
+        verify(organisationRepository, times(1)).findByUuid("other-organisation");
+        assertThat(savedConcepts).extracting("organisationId").containsExactly(2L, 2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldRecordTheRenamesOfExistingAnswersWithOneQuery() {
+        Concept aPositive = existingConcept(1L, "a-positive", "A +ve", "NA");
+        Concept bPositive = existingConcept(2L, "b-positive", "B +ve", "NA");
+        Concept bloodGroup = existingConcept(3L, "blood-group", "Blood group", "Coded");
+        when(conceptRepository.findAllWithAnswersByUuidIn(anyList())).thenReturn(Arrays.asList(aPositive, bPositive));
+        when(conceptAnswerRepository.findByAnswerConceptIn(any())).thenReturn(Arrays.asList(
+                conceptAnswer(bloodGroup, aPositive), conceptAnswer(bloodGroup, bPositive)));
+
+        conceptService.saveOrUpdateConcepts(Arrays.asList(request("a-positive", "A+", "NA"), request("b-positive", "B+", "NA")));
+
+        verify(conceptAnswerRepository, times(1)).findByAnswerConceptIn(any());
+        verify(conceptAnswerRepository, never()).findByAnswerConcept(any());
+        ArgumentCaptor<List<AnswerConceptMigration>> migrations = ArgumentCaptor.forClass(List.class);
+        verify(answerConceptMigrationRepository).saveAll(migrations.capture());
+        assertThat(migrations.getValue()).extracting("oldAnswerConceptName", "newAnswerConceptName")
+                .containsExactlyInAnyOrder(tuple("A +ve", "A+"), tuple("B +ve", "B+"));
+    }
+
+    private static ConceptContract request(String uuid, String name, String dataType, String... answerUuids) {
+        ConceptContract conceptContract = new ConceptContract();
+        conceptContract.setUuid(uuid);
+        conceptContract.setName(name);
+        conceptContract.setDataType(dataType);
+        List<ConceptContract> answers = new ArrayList<>();
+        for (String answerUuid : answerUuids) {
+            ConceptContract answer = new ConceptContract();
+            answer.setUuid(answerUuid);
+            answers.add(answer);
+        }
+        conceptContract.setAnswers(answers);
+        return conceptContract;
+    }
+
+    private static Concept existingConcept(Long id, String uuid, String name, String dataType) {
+        Concept concept = new Concept();
+        concept.setId(id);
+        concept.setUuid(uuid);
+        concept.setName(name);
+        concept.setDataType(dataType);
+        return concept;
+    }
+
+    private static ConceptAnswer conceptAnswer(Concept concept, Concept answerConcept) {
+        ConceptAnswer conceptAnswer = new ConceptAnswer();
+        conceptAnswer.setConcept(concept);
+        conceptAnswer.setAnswerConcept(answerConcept);
+        return conceptAnswer;
+    }
+}
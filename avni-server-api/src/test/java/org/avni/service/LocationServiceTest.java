@@ -0,0 +1,127 @@
+package org.avni.service;
+
+import org.avni.builder.BuilderException;
+import org.avni.dao.*;
+import org.avni.domain.*;
+import org.avni.framework.security.UserContextHolder;
+import org.avni.web.request.LocationContract;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class LocationServiceTest {
+    @Mock
+    private LocationRepository locationRepository;
+    @Mock
+    private AddressLevelTypeRepository addressLevelTypeRepository;
+    @Mock
+    private OrganisationRepository organisationRepository;
+    @Mock
+    private LocationMappingRepository locationMappingRepository;
+    @Mock
+    private CatchmentAddressLevelCache catchmentAddressLevelCache;
+    @Mock
+    private LocationBulkRepository locationBulkRepository;
+    @SuppressWarnings("unchecked")
+    private final ArgumentCaptor<List<AddressLevel>> insertedLocations = ArgumentCaptor.forClass(List.class);
+    private LocationService locationService;
+
+    @Before
+    public void setup() {
+        initMocks(this);
+        locationService = new LocationService(locationRepository, addressLevelTypeRepository, organisationRepository,
+                locationMappingRepository, catchmentAddressLevelCache, locationBulkRepository);
+        when(addressLevelTypeRepository.findByNameIgnoreCaseAndOrganisationIdAndIsVoidedFalse("State", 1L)).thenReturn(type(1L, "State"));
+        when(addressLevelTypeRepository.findByNameIgnoreCaseAndOrganisationIdAndIsVoidedFalse("District", 1L)).thenReturn(type(2L, "District"));
+        when(locationBulkRepository.nextAddressLevelIds(anyInt())).thenAnswer(invocation -> Arrays.asList(11L, 12L, 13L, 14L).subList(0, invocation.getArgument(0)));
+
+        Organisation organisation = new Organisation();
+        organisation.setId(1L);
+        User user = new User();
+        user.setId(1L);
+        UserContext userContext = new UserContext();
+        userContext.setOrganisation(organisation);
+        userContext.setUser(user);
+        UserContextHolder.create(userContext);
+    }
+
+    @After
+    public void tearDown() {
+        UserContextHolder.clear();
+    }
+
+    @Test
+    public void shouldInsertTheLocationsInTheOrderGivenUnderTheirNewParents() throws BuilderException {
+        int created = locationService.saveAllInBulk(Arrays.asList(
+                location("maharashtra", "Maharashtra", "State", null),
+                location("pune", "Pune", "District", "maharashtra"),
+                location("nashik", "Nashik", "District", "maharashtra")));
+
+        assertThat(created).isEqualTo(3);
+        verify(locationBulkRepository).insert(insertedLocations.capture(), eq(1L));
+        assertThat(insertedLocations.getValue()).extracting("uuid").containsExactly("maharashtra", "pune", "nashik");
+        assertThat(insertedLocations.getValue()).extracting("lineage").containsExactly("11", "11.12", "11.13");
+        assertThat(insertedLocations.getValue().get(2).getParent()).isSameAs(insertedLocations.getValue().get(0));
+        verify(locationRepository, never()).findByUuid("maharashtra");
+    }
+
+    @Test
+    public void shouldNotFindAParentGivenAfterItsChild() {
+        assertThatThrownBy(() -> locationService.saveAllInBulk(Arrays.asList(
+                location("pune", "Pune", "District", "maharashtra"),
+                location("maharashtra", "Maharashtra", "State", null))))
+                .isInstanceOf(BuilderException.class)
+                .hasMessageContaining("Parent Location not found for UUID:maharashtra");
+        verify(locationBulkRepository, never()).insert(any(), any());
+    }
+
+    @Test
+    public void shouldRejectTitlesThatDifferOnlyInCaseUnderTheSameParent() {
+        assertThatThrownBy(() -> locationService.saveAllInBulk(Arrays.asList(
+                location("maharashtra", "Maharashtra", "State", null),
+                location("pune", "Pune", "District", "maharashtra"),
+                location("other-pune", "pune", "District", "maharashtra"))))
+                .isInstanceOf(BuilderException.class)
+                .hasMessage("Location with same name 'pune' and type 'District' exists at this level");
+        verify(locationBulkRepository, never()).insert(any(), any());
+    }
+
+    @Test
+    public void shouldAllowTheSameTitleUnderDifferentParents() throws BuilderException {
+        int created = locationService.saveAllInBulk(Arrays.asList(
+                location("maharashtra", "Maharashtra", "State", null),
+                location("karnataka", "Karnataka", "State", null),
+                location("aurangabad", "Aurangabad", "District", "maharashtra"),
+                location("other-aurangabad", "aurangabad", "District", "karnataka")));
+
+        assertThat(created).isEqualTo(4);
+    }
+
+    private static AddressLevelType type(Long id, String name) {
+        AddressLevelType type = new AddressLevelType();
+        type.setId(id);
+        type.setName(name);
+        return type;
+    }
+
+    private static LocationContract location(String uuid, String name, String type, String parentUuid) {
+        LocationContract contract = new LocationContract(uuid);
+        contract.setName(name);
+        contract.setType(type);
+        if (parentUuid != null) {
+            contract.setParent(new LocationContract(parentUuid));
+        }
+        return contract;
+    }
+}
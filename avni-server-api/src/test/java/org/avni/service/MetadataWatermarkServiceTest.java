@@ -0,0 +1,113 @@
+package org.avni.service;
+
+import org.avni.application.Form;
+import org.avni.dao.EntityChangeRepository;
+import org.avni.domain.Organisation;
+import org.avni.domain.User;
+import org.avni.domain.UserContext;
+import org.avni.framework.ApplicationContextProvider;
+import org.avni.framework.cache.EntityDependentCache;
+import org.avni.framework.hibernate.UpdateOrganisationHibernateInterceptor;
+import org.avni.framework.security.UserContextHolder;
+import org.hibernate.type.Type;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class MetadataWatermarkServiceTest {
+    @Mock
+    private EntityChangeRepository entityChangeRepository;
+    @Mock
+    private ApplicationContext applicationContext;
+    private ApplicationContext previousApplicationContext;
+    private MetadataWatermarkService metadataWatermarkService;
+    private final DateTime lastSync = new DateTime(2021, 1, 1, 0, 0);
+
+    @Before
+    public void setup() {
+        initMocks(this);
+        metadataWatermarkService = new MetadataWatermarkService(entityChangeRepository, 60);
+        when(entityChangeRepository.getLastModifiedDateTimes()).thenReturn(Collections.singletonMap("Form", lastSync.plusDays(1)));
+        when(entityChangeRepository.getRelatedOrganisationIds(1L)).thenReturn(new HashSet<>(Arrays.asList(1L, 3L)));
+
+        Organisation organisation = new Organisation();
+        organisation.setId(1L);
+        User user = new User();
+        user.setId(1L);
+        UserContext userContext = new UserContext();
+        userContext.setOrganisation(organisation);
+        userContext.setUser(user);
+        UserContextHolder.create(userContext);
+
+        previousApplicationContext = ApplicationContextProvider.getContext();
+        when(applicationContext.getBeansOfType(EntityDependentCache.class)).thenReturn(Collections.singletonMap("metadataWatermarkService", metadataWatermarkService));
+        new ApplicationContextProvider().setApplicationContext(applicationContext);
+    }
+
+    @After
+    public void tearDown() {
+        new ApplicationContextProvider().setApplicationContext(previousApplicationContext);
+        UserContextHolder.clear();
+    }
+
+    @Test
+    public void shouldAnswerFromWatermarksUntilMetadataIsSaved() {
+        Map<String, DateTime> lastModifiedDateTimes = Collections.singletonMap("Form", lastSync);
+
+        Set<String> changedEntityNames = metadataWatermarkService.getChangedEntityNames(lastModifiedDateTimes);
+        metadataWatermarkService.getChangedEntityNames(lastModifiedDateTimes);
+
+        assertThat(changedEntityNames).containsExactly("Form");
+        verify(entityChangeRepository, times(1)).getLastModifiedDateTimes();
+        assertThat(metadataWatermarkService.getStatistics().getHits()).isEqualTo(1);
+
+        new UpdateOrganisationHibernateInterceptor().onSave(new Form(), 1L, new Object[]{1L}, new String[]{"organisationId"}, new Type[1]);
+        metadataWatermarkService.getChangedEntityNames(lastModifiedDateTimes);
+
+        verify(entityChangeRepository, times(2)).getLastModifiedDateTimes();
+    }
+
+    @Test
+    public void shouldInvalidateOnlyTheWatermarksOfOrganisationsThatSeeTheSavedEntity() {
+        Map<String, DateTime> lastModifiedDateTimes = Collections.singletonMap("Form", lastSync);
+        metadataWatermarkService.getChangedEntityNames(lastModifiedDateTimes);
+
+        User userOfOtherOrganisation = new User();
+        userOfOtherOrganisation.setOrganisationId(2L);
+        new UpdateOrganisationHibernateInterceptor().onFlushDirty(userOfOtherOrganisation, 2L, new Object[0], new Object[0], new String[0], new Type[0]);
+        metadataWatermarkService.getChangedEntityNames(lastModifiedDateTimes);
+
+        verify(entityChangeRepository, times(1)).getLastModifiedDateTimes();
+
+        Form formOfParentOrganisation = new Form();
+        formOfParentOrganisation.setOrganisationId(3L);
+        new UpdateOrganisationHibernateInterceptor().onFlushDirty(formOfParentOrganisation, 1L, new Object[]{3L}, new Object[]{3L}, new String[]{"organisationId"}, new Type[1]);
+        metadataWatermarkService.getChangedEntityNames(lastModifiedDateTimes);
+
+        verify(entityChangeRepository, times(2)).getLastModifiedDateTimes();
+    }
+
+    @Test
+    public void shouldNotInvalidateWatermarksWhenTransactionalDataIsSaved() {
+        Map<String, DateTime> lastModifiedDateTimes = Collections.singletonMap("Form", lastSync);
+        metadataWatermarkService.getChangedEntityNames(lastModifiedDateTimes);
+
+        new UpdateOrganisationHibernateInterceptor().onDelete(new Object(), 1L, new Object[0], new String[0], new Type[0]);
+        metadataWatermarkService.getChangedEntityNames(lastModifiedDateTimes);
+
+        verify(entityChangeRepository, times(1)).getLastModifiedDateTimes();
+    }
+}
@@ -35,7 +35,7 @@ public class ObservationServiceTest {
     @Before
     public void setup() {
         initMocks(this);
-        observationService = new ObservationService(conceptRepository, individualRepository, locationRepository);
+        observationService = new ObservationService(new ConceptCache(conceptRepository, null, 0), individualRepository, locationRepository);
     }
 
     @Test
@@ -0,0 +1,74 @@
+package org.avni.service;
+
+import org.avni.dao.IndividualRepository;
+import org.avni.dao.SyncParameters;
+import org.avni.domain.Individual;
+import org.avni.domain.SubjectType;
+import org.avni.domain.User;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class ScopeBasedSyncServiceTest {
+    @Mock
+    private AddressLevelService addressLevelService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private IndividualRepository individualRepository;
+    private final List<String> events = new ArrayList<>();
+    private ScopeBasedSyncService<Individual> scopeBasedSyncService;
+
+    @Before
+    public void setup() {
+        initMocks(this);
+        scopeBasedSyncService = new ScopeBasedSyncService<>(addressLevelService, mock(EntityManager.class), transactionManager);
+        when(addressLevelService.getAllAddressLevelIdsForCatchment(any())).thenReturn(Collections.singletonList(1L));
+        doAnswer(invocation -> events.add("commit")).when(transactionManager).commit(any());
+    }
+
+    @Test
+    public void shouldWriteEachPageAfterItsTransactionAndResumeAfterItsLastEntity() {
+        DateTime lastModifiedDateTime = new DateTime(2021, 1, 1, 0, 0);
+        Individual first = individual(1L, lastModifiedDateTime.plusMinutes(1));
+        Individual second = individual(2L, lastModifiedDateTime.plusMinutes(2));
+        Individual third = individual(3L, lastModifiedDateTime.plusMinutes(3));
+        when(individualRepository.getSyncResultsAsSlice(any()))
+                .thenReturn(new SliceImpl<>(Arrays.asList(first, second), PageRequest.of(0, 2), true))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(third), PageRequest.of(0, 2), false));
+
+        scopeBasedSyncService.streamSyncResult(individualRepository, new User(), lastModifiedDateTime, DateTime.now(), 1L, new SubjectType(),
+                SyncParameters.SyncEntityName.Individual, individual -> "write " + individual.getId(), events::add);
+
+        assertThat(events).containsExactly("commit", "write 1", "write 2", "commit", "write 3");
+        ArgumentCaptor<SyncParameters> syncParameters = ArgumentCaptor.forClass(SyncParameters.class);
+        verify(individualRepository, times(2)).getSyncResultsAsSlice(syncParameters.capture());
+        assertThat(syncParameters.getAllValues().get(0).hasContinuationToken()).isFalse();
+        assertThat(syncParameters.getAllValues().get(0).getLastModifiedDateTime()).isEqualTo(lastModifiedDateTime);
+        assertThat(syncParameters.getAllValues().get(1).getLastModifiedDateTime()).isEqualTo(second.getLastModifiedDateTime());
+        assertThat(syncParameters.getAllValues().get(1).getLastId()).isEqualTo(2L);
+    }
+
+    private static Individual individual(Long id, DateTime lastModifiedDateTime) {
+        Individual individual = new Individual();
+        individual.setId(id);
+        individual.setLastModifiedDateTime(lastModifiedDateTime);
+        return individual;
+    }
+}
@@ -0,0 +1,121 @@
+package org.avni.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.avni.web.request.BulkUploadItem;
+import org.avni.web.request.IndividualRequest;
+import org.avni.web.response.BulkUploadItemResponse;
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class BulkUploadControllerTest {
+    @Mock
+    private IndividualController individualController;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private Session session;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> savedInTransaction = new ArrayList<>();
+    private final List<String> committed = new ArrayList<>();
+    private BulkUploadController bulkUploadController;
+
+    @Before
+    public void setup() {
+        initMocks(this);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        doAnswer(invocation -> {
+            committed.addAll(savedInTransaction);
+            savedInTransaction.clear();
+            return null;
+        }).when(transactionManager).commit(any());
+        doAnswer(invocation -> {
+            savedInTransaction.clear();
+            return null;
+        }).when(transactionManager).rollback(any());
+        doAnswer(invocation -> {
+            String uuid = invocation.<IndividualRequest>getArgument(0).getUuid();
+            if (uuid.startsWith("bad")) {
+                throw new IllegalArgumentException("Cannot save " + uuid);
+            }
+            savedInTransaction.add(uuid);
+            return null;
+        }).when(individualController).save(any(IndividualRequest.class));
+        bulkUploadController = new BulkUploadController(individualController, mock(ProgramEnrolmentController.class),
+                mock(ProgramEncounterController.class), mock(EncounterController.class), mock(ChecklistController.class),
+                mock(ChecklistItemController.class), mock(IndividualRelationshipController.class),
+                mock(GroupSubjectController.class), objectMapper, transactionManager, entityManager, 3, 50);
+    }
+
+    @Test
+    public void shouldSaveAChunkInOneBatchedTransaction() {
+        List<BulkUploadItemResponse> responses = bulkUploadController.save(individuals("first", "second", "third", "fourth"));
+
+        assertThat(responses).extracting("status").containsOnly(BulkUploadItemResponse.Status.Saved);
+        assertThat(committed).containsExactly("first", "second", "third", "fourth");
+        verify(transactionManager, times(2)).commit(any());
+        InOrder inOrder = inOrder(session, entityManager);
+        inOrder.verify(session).setJdbcBatchSize(50);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(session).setJdbcBatchSize(null);
+    }
+
+    @Test
+    public void shouldSaveTheItemsOfAChunkAloneWhenOneOfThemFails() {
+        List<BulkUploadItemResponse> responses = bulkUploadController.save(individuals("first", "bad-second", "third", "fourth"));
+
+        assertThat(responses).extracting("uuid").containsExactly("first", "bad-second", "third", "fourth");
+        assertThat(responses).extracting("status").containsExactly(BulkUploadItemResponse.Status.Saved,
+                BulkUploadItemResponse.Status.Failed, BulkUploadItemResponse.Status.Saved, BulkUploadItemResponse.Status.Saved);
+        assertThat(responses.get(1).getErrorMessage()).isEqualTo("Cannot save bad-second");
+        assertThat(committed).containsExactly("first", "third", "fourth");
+        verify(transactionManager, times(2)).rollback(any());
+        // Only the two chunks are batched, not the items saved alone
+        verify(session, times(2)).setJdbcBatchSize(50);
+        verify(session, times(2)).setJdbcBatchSize(null);
+    }
+
+    @Test
+    public void shouldFailItemsOfUnsupportedResourcesWithoutFailingTheirChunk() {
+        List<BulkUploadItem> items = individuals("first", "second", "third", "fourth");
+        items.get(1).setResource("videos");
+
+        List<BulkUploadItemResponse> responses = bulkUploadController.save(items);
+
+        assertThat(responses).extracting("uuid").containsExactly("first", "second", "third", "fourth");
+        assertThat(responses).extracting("status").containsExactly(BulkUploadItemResponse.Status.Saved,
+                BulkUploadItemResponse.Status.Failed, BulkUploadItemResponse.Status.Saved, BulkUploadItemResponse.Status.Saved);
+        assertThat(responses.get(1).getErrorMessage()).isEqualTo("Bulk upload of videos is not supported");
+        assertThat(committed).containsExactly("first", "third", "fourth");
+        verify(transactionManager, times(1)).commit(any());
+        verify(transactionManager, never()).rollback(any());
+    }
+
+    private List<BulkUploadItem> individuals(String... uuids) {
+        List<BulkUploadItem> items = new ArrayList<>();
+        Arrays.stream(uuids).forEach(uuid -> {
+            BulkUploadItem item = new BulkUploadItem();
+            item.setResource("individuals");
+            item.setEntity(objectMapper.createObjectNode().put("uuid", uuid));
+            items.add(item);
+        });
+        return items;
+    }
+}
@@ -21,6 +21,8 @@ DELETE FROM catchment;
 DELETE FROM account_admin;
 delete from user_group;
 DELETE FROM users;
+DELETE FROM daily_activity_delta;
+DELETE FROM daily_activity;
 DELETE FROM organisation;
 DELETE FROM groups;
 DELETE FROM group_privilege;
@@ -25,6 +25,8 @@ DELETE FROM users;
 DELETE FROM subject_type;
 DELETE FROM groups;
 DELETE FROM group_privilege;
+DELETE FROM daily_activity_delta;
+DELETE FROM daily_activity;
 DELETE FROM organisation;
 
 ALTER SEQUENCE form_element_id_seq RESTART WITH 1;
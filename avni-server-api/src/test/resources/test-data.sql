@@ -28,6 +28,8 @@ DELETE FROM users;
 DELETE FROM subject_type;
 DELETE FROM groups;
 DELETE FROM group_privilege;
+DELETE FROM daily_activity_delta;
+DELETE FROM daily_activity;
 DELETE FROM organisation;
 DELETE FROM audit;
 